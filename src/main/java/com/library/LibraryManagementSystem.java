@@ -1,7 +1,11 @@
 package com.library;
 
 import com.library.service.DatabaseManager;
+import com.library.service.GlobalSearchService;
+import com.library.service.JobScheduler;
+import com.library.service.NotificationDispatcher;
 import com.library.ui.*;
+import com.library.util.Money;
 import javafx.application.Application;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -18,6 +22,9 @@ import javafx.stage.Stage;
 
 public class LibraryManagementSystem extends Application {
     private DatabaseManager dbManager; // MySQL database manager
+    private GlobalSearchService globalSearch;
+    private JobScheduler jobScheduler;
+    private NotificationDispatcher notificationDispatcher;
     private BorderPane mainLayout;
     private VBox sideMenu;
     private StackPane contentArea;
@@ -28,6 +35,11 @@ public class LibraryManagementSystem extends Application {
         initializeDatabase();
         
         dbManager = DatabaseManager.getInstance();
+        globalSearch = new GlobalSearchService(dbManager);
+        jobScheduler = JobScheduler.createDefault(dbManager);
+        jobScheduler.start();
+        notificationDispatcher = NotificationDispatcher.createDefault(dbManager);
+        notificationDispatcher.start();
         
         primaryStage.setTitle("Library Management System");
         primaryStage.setMaximized(true);
@@ -43,6 +55,23 @@ public class LibraryManagementSystem extends Application {
         showDashboard();
     }
     
+    @Override
+    public void stop() {
+        // Stops the change poller and, in host mode, the TCP server for the other desks
+        if (globalSearch != null) {
+            globalSearch.shutdown();
+        }
+        if (jobScheduler != null) {
+            jobScheduler.shutdown();
+        }
+        if (notificationDispatcher != null) {
+            notificationDispatcher.shutdown();
+        }
+        if (dbManager != null) {
+            dbManager.closeConnection();
+        }
+    }
+    
     private void initializeDatabase() {
         System.out.println("Initializing database...");
         try {
@@ -78,13 +107,24 @@ public class LibraryManagementSystem extends Application {
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
         
+        // Searches members, media, loans and fines at once
+        TextField searchField = new TextField();
+        searchField.setPromptText("Search everything...");
+        searchField.getStyleClass().add("header-search");
+        searchField.setPrefWidth(320);
+        searchField.setOnAction(e -> {
+            if (!searchField.getText().isBlank()) {
+                showGlobalSearch(searchField.getText());
+            }
+        });
+        
         Label userLabel = new Label("Logged in as: Admin");
         userLabel.getStyleClass().add("header-user");
         
         Button refreshBtn = new Button("Refresh Data");
         refreshBtn.setOnAction(e -> refreshCurrentView());
         
-        header.getChildren().addAll(title, spacer, userLabel, refreshBtn);
+        header.getChildren().addAll(title, spacer, searchField, userLabel, refreshBtn);
         return header;
     }
     
@@ -191,7 +231,7 @@ public class LibraryManagementSystem extends Application {
         VBox activeLoans = createStatsCard("Active Loans", String.valueOf(dbManager.getTotalActiveLoans()), "📋");
         VBox overdueLoans = createStatsCard("Overdue Loans", String.valueOf(dbManager.getTotalOverdueLoans()), "⚠️");
         VBox outstandingFines = createStatsCard("Outstanding Fines", 
-            String.format("€%.2f", dbManager.getTotalOutstandingFines()), "💰");
+            Money.format(dbManager.getTotalOutstandingFineCents()), "💰");
         
         statsBox.getChildren().addAll(totalMembers, totalMedia, activeLoans, overdueLoans, outstandingFines);
         return statsBox;
@@ -322,6 +362,12 @@ public class LibraryManagementSystem extends Application {
         contentArea.getChildren().add(statsView);
     }
     
+    private void showGlobalSearch(String query) {
+        GlobalSearchView searchView = new GlobalSearchView(dbManager, globalSearch, query);
+        contentArea.getChildren().clear();
+        contentArea.getChildren().add(searchView);
+    }
+    
     private void showAddMemberDialog() {
         MemberDialog dialog = new MemberDialog(dbManager);
         dialog.showAndWait().ifPresent(member -> {
@@ -0,0 +1,38 @@
+package com.library;
+
+import com.library.api.ApiServer;
+import com.library.service.DatabaseManager;
+import com.library.service.JobScheduler;
+import com.library.service.NotificationDispatcher;
+
+/**
+ * Headless entry point: serves the catalog and circulation API without starting the JavaFX toolkit.
+ * Usage: {@code LibraryServer [port]} (default 8080, or the {@code library.server.port} system property).
+ */
+public class LibraryServer {
+    private static final int DEFAULT_PORT = 8080;
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0
+            ? Integer.parseInt(args[0])
+            : Integer.getInteger("library.server.port", DEFAULT_PORT);
+        
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        NotificationDispatcher notificationDispatcher = NotificationDispatcher.createDefault(dbManager);
+        ApiServer apiServer = new ApiServer(dbManager, port, notificationDispatcher);
+        JobScheduler jobScheduler = JobScheduler.createDefault(dbManager);
+        
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("Shutting down library API server...");
+            apiServer.stop();
+            jobScheduler.shutdown();
+            notificationDispatcher.shutdown();
+            dbManager.closeConnection();
+        }));
+        
+        apiServer.start();
+        jobScheduler.start();
+        notificationDispatcher.start();
+        System.out.println("✓ Library API server listening on port " + apiServer.getPort());
+    }
+}
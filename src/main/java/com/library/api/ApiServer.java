@@ -0,0 +1,305 @@
+package com.library.api;
+
+import com.library.model.Loan;
+import com.library.model.Media;
+import com.library.model.Member;
+import com.library.service.DatabaseManager;
+import com.library.service.EligibilityEngine;
+import com.library.service.GlobalSearchService;
+import com.library.service.NotificationDispatcher;
+import com.library.util.LibraryClock;
+import com.library.util.VirtualThreads;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Headless JSON API over {@link DatabaseManager} for kiosks and the OPAC.
+ *
+ * <pre>
+ * GET  /api/media?q=term            search the catalog
+ * GET  /api/media?isbn=978...       exact lookup by ISBN-10 or ISBN-13 (scanner input)
+ * GET  /api/media/{id}              single media item with availability
+ * GET  /api/search?q=term           members, media, loans and fines in one grouped result
+ * GET  /api/members/{id}/loans      loans of a member
+ * POST /api/loans?memberId=&amp;mediaId=  checkout
+ * POST /api/loans/{id}/return       return (applies the overdue fine like the desk does)
+ * GET  /api/notifications/metrics   outbox queue, delivery counters, throughput and latency
+ * </pre>
+ */
+public class ApiServer {
+    private static final int BACKLOG = 1024;
+    private static final int MAX_SEARCH_RESULTS = 200;
+
+    private record Response(int status, String body) {}
+
+    private final DatabaseManager dbManager;
+    private final GlobalSearchService globalSearch;
+    private final NotificationDispatcher notificationDispatcher;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public ApiServer(DatabaseManager dbManager, int port) throws IOException {
+        this(dbManager, port, null);
+    }
+
+    public ApiServer(DatabaseManager dbManager, int port, NotificationDispatcher notificationDispatcher) throws IOException {
+        this.dbManager = dbManager;
+        this.notificationDispatcher = notificationDispatcher;
+        this.globalSearch = new GlobalSearchService(dbManager);
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.executor = VirtualThreads.newPerTaskExecutor(Math.max(16, Runtime.getRuntime().availableProcessors() * 8));
+        server.setExecutor(executor);
+        server.createContext("/api/media", this::handleMedia);
+        server.createContext("/api/members", this::handleMembers);
+        server.createContext("/api/loans", this::handleLoans);
+        server.createContext("/api/search", this::handleSearch);
+        server.createContext("/api/notifications", this::handleNotifications);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        globalSearch.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleMedia(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, Json.error("Method not allowed"));
+                return;
+            }
+            String[] path = pathSegments(exchange, "/api/media");
+            if (path.length == 0 && queryParams(exchange).containsKey("isbn")) {
+                String isbn = queryParams(exchange).get("isbn");
+                Response response = dbManager.readData(() -> {
+                    Media media = dbManager.findMediaByIsbn(isbn);
+                    return media != null
+                        ? new Response(200, Json.media(media))
+                        : new Response(404, Json.error("Media not found for ISBN: " + isbn));
+                });
+                send(exchange, response.status(), response.body());
+            } else if (path.length == 0) {
+                String query = queryParams(exchange).getOrDefault("q", "").trim();
+                String body = dbManager.readData(() -> {
+                    List<Media> results = query.isEmpty() ? dbManager.getAllMedia() : dbManager.searchMedia(query);
+                    return Json.mediaList(results.subList(0, Math.min(results.size(), MAX_SEARCH_RESULTS)));
+                });
+                send(exchange, 200, body);
+            } else if (path.length == 1) {
+                int id = parseId(path[0]);
+                Response response = dbManager.readData(() -> {
+                    Media media = dbManager.findMediaById(id);
+                    return media != null
+                        ? new Response(200, Json.media(media))
+                        : new Response(404, Json.error("Media not found: " + id));
+                });
+                send(exchange, response.status(), response.body());
+            } else {
+                send(exchange, 404, Json.error("Unknown resource"));
+            }
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, Json.error(e.getMessage()));
+        } catch (RuntimeException e) {
+            System.err.println("API error on " + exchange.getRequestURI() + ": " + e.getMessage());
+            send(exchange, 500, Json.error("Internal error"));
+        }
+    }
+
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, Json.error("Method not allowed"));
+                return;
+            }
+            String query = queryParams(exchange).getOrDefault("q", "");
+            String body = dbManager.readData(() -> Json.searchResult(globalSearch.search(query,
+                GlobalSearchService.DEFAULT_GROUP_LIMIT, GlobalSearchService.DEFAULT_BUDGET_MILLIS)));
+            send(exchange, 200, body);
+        } catch (RuntimeException e) {
+            System.err.println("API error on " + exchange.getRequestURI() + ": " + e.getMessage());
+            send(exchange, 500, Json.error("Internal error"));
+        }
+    }
+
+    private void handleNotifications(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = pathSegments(exchange, "/api/notifications");
+            if (!"GET".equals(exchange.getRequestMethod()) || path.length != 1 || !"metrics".equals(path[0])) {
+                send(exchange, 404, Json.error("Unknown resource"));
+                return;
+            }
+            if (notificationDispatcher == null) {
+                send(exchange, 503, Json.error("Notifications are not enabled on this server"));
+                return;
+            }
+            send(exchange, 200, Json.notificationMetrics(notificationDispatcher.getMetrics()));
+        } catch (RuntimeException e) {
+            System.err.println("API error on " + exchange.getRequestURI() + ": " + e.getMessage());
+            send(exchange, 500, Json.error("Internal error"));
+        }
+    }
+
+    private void handleMembers(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = pathSegments(exchange, "/api/members");
+            if (!"GET".equals(exchange.getRequestMethod()) || path.length != 2 || !"loans".equals(path[1])) {
+                send(exchange, 404, Json.error("Unknown resource"));
+                return;
+            }
+            int memberId = parseId(path[0]);
+            Response response = dbManager.readData(() -> {
+                Member member = dbManager.findMemberById(memberId);
+                return member != null
+                    ? new Response(200, Json.loanList(dbManager.getMemberLoans(member)))
+                    : new Response(404, Json.error("Member not found: " + memberId));
+            });
+            send(exchange, response.status(), response.body());
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, Json.error(e.getMessage()));
+        } catch (RuntimeException e) {
+            System.err.println("API error on " + exchange.getRequestURI() + ": " + e.getMessage());
+            send(exchange, 500, Json.error("Internal error"));
+        }
+    }
+
+    private void handleLoans(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, Json.error("Method not allowed"));
+                return;
+            }
+            String[] path = pathSegments(exchange, "/api/loans");
+            if (path.length == 0) {
+                Map<String, String> params = queryParams(exchange);
+                params.putAll(formParams(exchange));
+                checkout(exchange, parseId(params.get("memberId")), parseId(params.get("mediaId")));
+            } else if (path.length == 2 && "return".equals(path[1])) {
+                returnLoan(exchange, parseId(path[0]));
+            } else {
+                send(exchange, 404, Json.error("Unknown resource"));
+            }
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, Json.error(e.getMessage()));
+        } catch (RuntimeException e) {
+            System.err.println("API error on " + exchange.getRequestURI() + ": " + e.getMessage());
+            send(exchange, 500, Json.error("Internal error"));
+        }
+    }
+
+    private void checkout(HttpExchange exchange, int memberId, int mediaId) throws IOException {
+        Response response = dbManager.writeData(() -> {
+            Member member = dbManager.findMemberById(memberId);
+            Media media = dbManager.findMediaById(mediaId);
+            if (member == null) {
+                return new Response(404, Json.error("Member not found: " + memberId));
+            }
+            if (media == null) {
+                return new Response(404, Json.error("Media not found: " + mediaId));
+            }
+            EligibilityEngine eligibility = dbManager.getEligibility();
+            EligibilityEngine.Reason reason = eligibility.check(member, media);
+            if (reason != EligibilityEngine.Reason.OK) {
+                return new Response(409, Json.error(eligibility.describe(reason)));
+            }
+
+            Loan loan = new Loan();
+            loan.setMember(member);
+            loan.setMedia(media);
+            loan.setLoanDate(LibraryClock.today());
+            dbManager.addLoan(loan);
+            if (loan.getId() == 0) {
+                return new Response(500, Json.error("Checkout failed"));
+            }
+            return new Response(201, Json.loan(loan));
+        });
+        send(exchange, response.status(), response.body());
+    }
+
+    private void returnLoan(HttpExchange exchange, int loanId) throws IOException {
+        Response response = dbManager.writeData(() -> {
+            Loan loan = dbManager.findLoanById(loanId);
+            if (loan == null) {
+                return new Response(404, Json.error("Loan not found: " + loanId));
+            }
+            if (!"Active".equals(loan.getStatus())) {
+                return new Response(409, Json.error("Only active loans can be returned"));
+            }
+
+            // The desk's return: an overdue loan is fined unless the fine run already charged it
+            if (dbManager.returnLoan(loan).returned().isEmpty()) {
+                return new Response(409, Json.error("Loan was changed by another workstation, please retry"));
+            }
+            return new Response(200, Json.loan(loan));
+        });
+        send(exchange, response.status(), response.body());
+    }
+
+    private static String[] pathSegments(HttpExchange exchange, String context) {
+        String rest = exchange.getRequestURI().getPath().substring(context.length());
+        rest = rest.replaceAll("^/+|/+$", "");
+        return rest.isEmpty() ? new String[0] : rest.split("/+");
+    }
+
+    private static int parseId(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing id");
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid id: " + value);
+        }
+    }
+
+    private static Map<String, String> queryParams(HttpExchange exchange) {
+        return parseParams(exchange.getRequestURI().getRawQuery());
+    }
+
+    private static Map<String, String> formParams(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            return parseParams(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Map<String, String> parseParams(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
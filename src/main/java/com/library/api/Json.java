@@ -0,0 +1,233 @@
+package com.library.api;
+
+import com.library.model.Loan;
+import com.library.model.Media;
+import com.library.service.FinePolicyEngine;
+import com.library.service.GlobalSearchService;
+import com.library.service.NotificationDispatcher;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Minimal JSON writer for the headless API. Only covers the model types the
+ * endpoints expose, so no JSON library is needed on the server classpath.
+ */
+public final class Json {
+    private final StringBuilder out = new StringBuilder(256);
+    private boolean needsComma;
+
+    private Json() {}
+
+    public static String media(Media media) {
+        Json json = new Json();
+        json.writeMedia(media);
+        return json.toString();
+    }
+
+    public static String mediaList(List<Media> media) {
+        Json json = new Json();
+        json.writeArray(media, Json::writeMedia);
+        return json.toString();
+    }
+
+    public static String loan(Loan loan) {
+        Json json = new Json();
+        json.writeLoan(loan);
+        return json.toString();
+    }
+
+    public static String loanList(List<Loan> loans) {
+        Json json = new Json();
+        json.writeArray(loans, Json::writeLoan);
+        return json.toString();
+    }
+
+    public static String searchResult(GlobalSearchService.Result result) {
+        Json json = new Json();
+        json.beginObject();
+        json.field("query", result.query());
+        json.field("elapsedMillis", result.elapsedMillis());
+        json.name("timedOut");
+        json.out.append('[');
+        boolean first = true;
+        for (GlobalSearchService.Group group : result.timedOut()) {
+            if (!first) json.out.append(',');
+            json.appendString(group.name().toLowerCase(java.util.Locale.ROOT));
+            first = false;
+        }
+        json.out.append(']');
+        json.name("groups");
+        json.writeArray(List.copyOf(result.groups().entrySet()), Json::writeSearchGroup);
+        json.endObject();
+        return json.toString();
+    }
+
+    public static String notificationMetrics(NotificationDispatcher.Metrics metrics) {
+        Json json = new Json();
+        json.beginObject();
+        json.field("sent", metrics.sent());
+        json.field("retried", metrics.retried());
+        json.field("failed", metrics.failed());
+        json.field("cancelled", metrics.cancelled());
+        json.name("outbox");
+        json.beginObject();
+        for (Map.Entry<String, Integer> status : metrics.outbox().entrySet()) {
+            json.field(status.getKey().toLowerCase(java.util.Locale.ROOT), status.getValue());
+        }
+        json.endObject();
+        json.field("lastRunMessages", metrics.lastRunMessages());
+        json.field("lastRunMillis", metrics.lastRunMillis());
+        json.field("lastRunPerSecond", metrics.lastRunPerSecond());
+        json.field("p50LatencyMillis", metrics.p50LatencyMillis());
+        json.field("p95LatencyMillis", metrics.p95LatencyMillis());
+        json.field("p99LatencyMillis", metrics.p99LatencyMillis());
+        json.endObject();
+        return json.toString();
+    }
+
+    public static String error(String message) {
+        Json json = new Json();
+        json.beginObject();
+        json.field("error", message);
+        json.endObject();
+        return json.toString();
+    }
+
+    private void writeMedia(Media media) {
+        beginObject();
+        field("id", media.getId());
+        field("title", media.getTitle());
+        field("isbn", media.getIsbn());
+        field("author", media.getAuthorName());
+        field("type", media.getType());
+        field("category", media.getCategoryName());
+        field("publisher", media.getPublisher());
+        field("publishYear", media.getPublishYear());
+        field("language", media.getLanguage());
+        field("location", media.getLocation());
+        field("totalCopies", media.getTotalCopies());
+        field("availableCopies", media.getAvailableCopies());
+        field("available", media.isAvailable());
+        endObject();
+    }
+
+    private void writeLoan(Loan loan) {
+        beginObject();
+        field("id", loan.getId());
+        field("memberId", loan.getMember() != null ? loan.getMember().getId() : 0);
+        field("memberName", loan.getMemberName());
+        field("mediaId", loan.getMedia() != null ? loan.getMedia().getId() : 0);
+        field("mediaTitle", loan.getMediaTitle());
+        field("loanDate", loan.getLoanDate());
+        field("dueDate", loan.getDueDate());
+        field("returnDate", loan.getReturnDate());
+        field("status", loan.getStatus());
+        field("renewalCount", loan.getRenewalCount());
+        field("overdue", loan.isOverdue());
+        field("daysOverdue", loan.getDaysOverdue());
+        field("fine", FinePolicyEngine.getInstance().calculateFine(loan));
+        endObject();
+    }
+
+    private void writeSearchGroup(Map.Entry<GlobalSearchService.Group, List<GlobalSearchService.Hit>> group) {
+        beginObject();
+        field("group", group.getKey().name().toLowerCase(java.util.Locale.ROOT));
+        name("hits");
+        writeArray(group.getValue(), Json::writeSearchHit);
+        needsComma = true;
+        endObject();
+    }
+
+    private void writeSearchHit(GlobalSearchService.Hit hit) {
+        beginObject();
+        field("id", hit.id());
+        field("title", hit.title());
+        field("detail", hit.detail());
+        field("score", hit.score());
+        endObject();
+    }
+
+    private <T> void writeArray(List<T> items, BiConsumer<Json, T> writer) {
+        out.append('[');
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) out.append(',');
+            needsComma = false;
+            writer.accept(this, items.get(i));
+        }
+        out.append(']');
+    }
+
+    private void beginObject() {
+        out.append('{');
+        needsComma = false;
+    }
+
+    private void endObject() {
+        out.append('}');
+        needsComma = true;
+    }
+
+    private void name(String name) {
+        if (needsComma) out.append(',');
+        out.append('"').append(name).append("\":");
+        needsComma = true;
+    }
+
+    private void field(String name, String value) {
+        name(name);
+        if (value == null) {
+            out.append("null");
+        } else {
+            appendString(value);
+        }
+    }
+
+    private void field(String name, LocalDate value) {
+        field(name, value != null ? value.toString() : null);
+    }
+
+    private void field(String name, long value) {
+        name(name);
+        out.append(value);
+    }
+
+    private void field(String name, double value) {
+        name(name);
+        out.append(String.format(java.util.Locale.ROOT, "%.2f", value));
+    }
+
+    private void field(String name, boolean value) {
+        name(name);
+        out.append(value);
+    }
+
+    private void appendString(String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
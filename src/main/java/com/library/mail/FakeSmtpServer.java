@@ -0,0 +1,186 @@
+package com.library.mail;
+
+import com.library.util.VirtualThreads;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local SMTP sink for development and tests: accepts every message on a
+ * loopback port and keeps the most recent ones in memory instead of
+ * delivering them. {@link #failNextRecipients(int)} makes it answer with a
+ * temporary error, to exercise the dispatcher's retries.
+ */
+public class FakeSmtpServer {
+    public record ReceivedMail(String from, List<String> recipients, String data) {}
+
+    private static final int KEEP_MESSAGES = 1000;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final Deque<ReceivedMail> received = new ArrayDeque<>();
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicInteger failRecipients = new AtomicInteger();
+    private volatile boolean running;
+
+    // Port 0 picks a free port, see getPort()
+    public FakeSmtpServer(int port) throws IOException {
+        this.serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        this.connections = VirtualThreads.newPerTaskExecutor(16);
+    }
+
+    public void start() {
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "fake-smtp");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("Failed to stop fake SMTP server: " + e.getMessage());
+        }
+        connections.shutdownNow();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    public synchronized List<ReceivedMail> getMessages() {
+        return new ArrayList<>(received);
+    }
+
+    public void failNextRecipients(int count) {
+        failRecipients.set(count);
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.submit(() -> handle(socket));
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Fake SMTP server accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            reply(out, "220 localhost fake SMTP ready");
+
+            String from = null;
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String verb = line.length() >= 4 ? line.substring(0, 4).toUpperCase(Locale.ROOT) : line.toUpperCase(Locale.ROOT);
+                switch (verb) {
+                    case "EHLO", "HELO" -> reply(out, "250 localhost");
+                    case "MAIL" -> {
+                        from = addressOf(line);
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "RCPT" -> {
+                        if (failRecipients.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                            reply(out, "451 Temporary failure, try again later");
+                        } else {
+                            recipients.add(addressOf(line));
+                            reply(out, "250 OK");
+                        }
+                    }
+                    case "DATA" -> {
+                        if (recipients.isEmpty()) {
+                            reply(out, "503 No valid recipients");
+                            break;
+                        }
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        String data = readData(in);
+                        if (data == null) {
+                            return;
+                        }
+                        store(new ReceivedMail(from, List.copyOf(recipients), data));
+                        recipients.clear();
+                        reply(out, "250 OK queued");
+                    }
+                    case "RSET" -> {
+                        from = null;
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "NOOP" -> reply(out, "250 OK");
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    private static String readData(BufferedReader in) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.equals(".")) {
+                return data.toString();
+            }
+            data.append(line.startsWith("..") ? line.substring(1) : line).append('\n');
+        }
+        return null;
+    }
+
+    private synchronized void store(ReceivedMail mail) {
+        received.addLast(mail);
+        if (received.size() > KEEP_MESSAGES) {
+            received.removeFirst();
+        }
+        receivedCount.incrementAndGet();
+    }
+
+    private static String addressOf(String line) {
+        int start = line.indexOf('<');
+        int end = line.indexOf('>', start + 1);
+        return start >= 0 && end > start ? line.substring(start + 1, end) : line.substring(line.indexOf(':') + 1).trim();
+    }
+
+    private static void reply(Writer out, String line) throws IOException {
+        out.write(line);
+        out.write("\r\n");
+        out.flush();
+    }
+}
@@ -0,0 +1,7 @@
+package com.library.mail;
+
+/**
+ * A plain-text mail to one recipient. The id is the outbox row the message
+ * came from, so delivery results can be matched back to it.
+ */
+public record MailMessage(long id, String to, String subject, String body) {}
@@ -0,0 +1,186 @@
+package com.library.mail;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Minimal SMTP client for plain-text notices. A batch is delivered over a
+ * single session (one connect and greeting for many messages); a rejected
+ * message is reset and skipped, so it does not take the rest of the batch
+ * down with it. No mail library is needed on the classpath.
+ */
+public class SmtpMailer {
+    // permanent: the server rejected the message for good (5xx), retrying will not help
+    public record Delivery(long id, boolean delivered, boolean permanent, String error, long latencyNanos) {}
+
+    private static final class ReplyException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final int code;
+
+        ReplyException(int code, String reply) {
+            super(reply);
+            this.code = code;
+        }
+
+        boolean isPermanent() {
+            return code >= 500;
+        }
+    }
+
+    private final String host;
+    private final int port;
+    private final String from;
+    private final int timeoutMillis;
+
+    public SmtpMailer(String host, int port, String from, int timeoutMillis) {
+        this.host = host;
+        this.port = port;
+        this.from = from;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Delivers the messages in order and returns one result per message. If the
+     * connection breaks, the messages not yet accepted come back as retryable
+     * failures.
+     */
+    public List<Delivery> sendBatch(List<MailMessage> messages) {
+        List<Delivery> results = new ArrayList<>(messages.size());
+        if (messages.isEmpty()) {
+            return results;
+        }
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+
+            expect(in, 220);
+            try {
+                command(out, in, "EHLO library", 250);
+            } catch (ReplyException e) {
+                command(out, in, "HELO library", 250);
+            }
+
+            for (MailMessage message : messages) {
+                if (!isValidAddress(message.to())) {
+                    // A line break would let the address inject further SMTP commands or headers
+                    results.add(new Delivery(message.id(), false, true, "Invalid recipient address", 0));
+                    continue;
+                }
+                long start = System.nanoTime();
+                try {
+                    send(out, in, message);
+                    results.add(new Delivery(message.id(), true, false, null, System.nanoTime() - start));
+                } catch (ReplyException e) {
+                    results.add(new Delivery(message.id(), false, e.isPermanent(), e.getMessage(), System.nanoTime() - start));
+                    command(out, in, "RSET", 250);
+                }
+            }
+
+            try {
+                command(out, in, "QUIT", 221);
+            } catch (ReplyException | IOException e) {
+                // Everything is delivered already
+            }
+        } catch (IOException | ReplyException e) {
+            String error = "SMTP " + host + ":" + port + ": " + e.getMessage();
+            for (int i = results.size(); i < messages.size(); i++) {
+                results.add(new Delivery(messages.get(i).id(), false, false, error, 0));
+            }
+        }
+        return results;
+    }
+
+    private void send(Writer out, BufferedReader in, MailMessage message) throws IOException, ReplyException {
+        command(out, in, "MAIL FROM:<" + from + ">", 250);
+        command(out, in, "RCPT TO:<" + message.to() + ">", 250);
+        command(out, in, "DATA", 354);
+
+        StringBuilder data = new StringBuilder(message.body().length() + 256);
+        data.append("From: ").append(from).append("\r\n");
+        data.append("To: ").append(message.to()).append("\r\n");
+        data.append("Subject: ").append(encodeHeader(singleLine(message.subject()))).append("\r\n");
+        data.append("Date: ").append(DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now())).append("\r\n");
+        data.append("Message-ID: <notice-").append(message.id()).append('@').append(domainOf(from)).append(">\r\n");
+        data.append("MIME-Version: 1.0\r\n");
+        data.append("Content-Type: text/plain; charset=UTF-8\r\n");
+        data.append("Content-Transfer-Encoding: 8bit\r\n\r\n");
+        for (String line : message.body().split("\r?\n", -1)) {
+            // Dot-stuffing, so a line with a single "." does not end the message early
+            if (line.startsWith(".")) {
+                data.append('.');
+            }
+            data.append(line).append("\r\n");
+        }
+        data.append(".\r\n");
+        out.write(data.toString());
+        out.flush();
+        expect(in, 250);
+    }
+
+    private static void command(Writer out, BufferedReader in, String line, int expected) throws IOException, ReplyException {
+        out.write(line);
+        out.write("\r\n");
+        out.flush();
+        expect(in, expected);
+    }
+
+    // Reads a (possibly multi-line) reply and fails unless it has the expected code
+    private static void expect(BufferedReader in, int expected) throws IOException, ReplyException {
+        String line;
+        do {
+            line = in.readLine();
+            if (line == null) {
+                throw new IOException("Connection closed by server");
+            }
+        } while (line.length() > 3 && line.charAt(3) == '-');
+
+        int code;
+        try {
+            code = Integer.parseInt(line.substring(0, Math.min(3, line.length())));
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed reply: " + line);
+        }
+        if (code != expected) {
+            throw new ReplyException(code, line);
+        }
+    }
+
+    private static boolean isValidAddress(String address) {
+        return address != null && !address.isBlank() && address.indexOf('\r') < 0 && address.indexOf('\n') < 0
+            && address.indexOf('<') < 0 && address.indexOf('>') < 0;
+    }
+
+    // Header values must stay on one line; a line break in the subject would start a new header
+    private static String singleLine(String value) {
+        return value.replaceAll("[\r\n]+", " ");
+    }
+
+    private static String encodeHeader(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0x7e) {
+                return "=?UTF-8?B?" + Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8)) + "?=";
+            }
+        }
+        return value;
+    }
+
+    private static String domainOf(String address) {
+        int at = address.indexOf('@');
+        return at >= 0 ? address.substring(at + 1) : "library";
+    }
+}
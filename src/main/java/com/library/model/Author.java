@@ -1,16 +1,28 @@
 package com.library.model;
 
+import com.library.util.Collation;
+import javafx.beans.InvalidationListener;
 import javafx.beans.property.*;
 
 import java.util.Objects;
 
 public class Author {
     private final IntegerProperty id = new SimpleIntegerProperty();
+    private final IntegerProperty version = new SimpleIntegerProperty(0);
     private final StringProperty firstName = new SimpleStringProperty();
     private final StringProperty lastName = new SimpleStringProperty();
     private final StringProperty biography = new SimpleStringProperty();
     private final StringProperty nationality = new SimpleStringProperty();
 
+    // German collation key of the full name, cached until the name changes
+    private Collation.SortKey nameSortKey;
+
+    {
+        InvalidationListener invalidateSortKey = observable -> nameSortKey = null;
+        firstName.addListener(invalidateSortKey);
+        lastName.addListener(invalidateSortKey);
+    }
+
     public Author() {}
 
     public Author(int id, String firstName, String lastName, String biography, String nationality) {
@@ -26,6 +38,11 @@ public class Author {
     public int getId() { return id.get(); }
     public void setId(int id) { this.id.set(id); }
 
+    // Version Property (optimistic locking)
+    public IntegerProperty versionProperty() { return version; }
+    public int getVersion() { return version.get(); }
+    public void setVersion(int version) { this.version.set(version); }
+
     // First Name Property
     public StringProperty firstNameProperty() { return firstName; }
     public String getFirstName() { return firstName.get(); }
@@ -43,6 +60,13 @@ public class Author {
         return (firstName + " " + lastName).trim();
     }
 
+    public Collation.SortKey getNameSortKey() {
+        if (nameSortKey == null) {
+            nameSortKey = Collation.sortKey(getFullName());
+        }
+        return nameSortKey;
+    }
+
     // Biography Property
     public StringProperty biographyProperty() { return biography; }
     public String getBiography() { return biography.get(); }
@@ -6,6 +6,7 @@ import java.util.Objects;
 
 public class Category {
     private final IntegerProperty id = new SimpleIntegerProperty();
+    private final IntegerProperty version = new SimpleIntegerProperty(0);
     private final StringProperty name = new SimpleStringProperty();
     private final StringProperty description = new SimpleStringProperty();
     private final IntegerProperty loanDurationDays = new SimpleIntegerProperty(14);
@@ -24,6 +25,11 @@ public class Category {
     public int getId() { return id.get(); }
     public void setId(int id) { this.id.set(id); }
 
+    // Version Property (optimistic locking)
+    public IntegerProperty versionProperty() { return version; }
+    public int getVersion() { return version.get(); }
+    public void setVersion(int version) { this.version.set(version); }
+
     // Name Property
     public StringProperty nameProperty() { return name; }
     public String getName() { return name.get(); }
@@ -1,5 +1,9 @@
 package com.library.model;
 
+import com.library.util.Collation;
+import com.library.util.LibraryClock;
+import com.library.util.TextNormalizer;
+import javafx.beans.InvalidationListener;
 import javafx.beans.property.*;
 
 import java.time.LocalDate;
@@ -7,6 +11,7 @@ import java.util.Objects;
 
 public class Fine {
     private final IntegerProperty id = new SimpleIntegerProperty();
+    private final IntegerProperty version = new SimpleIntegerProperty(0);
     private final ObjectProperty<Member> member = new SimpleObjectProperty<>();
     private final ObjectProperty<Loan> loan = new SimpleObjectProperty<>();
     private final DoubleProperty amount = new SimpleDoubleProperty();
@@ -16,8 +21,19 @@ public class Fine {
     private final StringProperty status = new SimpleStringProperty("Outstanding");
     private final StringProperty description = new SimpleStringProperty();
 
+    // Search key (lower case, accents folded), cached until one of the searched properties changes
+    private String searchKey;
+    private String memberSearchKey;
+
+    {
+        InvalidationListener invalidateSearchKey = observable -> searchKey = null;
+        id.addListener(invalidateSearchKey);
+        member.addListener(invalidateSearchKey);
+        reason.addListener(invalidateSearchKey);
+    }
+
     public Fine() {
-        this.issueDate.set(LocalDate.now());
+        this.issueDate.set(LibraryClock.today());
     }
 
     public Fine(int id, Member member, Loan loan, double amount, String reason) {
@@ -34,6 +50,11 @@ public class Fine {
     public int getId() { return id.get(); }
     public void setId(int id) { this.id.set(id); }
 
+    // Version Property (optimistic locking)
+    public IntegerProperty versionProperty() { return version; }
+    public int getVersion() { return version.get(); }
+    public void setVersion(int version) { this.version.set(version); }
+
     // Member Property
     public ObjectProperty<Member> memberProperty() { return member; }
     public Member getMember() { return member.get(); }
@@ -88,19 +109,35 @@ public class Fine {
     }
 
     public void markAsPaid() {
-        setPaidDate(LocalDate.now());
+        setPaidDate(LibraryClock.today());
         setStatus("Paid");
     }
 
     public void waive() {
+        // Paid date first: setting it marks the fine as paid
+        setPaidDate(LibraryClock.today());
         setStatus("Waived");
-        setPaidDate(LocalDate.now());
     }
 
     public String getMemberName() {
         return getMember() != null ? getMember().getFullName() : "Unknown";
     }
 
+    public Collation.SortKey getMemberSortKey() {
+        return getMember() != null ? getMember().getNameSortKey() : Collation.UNKNOWN;
+    }
+
+    // Member name, reason and id for filtering, built once instead of on every keystroke
+    public String getSearchKey() {
+        String memberKey = getMember() != null ? getMember().getSearchKey() : null;
+        // The member hands out a new key string after a rename, so an identity check catches it without allocating
+        if (searchKey == null || memberKey != memberSearchKey) {
+            memberSearchKey = memberKey;
+            searchKey = TextNormalizer.normalize(getMemberName() + "\n" + getReason() + "\n" + getId());
+        }
+        return searchKey;
+    }
+
     public String getLoanInfo() {
         if (getLoan() != null) {
             return getLoan().getMediaTitle() + " (Loan #" + getLoan().getId() + ")";
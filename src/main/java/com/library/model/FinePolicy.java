@@ -0,0 +1,42 @@
+package com.library.model;
+
+import java.util.Locale;
+
+/**
+ * One row of fine_policies. A null category or media type matches any; the
+ * most specific policy wins (category and type, then category, then type,
+ * then the catch-all). A max fine or lost threshold of 0 means none.
+ */
+public record FinePolicy(int id, Integer categoryId, String mediaType, double dailyRate, int graceDays,
+                         double maxFine, int lostAfterDays, double lostItemFee) {
+
+    public boolean isLost(long daysOverdue) {
+        return lostAfterDays > 0 && daysOverdue >= lostAfterDays;
+    }
+
+    public double fineFor(long daysOverdue) {
+        if (isLost(daysOverdue)) {
+            return lostItemFee;
+        }
+        long chargeableDays = daysOverdue - graceDays;
+        if (chargeableDays <= 0) {
+            return 0.0;
+        }
+        double fine = chargeableDays * dailyRate;
+        return maxFine > 0 ? Math.min(fine, maxFine) : fine;
+    }
+
+    public String describe() {
+        StringBuilder text = new StringBuilder(String.format(Locale.ROOT, "€%.2f per day", dailyRate));
+        if (maxFine > 0) {
+            text.append(String.format(Locale.ROOT, " (max €%.2f)", maxFine));
+        }
+        if (graceDays > 0) {
+            text.append(", ").append(graceDays).append(graceDays == 1 ? " grace day" : " grace days");
+        }
+        if (lostAfterDays > 0) {
+            text.append(String.format(Locale.ROOT, ", lost after %d days: €%.2f", lostAfterDays, lostItemFee));
+        }
+        return text.toString();
+    }
+}
@@ -1,5 +1,9 @@
 package com.library.model;
 
+import com.library.util.Collation;
+import com.library.util.LibraryClock;
+import com.library.util.TextNormalizer;
+import javafx.beans.InvalidationListener;
 import javafx.beans.property.*;
 
 import java.time.LocalDate;
@@ -8,6 +12,7 @@ import java.util.Objects;
 
 public class Loan {
     private final IntegerProperty id = new SimpleIntegerProperty();
+    private final IntegerProperty version = new SimpleIntegerProperty(0);
     private final ObjectProperty<Member> member = new SimpleObjectProperty<>();
     private final ObjectProperty<Media> media = new SimpleObjectProperty<>();
     private final ObjectProperty<LocalDate> loanDate = new SimpleObjectProperty<>();
@@ -18,6 +23,18 @@ public class Loan {
     private final IntegerProperty maxRenewals = new SimpleIntegerProperty(2);
     private final StringProperty notes = new SimpleStringProperty();
 
+    // Search key (lower case, accents folded), cached until one of the searched properties changes
+    private String searchKey;
+    private String memberSearchKey;
+    private String mediaSearchKey;
+
+    {
+        InvalidationListener invalidateSearchKey = observable -> searchKey = null;
+        id.addListener(invalidateSearchKey);
+        member.addListener(invalidateSearchKey);
+        media.addListener(invalidateSearchKey);
+    }
+
     public Loan() {}
 
     public Loan(int id, Member member, Media media, LocalDate loanDate) {
@@ -33,6 +50,11 @@ public class Loan {
     public int getId() { return id.get(); }
     public void setId(int id) { this.id.set(id); }
 
+    // Version Property (optimistic locking)
+    public IntegerProperty versionProperty() { return version; }
+    public int getVersion() { return version.get(); }
+    public void setVersion(int version) { this.version.set(version); }
+
     // Member Property
     public ObjectProperty<Member> memberProperty() { return member; }
     public Member getMember() { return member.get(); }
@@ -90,12 +112,12 @@ public class Loan {
     public void setNotes(String notes) { this.notes.set(notes); }
 
     public boolean isOverdue() {
-        return "Active".equals(getStatus()) && getDueDate() != null && LocalDate.now().isAfter(getDueDate());
+        return "Active".equals(getStatus()) && getDueDate() != null && LibraryClock.today().isAfter(getDueDate());
     }
 
     public long getDaysOverdue() {
         if (!isOverdue()) return 0;
-        return ChronoUnit.DAYS.between(getDueDate(), LocalDate.now());
+        return ChronoUnit.DAYS.between(getDueDate(), LibraryClock.today());
     }
 
     public boolean canRenew() {
@@ -112,7 +134,7 @@ public class Loan {
     }
 
     public void returnMedia() {
-        setReturnDate(LocalDate.now());
+        setReturnDate(LibraryClock.today());
         setStatus("Returned");
     }
 
@@ -130,14 +152,31 @@ public class Loan {
         return getMedia() != null ? getMedia().getTitle() : "Unknown";
     }
 
-    public double calculateFine() {
+    public Collation.SortKey getMemberSortKey() {
+        return getMember() != null ? getMember().getNameSortKey() : Collation.UNKNOWN;
+    }
+
+    public Collation.SortKey getMediaSortKey() {
+        return getMedia() != null ? getMedia().getTitleSortKey() : Collation.UNKNOWN;
+    }
+
+    // Member name, media title and id for filtering, built once instead of on every keystroke
+    public String getSearchKey() {
+        String memberKey = getMember() != null ? getMember().getSearchKey() : null;
+        String mediaKey = getMedia() != null ? getMedia().getSearchKey() : null;
+        // Member and media hand out a new key string after a rename, so an identity check catches it without allocating
+        if (searchKey == null || memberKey != memberSearchKey || mediaKey != mediaSearchKey) {
+            memberSearchKey = memberKey;
+            mediaSearchKey = mediaKey;
+            searchKey = TextNormalizer.normalize(getMemberName() + "\n" + getMediaTitle() + "\n" + getId());
+        }
+        return searchKey;
+    }
+
+    // The policy (rate, grace days, cap) is resolved by the service layer, see FinePolicyEngine.calculateFine
+    public double calculateFine(FinePolicy policy) {
         if (!isOverdue()) return 0.0;
-        
-        long daysOverdue = getDaysOverdue();
-        double finePerDay = 0.50;
-        double maxFine = 10.0;
-        
-        return Math.min(daysOverdue * finePerDay, maxFine);
+        return policy.fineFor(getDaysOverdue());
     }
 
     @Override
@@ -1,11 +1,15 @@
 package com.library.model;
 
+import com.library.util.Collation;
+import com.library.util.TextNormalizer;
+import javafx.beans.InvalidationListener;
 import javafx.beans.property.*;
 
 import java.util.Objects;
 
 public class Media {
     private final IntegerProperty id = new SimpleIntegerProperty();
+    private final IntegerProperty version = new SimpleIntegerProperty(0);
     private final StringProperty title = new SimpleStringProperty();
     private final StringProperty isbn = new SimpleStringProperty();
     private final IntegerProperty publishYear = new SimpleIntegerProperty();
@@ -19,6 +23,20 @@ public class Media {
     private final StringProperty description = new SimpleStringProperty();
     private final StringProperty language = new SimpleStringProperty("German");
 
+    // Search key (lower case, accents folded), cached until one of the searched properties changes
+    private String searchKey;
+    // German collation key of the title for sorting tables
+    private Collation.SortKey titleSortKey;
+
+    {
+        InvalidationListener invalidateSearchKey = observable -> searchKey = null;
+        id.addListener(invalidateSearchKey);
+        title.addListener(invalidateSearchKey);
+        isbn.addListener(invalidateSearchKey);
+        author.addListener(invalidateSearchKey);
+        title.addListener(observable -> titleSortKey = null);
+    }
+
     public Media() {}
 
     public Media(int id, String title, String isbn, int publishYear, String publisher, String type, 
@@ -41,6 +59,11 @@ public class Media {
     public int getId() { return id.get(); }
     public void setId(int id) { this.id.set(id); }
 
+    // Version Property (optimistic locking)
+    public IntegerProperty versionProperty() { return version; }
+    public int getVersion() { return version.get(); }
+    public void setVersion(int version) { this.version.set(version); }
+
     // Title Property
     public StringProperty titleProperty() { return title; }
     public String getTitle() { return title.get(); }
@@ -126,6 +149,26 @@ public class Media {
         return getAuthor() != null ? getAuthor().getFullName() : "Unknown";
     }
 
+    // Title, author, ISBN and id for filtering, built once instead of on every keystroke
+    public String getSearchKey() {
+        if (searchKey == null) {
+            searchKey = TextNormalizer.normalize(getTitle() + "\n" + getAuthorName() + "\n" + getIsbn() + "\n" + getId());
+        }
+        return searchKey;
+    }
+
+    public Collation.SortKey getTitleSortKey() {
+        if (titleSortKey == null) {
+            titleSortKey = Collation.sortKey(getTitle());
+        }
+        return titleSortKey;
+    }
+
+    // Kept on the Author, so renaming an author re-sorts all of their media
+    public Collation.SortKey getAuthorSortKey() {
+        return getAuthor() != null ? getAuthor().getNameSortKey() : Collation.UNKNOWN;
+    }
+
     public String getCategoryName() {
         return getCategory() != null ? getCategory().getName() : "Uncategorized";
     }
@@ -1,5 +1,9 @@
 package com.library.model;
 
+import com.library.util.Collation;
+import com.library.util.LibraryClock;
+import com.library.util.TextNormalizer;
+import javafx.beans.InvalidationListener;
 import javafx.beans.property.*;
 
 import java.time.LocalDate;
@@ -7,6 +11,7 @@ import java.util.Objects;
 
 public class Member {
     private final IntegerProperty id = new SimpleIntegerProperty();
+    private final IntegerProperty version = new SimpleIntegerProperty(0);
     private final StringProperty firstName = new SimpleStringProperty();
     private final StringProperty lastName = new SimpleStringProperty();
     private final StringProperty email = new SimpleStringProperty();
@@ -18,8 +23,24 @@ public class Member {
     private final IntegerProperty currentLoans = new SimpleIntegerProperty(0);
     private final ObjectProperty<LocalDate> memberSince = new SimpleObjectProperty<>();
 
+    // Search key (lower case, accents folded), cached until one of the searched properties changes
+    private String searchKey;
+    // German collation key of the full name for sorting tables, cached the same way
+    private Collation.SortKey nameSortKey;
+
+    {
+        InvalidationListener invalidateSearchKey = observable -> searchKey = null;
+        id.addListener(invalidateSearchKey);
+        firstName.addListener(invalidateSearchKey);
+        lastName.addListener(invalidateSearchKey);
+        email.addListener(invalidateSearchKey);
+        InvalidationListener invalidateSortKey = observable -> nameSortKey = null;
+        firstName.addListener(invalidateSortKey);
+        lastName.addListener(invalidateSortKey);
+    }
+
     public Member() {
-        this.memberSince.set(LocalDate.now());
+        this.memberSince.set(LibraryClock.today());
     }
 
     public Member(int id, String firstName, String lastName, String email, String phone, String address, LocalDate birthDate) {
@@ -38,6 +59,11 @@ public class Member {
     public int getId() { return id.get(); }
     public void setId(int id) { this.id.set(id); }
 
+    // Version Property (optimistic locking)
+    public IntegerProperty versionProperty() { return version; }
+    public int getVersion() { return version.get(); }
+    public void setVersion(int version) { this.version.set(version); }
+
     // First Name Property
     public StringProperty firstNameProperty() { return firstName; }
     public String getFirstName() { return firstName.get(); }
@@ -55,6 +81,21 @@ public class Member {
         return (firstName + " " + lastName).trim();
     }
 
+    // Name, email and id for filtering, built once instead of on every keystroke
+    public String getSearchKey() {
+        if (searchKey == null) {
+            searchKey = TextNormalizer.normalize(getFullName() + "\n" + getEmail() + "\n" + getId());
+        }
+        return searchKey;
+    }
+
+    public Collation.SortKey getNameSortKey() {
+        if (nameSortKey == null) {
+            nameSortKey = Collation.sortKey(getFullName());
+        }
+        return nameSortKey;
+    }
+
     // Email Property
     public StringProperty emailProperty() { return email; }
     public String getEmail() { return email.get(); }
@@ -99,10 +140,6 @@ public class Member {
         return "Active".equals(getStatus());
     }
 
-    public boolean canBorrow() {
-        return isActive() && getCurrentLoans() < getMaxLoans();
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
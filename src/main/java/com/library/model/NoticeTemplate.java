@@ -0,0 +1,7 @@
+package com.library.model;
+
+/**
+ * One row of notice_templates. Subject and body are plain text with
+ * placeholders such as {{member_name}} or {{fine}}; see CompiledTemplate.
+ */
+public record NoticeTemplate(int id, String name, String subject, String body) {}
@@ -1,5 +1,6 @@
 package com.library.model;
 
+import com.library.util.LibraryClock;
 import javafx.beans.property.*;
 
 import java.time.LocalDate;
@@ -7,6 +8,7 @@ import java.util.Objects;
 
 public class Staff {
     private final IntegerProperty id = new SimpleIntegerProperty();
+    private final IntegerProperty version = new SimpleIntegerProperty(0);
     private final StringProperty firstName = new SimpleStringProperty();
     private final StringProperty lastName = new SimpleStringProperty();
     private final StringProperty email = new SimpleStringProperty();
@@ -20,7 +22,7 @@ public class Staff {
     private final StringProperty role = new SimpleStringProperty("Librarian");
 
     public Staff() {
-        this.hireDate.set(LocalDate.now());
+        this.hireDate.set(LibraryClock.today());
     }
 
     public Staff(int id, String firstName, String lastName, String email, String phone, 
@@ -42,6 +44,11 @@ public class Staff {
     public int getId() { return id.get(); }
     public void setId(int id) { this.id.set(id); }
 
+    // Version Property (optimistic locking)
+    public IntegerProperty versionProperty() { return version; }
+    public int getVersion() { return version.get(); }
+    public void setVersion(int version) { this.version.set(version); }
+
     // First Name Property
     public StringProperty firstNameProperty() { return firstName; }
     public String getFirstName() { return firstName.get(); }
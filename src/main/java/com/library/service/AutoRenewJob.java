@@ -0,0 +1,45 @@
+package com.library.service;
+
+import com.library.util.LibraryClock;
+
+import java.time.LocalDate;
+
+/**
+ * Nightly renewal run: renews every active loan due tomorrow that has renewals
+ * left, unless the member is not active or owes more than the checkout fine
+ * limit, so those items never fall overdue. There are no reservations in the
+ * library yet; once there are, reserved items belong in the same exclusion.
+ */
+public class AutoRenewJob implements BatchJob {
+    public static final String NAME = "auto-renew";
+    private static final int CHUNK_SIZE = 5000;
+    
+    private final DatabaseManager dbManager;
+    
+    public AutoRenewJob(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+    
+    @Override
+    public String getName() {
+        return NAME;
+    }
+    
+    // Checkpoint: "due date renewed|last examined loan id", so a resumed run renews the same day's loans
+    @Override
+    public Chunk processChunk(String checkpoint) {
+        LocalDate dueDate = LibraryClock.today().plusDays(1);
+        int afterLoanId = 0;
+        if (checkpoint != null) {
+            String[] parts = checkpoint.split("\\|");
+            dueDate = LocalDate.parse(parts[0]);
+            afterLoanId = Integer.parseInt(parts[1]);
+        }
+        
+        RenewalBatch batch = dbManager.autoRenewLoans(dueDate, afterLoanId, CHUNK_SIZE);
+        if (batch.complete() || batch.lastLoanId() <= afterLoanId) {
+            return Chunk.done(batch.renewed().size());
+        }
+        return new Chunk(batch.renewed().size(), dueDate + "|" + batch.lastLoanId());
+    }
+}
@@ -0,0 +1,24 @@
+package com.library.service;
+
+/**
+ * Periodic work run by the {@link JobScheduler} in bounded chunks. A run keeps
+ * a checkpoint between chunks, so an interrupted run resumes where it stopped
+ * and a finished chunk is never processed twice.
+ */
+public interface BatchJob {
+    // Result of one chunk; a null checkpoint means the run is complete
+    record Chunk(int processed, String checkpoint) {
+        public static Chunk done(int processed) {
+            return new Chunk(processed, null);
+        }
+
+        public boolean isDone() {
+            return checkpoint == null;
+        }
+    }
+
+    String getName();
+
+    // Runs on the data thread; checkpoint is null for the first chunk of a run
+    Chunk processChunk(String checkpoint);
+}
@@ -0,0 +1,75 @@
+package com.library.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A notice text parsed once into literal segments and typed placeholders, so
+ * rendering is a walk over two arrays instead of a format-string parse per
+ * notice. literals[i] comes before placeholders[i]; the last literal closes
+ * the text.
+ */
+public final class CompiledTemplate {
+    public enum Placeholder {
+        MEMBER_NAME, TITLE, DUE_DATE, DAYS_OVERDUE, DAYS_LEFT, FINE;
+
+        public String token() {
+            return "{{" + name().toLowerCase(Locale.ROOT) + "}}";
+        }
+    }
+
+    private final String[] literals;
+    private final Placeholder[] placeholders;
+    private final int literalLength;
+
+    private CompiledTemplate(String[] literals, Placeholder[] placeholders) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    // Throws IllegalArgumentException for an unknown or unclosed placeholder, so a broken template is caught on load
+    public static CompiledTemplate parse(String text) {
+        List<String> literals = new ArrayList<>();
+        List<Placeholder> placeholders = new ArrayList<>();
+        int pos = 0;
+        int open;
+        while ((open = text.indexOf("{{", pos)) >= 0) {
+            int close = text.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at position " + open);
+            }
+            String name = text.substring(open + 2, close).trim();
+            Placeholder placeholder;
+            try {
+                placeholder = Placeholder.valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown placeholder {{" + name + "}}");
+            }
+            literals.add(text.substring(pos, open));
+            placeholders.add(placeholder);
+            pos = close + 2;
+        }
+        literals.add(text.substring(pos));
+        return new CompiledTemplate(literals.toArray(new String[0]), placeholders.toArray(new Placeholder[0]));
+    }
+
+    // Appends the text with every placeholder filled in by the renderer's bound values
+    void appendTo(StringBuilder out, NoticeTemplates.Renderer values) {
+        for (int i = 0; i < placeholders.length; i++) {
+            out.append(literals[i]);
+            values.append(placeholders[i], out);
+        }
+        out.append(literals[placeholders.length]);
+    }
+
+    // Text length without the placeholder values, for sizing buffers
+    int literalLength() {
+        return literalLength;
+    }
+}
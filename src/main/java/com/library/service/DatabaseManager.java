@@ -1,13 +1,39 @@
 package com.library.service;
 
 import com.library.model.*;
+import com.library.util.Isbn;
+import com.library.util.LibraryClock;
+import com.library.util.Money;
+import com.library.util.TextNormalizer;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import org.h2.tools.Server;
 
 import java.sql.*;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.Properties;
 import java.io.*;
@@ -16,30 +42,72 @@ import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 
 public class DatabaseManager {
+    private static final Pattern LEGACY_INSERT = Pattern.compile("^INSERT INTO (\\w+) VALUES", Pattern.CASE_INSENSITIVE);
+    
     private static DatabaseManager instance;
     private Properties config;
     private String sqlFilePath;
     
     private Connection connection;
     
+    // Multi-workstation mode: "embedded" (default), "host" (serves the database over TCP) or "client"
+    private String mode;
+    private Server tcpServer;
+    private ScheduledExecutorService syncPoller;
+    private long lastSeenChangeSeq;
+    
     // Cache for ObservableList to maintain compatibility with existing UI code
     private final ObservableList<Member> membersCache = FXCollections.observableArrayList();
     private final ObservableList<Media> mediaCache = FXCollections.observableArrayList();
     private final ObservableList<Author> authorsCache = FXCollections.observableArrayList();
     private final ObservableList<Category> categoriesCache = FXCollections.observableArrayList();
+    private final List<FinePolicy> finePolicies = new ArrayList<>();
+    private final List<NoticeTemplate> noticeTemplates = new ArrayList<>();
     private final ObservableList<Loan> loansCache = FXCollections.observableArrayList();
     private final ObservableList<Fine> finesCache = FXCollections.observableArrayList();
     private final ObservableList<Staff> staffCache = FXCollections.observableArrayList();
     
+    // Search indexes, kept in step with the caches
+    private final MediaSearchIndex mediaSearchIndex = new MediaSearchIndex();
+    private final MemberPrefixIndex memberPrefixIndex = new MemberPrefixIndex();
+    private final TrigramIndex mediaFuzzyIndex = new TrigramIndex();
+    private final FacetIndex mediaFacetIndex = new FacetIndex();
+    private final OverdueTracker overdueTracker = new OverdueTracker();
+    private final FineLedger fineLedger = new FineLedger();
+    private final MemberActivityIndex memberActivity = new MemberActivityIndex();
+    private final EligibilityEngine eligibility;
+    private final Map<Integer, Media> mediaById = new HashMap<>();
+    private final Map<Integer, Member> membersById = new HashMap<>();
+    private final Map<Integer, Loan> loansById = new HashMap<>();
+    
+    // Repeated desk searches (popular titles, common surnames) are answered from here
+    private static final int SEARCH_CACHE_SIZE = 500;
+    private final SearchResultCache searchCache = new SearchResultCache(SEARCH_CACHE_SIZE);
+    private static final int FUZZY_SEARCH_LIMIT = 50;
+    // Canonical ISBN-13 -> media, plus the key each media item was indexed under (media are edited in place)
+    private final Map<String, Media> mediaByIsbn = new HashMap<>();
+    private final Map<Integer, String> isbnKeyByMediaId = new HashMap<>();
+    
+    // Guards the caches when they are accessed from threads other than the FX thread (e.g. the headless API server)
+    private final ReentrantReadWriteLock dataLock = new ReentrantReadWriteLock();
+    
     private DatabaseManager() {
         System.out.println("Using H2 Database with SQL file storage");
         loadConfig();
+        eligibility = new EligibilityEngine(this::getMemberStats,
+            Integer.parseInt(getConfig("circulation.max_overdue_loans", "0").trim()),
+            Money.toCents(Double.parseDouble(getConfig("circulation.max_outstanding_fines", "10.00").trim())));
         try {
             // Load H2 JDBC driver
             Class.forName(config.getProperty("database.driver", "org.h2.Driver"));
             
             // Get SQL file path
             sqlFilePath = config.getProperty("database.sql.file", "library_data.sql");
+            mode = config.getProperty("database.mode", "embedded").trim().toLowerCase();
+            
+            if (isHostMode()) {
+                startTcpServer();
+            }
             
             // Connect to H2 in-memory database
             connection = DriverManager.getConnection(
@@ -56,6 +124,10 @@ public class DatabaseManager {
             // Load all data into cache
             loadAllData();
             
+            if (!"embedded".equals(mode)) {
+                startChangePolling();
+            }
+            
             System.out.println("✓ Database initialized with SQL file: " + sqlFilePath);
             
         } catch (ClassNotFoundException | SQLException e) {
@@ -73,6 +145,17 @@ public class DatabaseManager {
         } catch (Exception e) {
             System.err.println("Failed to load database config: " + e.getMessage());
         }
+        // -Ddatabase.*, -Djobs.*, -Dcirculation.* and -Dnotifications.* system properties override the file, e.g. to start a second desk as client
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("database.") || name.startsWith("jobs.") || name.startsWith("circulation.")
+                    || name.startsWith("notifications.")) {
+                config.setProperty(name, System.getProperty(name));
+            }
+        }
+    }
+    
+    public String getConfig(String name, String defaultValue) {
+        return config.getProperty(name, defaultValue);
     }
     
     private void initializeDatabase() {
@@ -80,6 +163,12 @@ public class DatabaseManager {
             // Create schema first
             createSchema();
             
+            // Clients share the host's database, which has already been populated
+            if (isClientMode()) {
+                System.out.println("Connected as client workstation, skipping SQL file import");
+                return;
+            }
+            
             // Load data from SQL file if it exists
             if (Files.exists(Paths.get(sqlFilePath))) {
                 System.out.println("Loading data from SQL file: " + sqlFilePath);
@@ -111,7 +200,7 @@ public class DatabaseManager {
                         stmt.execute(sql);
                     } catch (SQLException e) {
                         // Ignore errors for CREATE TABLE statements (they might already exist)
-                        if (!sql.toUpperCase().startsWith("CREATE")) {
+                        if (!sql.toUpperCase().startsWith("CREATE") && !importLegacyInsert(sql)) {
                             System.err.println("Error executing SQL: " + sql);
                             System.err.println("Error: " + e.getMessage());
                         }
@@ -124,10 +213,44 @@ public class DatabaseManager {
         }
     }
     
+    // Files exported before the version column existed use positional INSERTs without it
+    private boolean importLegacyInsert(String sql) {
+        Matcher matcher = LEGACY_INSERT.matcher(sql);
+        if (!matcher.find()) {
+            return false;
+        }
+        String tableName = matcher.group(1);
+        List<String> columns = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM " + tableName + " WHERE 1 = 0")) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                if (!"version".equalsIgnoreCase(metaData.getColumnName(i))) {
+                    columns.add(metaData.getColumnName(i));
+                }
+            }
+        } catch (SQLException e) {
+            return false;
+        }
+        
+        String rewritten = "INSERT INTO " + tableName + " (" + String.join(", ", columns) + ") VALUES"
+            + sql.substring(matcher.end());
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(rewritten);
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+    
     public void exportToSQLFile() {
         if (!Boolean.parseBoolean(config.getProperty("database.sql.auto_export", "true"))) {
             return;
         }
+        // Only the host (or a standalone desk) owns the SQL file
+        if (isClientMode()) {
+            return;
+        }
         
         try {
             StringBuilder sqlContent = new StringBuilder();
@@ -140,11 +263,17 @@ public class DatabaseManager {
             // Export data
             sqlContent.append(exportTableData("authors"));
             sqlContent.append(exportTableData("categories"));
+            sqlContent.append(exportTableData("fine_policies"));
             sqlContent.append(exportTableData("media"));
             sqlContent.append(exportTableData("members"));
             sqlContent.append(exportTableData("staff"));
             sqlContent.append(exportTableData("loans"));
             sqlContent.append(exportTableData("fines"));
+            sqlContent.append(exportTableData("fine_transactions"));
+            sqlContent.append(exportTableData("job_runs"));
+            sqlContent.append(exportTableData("notice_templates"));
+            sqlContent.append(exportTableData("notification_outbox"));
+            sqlContent.append(exportTableData("loan_reminders"));
             
             Files.writeString(Paths.get(sqlFilePath), sqlContent.toString(), 
                 StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
@@ -165,11 +294,17 @@ public class DatabaseManager {
             ResultSetMetaData metaData = rs.getMetaData();
             int columnCount = metaData.getColumnCount();
             
+            StringBuilder columnList = new StringBuilder();
+            for (int i = 1; i <= columnCount; i++) {
+                if (i > 1) columnList.append(", ");
+                columnList.append(metaData.getColumnName(i).toLowerCase());
+            }
+            
             // Clear existing data
             sql.append("DELETE FROM ").append(tableName).append(";\n");
             
             while (rs.next()) {
-                sql.append("INSERT INTO ").append(tableName).append(" VALUES (");
+                sql.append("INSERT INTO ").append(tableName).append(" (").append(columnList).append(") VALUES (");
                 for (int i = 1; i <= columnCount; i++) {
                     if (i > 1) sql.append(", ");
                     Object value = rs.getObject(i);
@@ -199,14 +334,16 @@ public class DatabaseManager {
                 first_name VARCHAR(50) NOT NULL,
                 last_name VARCHAR(50) NOT NULL,
                 biography TEXT,
-                nationality VARCHAR(50)
+                nationality VARCHAR(50),
+                version INT DEFAULT 0
             );
             
             CREATE TABLE IF NOT EXISTS categories (
                 id INT PRIMARY KEY AUTO_INCREMENT,
                 name VARCHAR(50) NOT NULL UNIQUE,
                 description TEXT,
-                loan_duration_days INT DEFAULT 14
+                loan_duration_days INT DEFAULT 14,
+                version INT DEFAULT 0
             );
             
             CREATE TABLE IF NOT EXISTS media (
@@ -224,7 +361,8 @@ public class DatabaseManager {
                 description TEXT,
                 language VARCHAR(50) DEFAULT 'English',
                 created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                version INT DEFAULT 0
             );
             
             CREATE TABLE IF NOT EXISTS members (
@@ -241,7 +379,8 @@ public class DatabaseManager {
                 member_since DATE DEFAULT CURRENT_DATE,
                 active BOOLEAN DEFAULT TRUE,
                 created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                version INT DEFAULT 0
             );
             
             CREATE TABLE IF NOT EXISTS staff (
@@ -259,7 +398,8 @@ public class DatabaseManager {
                 role VARCHAR(20) DEFAULT 'Librarian',
                 active BOOLEAN DEFAULT TRUE,
                 created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                version INT DEFAULT 0
             );
             
             CREATE TABLE IF NOT EXISTS loans (
@@ -274,7 +414,8 @@ public class DatabaseManager {
                 max_renewals INT DEFAULT 2,
                 notes TEXT,
                 created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                version INT DEFAULT 0
             );
             
             CREATE TABLE IF NOT EXISTS fines (
@@ -288,7 +429,94 @@ public class DatabaseManager {
                 status VARCHAR(20) DEFAULT 'Outstanding',
                 description TEXT,
                 created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                version INT DEFAULT 0
+            );
+            
+            CREATE INDEX IF NOT EXISTS idx_loans_status_due ON loans (status, due_date);
+            
+            CREATE INDEX IF NOT EXISTS idx_fines_loan_status ON fines (loan_id, status);
+            
+            CREATE TABLE IF NOT EXISTS fine_transactions (
+                id INT PRIMARY KEY AUTO_INCREMENT,
+                fine_id INT NOT NULL,
+                member_id INT NOT NULL,
+                type VARCHAR(20) NOT NULL,
+                amount_cents BIGINT NOT NULL,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            );
+            
+            CREATE INDEX IF NOT EXISTS idx_fine_transactions_fine ON fine_transactions (fine_id);
+            
+            CREATE TABLE IF NOT EXISTS fine_policies (
+                id INT PRIMARY KEY AUTO_INCREMENT,
+                category_id INT NULL,
+                media_type VARCHAR(20) NULL,
+                daily_rate DECIMAL(10,2) NOT NULL,
+                grace_days INT DEFAULT 0,
+                max_fine DECIMAL(10,2) DEFAULT 0.00,
+                lost_after_days INT DEFAULT 0,
+                lost_item_fee DECIMAL(10,2) DEFAULT 0.00,
+                version INT DEFAULT 0,
+                FOREIGN KEY (category_id) REFERENCES categories(id),
+                UNIQUE (category_id, media_type)
+            );
+            
+            CREATE TABLE IF NOT EXISTS job_runs (
+                id INT PRIMARY KEY AUTO_INCREMENT,
+                job_name VARCHAR(50) NOT NULL,
+                run_key VARCHAR(50) NOT NULL,
+                status VARCHAR(20) NOT NULL,
+                checkpoint VARCHAR(255),
+                items_processed INT DEFAULT 0,
+                chunks INT DEFAULT 0,
+                owner VARCHAR(100),
+                started_at TIMESTAMP,
+                heartbeat_at TIMESTAMP,
+                finished_at TIMESTAMP,
+                message VARCHAR(255),
+                UNIQUE (job_name, run_key)
+            );
+            
+            CREATE TABLE IF NOT EXISTS notice_templates (
+                id INT PRIMARY KEY AUTO_INCREMENT,
+                name VARCHAR(50) NOT NULL UNIQUE,
+                subject VARCHAR(255) NOT NULL,
+                body TEXT NOT NULL,
+                version INT DEFAULT 0
+            );
+            
+            CREATE TABLE IF NOT EXISTS notification_outbox (
+                id BIGINT PRIMARY KEY AUTO_INCREMENT,
+                member_id INT NOT NULL,
+                loan_id INT NULL,
+                recipient VARCHAR(100) NOT NULL,
+                template VARCHAR(50),
+                subject VARCHAR(255),
+                body TEXT,
+                status VARCHAR(20) NOT NULL,
+                attempts INT DEFAULT 0,
+                next_attempt_at TIMESTAMP,
+                claimed_at TIMESTAMP,
+                last_error VARCHAR(255),
+                created_at TIMESTAMP,
+                sent_at TIMESTAMP
+            );
+            
+            CREATE INDEX IF NOT EXISTS idx_outbox_status_next ON notification_outbox (status, next_attempt_at);
+            CREATE INDEX IF NOT EXISTS idx_outbox_loan ON notification_outbox (loan_id);
+            
+            CREATE TABLE IF NOT EXISTS loan_reminders (
+                loan_id INT NOT NULL,
+                due_date DATE NOT NULL,
+                template VARCHAR(50),
+                reminded_at TIMESTAMP,
+                PRIMARY KEY (loan_id, due_date)
+            );
+            
+            CREATE TABLE IF NOT EXISTS sync_state (
+                id INT PRIMARY KEY,
+                change_seq BIGINT NOT NULL DEFAULT 0
             );
         """;
     }
@@ -309,6 +537,7 @@ public class DatabaseManager {
                 }
             }
         }
+        executeUpdate("MERGE INTO sync_state (id) KEY (id) VALUES (1)");
     }
     
     private void insertSampleData() throws SQLException {
@@ -337,27 +566,170 @@ public class DatabaseManager {
                 "('Jane', 'Smith', 'jane.smith@email.com', '+41 79 234 56 78', 'Beispielweg 12, 3000 Bern', '1990-07-22', 'Active', 5, 1, CURRENT_DATE, TRUE)");
     }
     
-    private void executeUpdate(String sql) throws SQLException {
+    private int executeUpdate(String sql) throws SQLException {
         try (Statement stmt = connection.createStatement()) {
-            stmt.executeUpdate(sql);
+            return stmt.executeUpdate(sql);
         }
     }
     
-    public static DatabaseManager getInstance() {
+    public static synchronized DatabaseManager getInstance() {
         if (instance == null) {
             instance = new DatabaseManager();
         }
         return instance;
     }
     
+    // Multi-workstation support
+    private boolean isHostMode() {
+        return "host".equals(mode);
+    }
+    
+    private boolean isClientMode() {
+        return "client".equals(mode);
+    }
+    
+    private void startTcpServer() throws SQLException {
+        List<String> args = new ArrayList<>(List.of(
+            "-tcpPort", config.getProperty("database.tcp.port", "9092"), "-ifNotExists"));
+        if (Boolean.parseBoolean(config.getProperty("database.tcp.allow_others", "false"))) {
+            args.add("-tcpAllowOthers");
+        }
+        tcpServer = Server.createTcpServer(args.toArray(new String[0])).start();
+        System.out.println("✓ H2 TCP server started for other workstations: " + tcpServer.getURL());
+    }
+    
+    private void startChangePolling() {
+        lastSeenChangeSeq = readChangeSeq();
+        long interval = Long.parseLong(config.getProperty("database.sync.poll_interval_ms", "2000"));
+        syncPoller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-change-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncPoller.scheduleWithFixedDelay(() -> {
+            try {
+                runOnDataThread(this::pollForChanges);
+            } catch (RuntimeException e) {
+                // An exception would cancel the schedule, so keep polling
+                System.err.println("Change polling failed: " + e.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+    
+    private void pollForChanges() {
+        long changeSeq = readChangeSeq();
+        if (changeSeq != lastSeenChangeSeq) {
+            lastSeenChangeSeq = changeSeq;
+            System.out.println("Changes from another workstation detected, reloading data");
+            loadAllData();
+            exportToSQLFile();
+        }
+    }
+    
+    private long readChangeSeq() {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT change_seq FROM sync_state WHERE id = 1")) {
+            return rs.next() ? rs.getLong(1) : lastSeenChangeSeq;
+        } catch (SQLException e) {
+            System.err.println("Failed to read change sequence: " + e.getMessage());
+            return lastSeenChangeSeq;
+        }
+    }
+    
+    // Bumps the shared change counter so the other workstations invalidate their caches
+    private void markChanged() {
+        if ("embedded".equals(mode)) {
+            return;
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("UPDATE sync_state SET change_seq = change_seq + 1 WHERE id = 1");
+        } catch (SQLException e) {
+            System.err.println("Failed to publish change: " + e.getMessage());
+            return;
+        }
+        // If another desk wrote in between, leave the counter behind so the next poll reloads
+        long changeSeq = readChangeSeq();
+        if (changeSeq == lastSeenChangeSeq + 1) {
+            lastSeenChangeSeq = changeSeq;
+        }
+    }
+    
+    // A stale version means another workstation changed the row. The caller gets false and tells the
+    // user; the change poll picks up the other workstation's change. Reloading everything here would
+    // swap the cached objects under the views and dialogs that still hold them
+    private boolean checkVersion(int updatedRows, String entity, int id) {
+        if (updatedRows > 0) {
+            return true;
+        }
+        System.err.println("Update conflict: " + entity + " #" + id + " was changed by another workstation");
+        return false;
+    }
+    
+    private void runOnDataThread(Runnable action) {
+        try {
+            Platform.runLater(action);
+        } catch (IllegalStateException e) {
+            // No FX toolkit (headless server): serialize with the request threads instead
+            writeData(() -> {
+                action.run();
+                return null;
+            });
+        }
+    }
+    
+    // Like runOnDataThread, but waits for the result; for background jobs that must touch the caches
+    public <T> T callOnDataThread(Supplier<T> action) {
+        if (Platform.isFxApplicationThread()) {
+            return action.get();
+        }
+        FutureTask<T> task = new FutureTask<>(action::get);
+        try {
+            Platform.runLater(task);
+        } catch (IllegalStateException e) {
+            return writeData(action);
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the data thread", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+    
+    public <T> T readData(Supplier<T> action) {
+        dataLock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+    
+    public <T> T writeData(Supplier<T> action) {
+        dataLock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+    
     private void loadAllData() {
         loadAuthors();
         loadCategories();
+        loadFinePolicies();
+        loadNoticeTemplates();
         loadMedia();
         loadMembers();
         loadStaff();
         loadLoans();
         loadFines();
+        eligibility.rebuild(membersCache);
     }
     
     // Author operations
@@ -375,6 +747,7 @@ public class DatabaseManager {
                     rs.getString("biography"),
                     rs.getString("nationality")
                 );
+                author.setVersion(rs.getInt("version"));
                 authorsCache.add(author);
             }
         } catch (SQLException e) {
@@ -399,6 +772,7 @@ public class DatabaseManager {
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
                     author.setId(generatedKeys.getInt(1));
+                    markChanged();
                     authorsCache.add(author);
                 }
             }
@@ -407,24 +781,44 @@ public class DatabaseManager {
         }
     }
     
-    public void updateAuthor(Author author) {
-        String sql = "UPDATE authors SET first_name = ?, last_name = ?, biography = ?, nationality = ? WHERE id = ?";
+    public boolean updateAuthor(Author author) {
+        String sql = "UPDATE authors SET first_name = ?, last_name = ?, biography = ?, nationality = ?, version = version + 1 WHERE id = ? AND version = ?";
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, author.getFirstName());
             stmt.setString(2, author.getLastName());
             stmt.setString(3, author.getBiography());
             stmt.setString(4, author.getNationality());
             stmt.setInt(5, author.getId());
+            stmt.setInt(6, author.getVersion());
             
-            stmt.executeUpdate();
+            if (!checkVersion(stmt.executeUpdate(), "author", author.getId())) {
+                return false;
+            }
+            author.setVersion(author.getVersion() + 1);
+            markChanged();
             
             // Update cache
             int index = authorsCache.indexOf(author);
             if (index >= 0) {
                 authorsCache.set(index, author);
             }
+            reindexMediaOfAuthor(author);
+            return true;
         } catch (SQLException e) {
             System.err.println("Failed to update author: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    // Media hold their own Author copy; point them at the updated author so names and search indexes follow
+    private void reindexMediaOfAuthor(Author author) {
+        for (Media media : mediaCache) {
+            if (media.getAuthor() != null && media.getAuthor().getId() == author.getId()) {
+                media.setAuthor(author);
+                invalidateMediaSearches(media);
+                mediaSearchIndex.index(media);
+                mediaFuzzyIndex.index(media);
+            }
         }
     }
     
@@ -433,6 +827,7 @@ public class DatabaseManager {
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, author.getId());
             stmt.executeUpdate();
+            markChanged();
             authorsCache.remove(author);
         } catch (SQLException e) {
             System.err.println("Failed to delete author: " + e.getMessage());
@@ -453,6 +848,7 @@ public class DatabaseManager {
                     rs.getString("description"),
                     rs.getInt("loan_duration_days")
                 );
+                category.setVersion(rs.getInt("version"));
                 categoriesCache.add(category);
             }
         } catch (SQLException e) {
@@ -460,6 +856,92 @@ public class DatabaseManager {
         }
     }
     
+    // Fine policy operations
+    private void loadFinePolicies() {
+        finePolicies.clear();
+        try {
+            boolean empty;
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM fine_policies")) {
+                empty = rs.next() && rs.getInt(1) == 0;
+            }
+            if (empty && !isClientMode()) {
+                // Files from before the policy table: the old flat rate, DVDs, CDs and magazines cost more
+                executeUpdate("INSERT INTO fine_policies (category_id, media_type, daily_rate, grace_days, max_fine) VALUES " +
+                        "(NULL, NULL, 0.50, 0, 10.00), " +
+                        "(NULL, 'DVD', 1.00, 0, 20.00), " +
+                        "(NULL, 'CD', 1.00, 0, 20.00), " +
+                        "(NULL, 'Magazine', 0.75, 0, 15.00)");
+            }
+            
+            String sql = "SELECT * FROM fine_policies ORDER BY id";
+            try (PreparedStatement stmt = connection.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    finePolicies.add(new FinePolicy(
+                        rs.getInt("id"),
+                        rs.getObject("category_id", Integer.class),
+                        rs.getString("media_type"),
+                        rs.getDouble("daily_rate"),
+                        rs.getInt("grace_days"),
+                        rs.getDouble("max_fine"),
+                        rs.getInt("lost_after_days"),
+                        rs.getDouble("lost_item_fee")
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Failed to load fine policies: " + e.getMessage());
+        }
+        FinePolicyEngine.getInstance().load(finePolicies);
+    }
+    
+    public List<FinePolicy> getFinePolicies() {
+        return List.copyOf(finePolicies);
+    }
+    
+    // Notice template operations
+    private void loadNoticeTemplates() {
+        noticeTemplates.clear();
+        try {
+            if (!isClientMode()) {
+                // Files from before the template table get the texts that used to be built into the contact
+                // dialog, older files the templates added since (the due-soon reminder). Edited texts are kept
+                String sql = "INSERT INTO notice_templates (name, subject, body) " +
+                             "SELECT ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM notice_templates WHERE name = ?)";
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    for (NoticeTemplate template : NoticeTemplates.DEFAULTS) {
+                        stmt.setString(1, template.name());
+                        stmt.setString(2, template.subject());
+                        stmt.setString(3, template.body());
+                        stmt.setString(4, template.name());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            }
+            
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT * FROM notice_templates ORDER BY id")) {
+                while (rs.next()) {
+                    noticeTemplates.add(new NoticeTemplate(
+                        rs.getInt("id"),
+                        rs.getString("name"),
+                        rs.getString("subject"),
+                        rs.getString("body")
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Failed to load notice templates: " + e.getMessage());
+        }
+        NoticeTemplates.getInstance().load(noticeTemplates.isEmpty() ? NoticeTemplates.DEFAULTS : noticeTemplates);
+    }
+    
+    public List<NoticeTemplate> getNoticeTemplates() {
+        return List.copyOf(noticeTemplates);
+    }
+    
     public ObservableList<Category> getAllCategories() { 
         return categoriesCache; 
     }
@@ -476,6 +958,7 @@ public class DatabaseManager {
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
                     category.setId(generatedKeys.getInt(1));
+                    markChanged();
                     categoriesCache.add(category);
                 }
             }
@@ -484,22 +967,29 @@ public class DatabaseManager {
         }
     }
     
-    public void updateCategory(Category category) {
-        String sql = "UPDATE categories SET name = ?, description = ?, loan_duration_days = ? WHERE id = ?";
+    public boolean updateCategory(Category category) {
+        String sql = "UPDATE categories SET name = ?, description = ?, loan_duration_days = ?, version = version + 1 WHERE id = ? AND version = ?";
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, category.getName());
             stmt.setString(2, category.getDescription());
             stmt.setInt(3, category.getLoanDurationDays());
             stmt.setInt(4, category.getId());
+            stmt.setInt(5, category.getVersion());
             
-            stmt.executeUpdate();
+            if (!checkVersion(stmt.executeUpdate(), "category", category.getId())) {
+                return false;
+            }
+            category.setVersion(category.getVersion() + 1);
+            markChanged();
             
             int index = categoriesCache.indexOf(category);
             if (index >= 0) {
                 categoriesCache.set(index, category);
             }
+            return true;
         } catch (SQLException e) {
             System.err.println("Failed to update category: " + e.getMessage());
+            return false;
         }
     }
     
@@ -508,6 +998,7 @@ public class DatabaseManager {
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, category.getId());
             stmt.executeUpdate();
+            markChanged();
             categoriesCache.remove(category);
         } catch (SQLException e) {
             System.err.println("Failed to delete category: " + e.getMessage());
@@ -562,12 +1053,22 @@ public class DatabaseManager {
                 media.setAvailableCopies(rs.getInt("available_copies"));
                 media.setDescription(rs.getString("description"));
                 media.setLanguage(rs.getString("language"));
+                media.setVersion(rs.getInt("version"));
                 
                 mediaCache.add(media);
             }
         } catch (SQLException e) {
             System.err.println("Failed to load media: " + e.getMessage());
         }
+        mediaById.clear();
+        for (Media media : mediaCache) {
+            mediaById.put(media.getId(), media);
+        }
+        searchCache.invalidateAll("media");
+        mediaSearchIndex.rebuild(mediaCache);
+        mediaFuzzyIndex.rebuild(mediaCache);
+        mediaFacetIndex.rebuild(mediaCache);
+        rebuildIsbnIndex();
     }
     
     public ObservableList<Media> getAllMedia() { 
@@ -575,6 +1076,11 @@ public class DatabaseManager {
     }
     
     public void addMedia(Media media) {
+        Media duplicate = findDuplicateIsbn(media);
+        if (duplicate != null) {
+            System.err.println("Failed to add media: ISBN " + media.getIsbn() + " already used by media " + duplicate.getId());
+            return;
+        }
         String sql = "INSERT INTO media (title, isbn, publish_year, publisher, type, total_copies, available_copies, location, author_id, category_id, description, language) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, media.getTitle());
@@ -595,7 +1101,14 @@ public class DatabaseManager {
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
                     media.setId(generatedKeys.getInt(1));
+                    markChanged();
                     mediaCache.add(media);
+                    mediaById.put(media.getId(), media);
+                    invalidateMediaSearches(media);
+                    mediaSearchIndex.index(media);
+                    mediaFuzzyIndex.index(media);
+                    mediaFacetIndex.index(media);
+                    indexIsbn(media);
                     exportToSQLFile();
                 }
             }
@@ -604,8 +1117,8 @@ public class DatabaseManager {
         }
     }
     
-    public void updateMedia(Media media) {
-        String sql = "UPDATE media SET title = ?, isbn = ?, publish_year = ?, publisher = ?, type = ?, total_copies = ?, available_copies = ?, location = ?, author_id = ?, category_id = ?, description = ?, language = ? WHERE id = ?";
+    public boolean updateMedia(Media media) {
+        String sql = "UPDATE media SET title = ?, isbn = ?, publish_year = ?, publisher = ?, type = ?, total_copies = ?, available_copies = ?, location = ?, author_id = ?, category_id = ?, description = ?, language = ?, version = version + 1 WHERE id = ? AND version = ?";
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, media.getTitle());
             stmt.setString(2, media.getIsbn());
@@ -620,16 +1133,28 @@ public class DatabaseManager {
             stmt.setString(11, media.getDescription());
             stmt.setString(12, media.getLanguage());
             stmt.setInt(13, media.getId());
+            stmt.setInt(14, media.getVersion());
             
-            stmt.executeUpdate();
+            if (!checkVersion(stmt.executeUpdate(), "media", media.getId())) {
+                return false;
+            }
+            media.setVersion(media.getVersion() + 1);
+            markChanged();
             
             int index = mediaCache.indexOf(media);
             if (index >= 0) {
                 mediaCache.set(index, media);
             }
+            invalidateMediaSearches(media);
+            mediaSearchIndex.index(media);
+            mediaFuzzyIndex.index(media);
+            mediaFacetIndex.index(media);
+            indexIsbn(media);
             exportToSQLFile();
+            return true;
         } catch (SQLException e) {
             System.err.println("Failed to update media: " + e.getMessage());
+            return false;
         }
     }
     
@@ -638,7 +1163,14 @@ public class DatabaseManager {
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, media.getId());
             stmt.executeUpdate();
+            markChanged();
             mediaCache.remove(media);
+            mediaById.remove(media.getId());
+            invalidateMediaSearches(media);
+            mediaSearchIndex.remove(media);
+            mediaFuzzyIndex.remove(media);
+            mediaFacetIndex.remove(media);
+            unindexIsbn(media.getId());
             exportToSQLFile();
         } catch (SQLException e) {
             System.err.println("Failed to delete media: " + e.getMessage());
@@ -646,16 +1178,127 @@ public class DatabaseManager {
     }
     
     public Media findMediaById(int id) {
-        return mediaCache.stream().filter(m -> m.getId() == id).findFirst().orElse(null);
+        return mediaById.get(id);
+    }
+    
+    // Exact, constant-time lookup for scanner input; accepts ISBN-10 or ISBN-13, with or without hyphens
+    public Media findMediaByIsbn(String isbn) {
+        String key = Isbn.canonical(isbn);
+        return key != null ? mediaByIsbn.get(key) : null;
+    }
+    
+    // Another media item with the same ISBN (in any notation), or null
+    public Media findDuplicateIsbn(Media media) {
+        Media existing = findMediaByIsbn(media.getIsbn());
+        return existing != null && existing.getId() != media.getId() ? existing : null;
+    }
+    
+    private void rebuildIsbnIndex() {
+        mediaByIsbn.clear();
+        isbnKeyByMediaId.clear();
+        int duplicates = 0;
+        for (Media media : mediaCache) {
+            String key = Isbn.canonical(media.getIsbn());
+            if (key != null && mediaByIsbn.containsKey(key)) {
+                duplicates++;
+            }
+            indexIsbn(media);
+        }
+        if (duplicates > 0) {
+            System.err.println("Warning: " + duplicates + " media items share an ISBN with another item");
+        }
+    }
+    
+    private void indexIsbn(Media media) {
+        unindexIsbn(media.getId());
+        String key = Isbn.canonical(media.getIsbn());
+        // The first item keeps the key when legacy data contains duplicates
+        if (key != null && !mediaByIsbn.containsKey(key)) {
+            mediaByIsbn.put(key, media);
+            isbnKeyByMediaId.put(media.getId(), key);
+        }
+    }
+    
+    private void unindexIsbn(int mediaId) {
+        String key = isbnKeyByMediaId.remove(mediaId);
+        if (key != null) {
+            mediaByIsbn.remove(key);
+        }
     }
     
+    // Ranked full-text search: every word must match the start of a word in title, author, publisher, description or ISBN
     public List<Media> searchMedia(String searchTerm) {
-        return mediaCache.stream()
-            .filter(m -> m.getTitle().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                        m.getIsbn().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                        m.getAuthorName().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                        String.valueOf(m.getId()).contains(searchTerm))
-            .collect(Collectors.toList());
+        String query = String.join(" ", TextNormalizer.tokenize(searchTerm));
+        List<Integer> cached = searchCache.get("media", query);
+        if (cached != null) {
+            List<Media> results = new ArrayList<>(cached.size());
+            for (Integer id : cached) {
+                results.add(mediaById.get(id));
+            }
+            return results;
+        }
+        
+        boolean fuzzy = false;
+        List<Media> results;
+        Media byIsbn = Isbn.isValid(query) ? findMediaByIsbn(query) : null;
+        if (byIsbn != null) {
+            // A scanned ISBN is an exact lookup
+            results = new ArrayList<>(List.of(byIsbn));
+        } else {
+            results = mediaSearchIndex.search(query);
+            Media byId = findMediaByIdTerm(query);
+            if (byId != null && !results.contains(byId)) {
+                results.add(0, byId);
+            }
+            // Nothing found: probably a misspelling, so fall back to fuzzy matching on titles and authors
+            if (results.isEmpty()) {
+                results = mediaFuzzyIndex.search(query, FUZZY_SEARCH_LIMIT);
+                fuzzy = true;
+            }
+        }
+        
+        List<Integer> ids = new ArrayList<>(results.size());
+        for (Media media : results) {
+            ids.add(media.getId());
+        }
+        searchCache.put("media", query, ids, fuzzy);
+        return results;
+    }
+    
+    // Same matching as searchMedia, as a set of ids for filtering the media table
+    public Set<Integer> searchMediaIds(String searchTerm) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Media media : searchMedia(searchTerm)) {
+            ids.add(media.getId());
+        }
+        return ids;
+    }
+    
+    // Drops cached searches whose results contain the media item or that it (now) matches
+    private void invalidateMediaSearches(Media media) {
+        String id = String.valueOf(media.getId());
+        String isbn = Isbn.canonical(media.getIsbn());
+        searchCache.invalidate("media", media.getId(), query ->
+            query.equals(id) || (isbn != null && isbn.equals(Isbn.canonical(query)))
+                || MediaSearchIndex.matchesQuery(media, query));
+    }
+    
+    public SearchResultCache.Stats getSearchCacheStats() {
+        return searchCache.getStats();
+    }
+    
+    private Media findMediaByIdTerm(String searchTerm) {
+        String trimmed = searchTerm.trim();
+        if (trimmed.isEmpty() || trimmed.length() > 9 || !trimmed.chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        return findMediaById(Integer.parseInt(trimmed));
+    }
+    
+    // Facet filtering with counts; searchTerm may be blank, selections only hold the facets to filter on
+    public FacetIndex.Result queryMediaFacets(String searchTerm, Map<FacetIndex.Facet, String> selections) {
+        Set<Integer> searchMatches = searchTerm != null && !searchTerm.trim().isEmpty() ? searchMediaIds(searchTerm) : null;
+        return mediaFacetIndex.query(selections, searchMatches);
     }
     
     public List<Media> getAvailableMedia() {
@@ -684,12 +1327,19 @@ public class DatabaseManager {
                 member.setCurrentLoans(rs.getInt("current_loans"));
                 member.setMemberSince(rs.getDate("member_since").toLocalDate());
                 // member.setActive(rs.getBoolean("active")); // Member has no setActive method
+                member.setVersion(rs.getInt("version"));
                 
                 membersCache.add(member);
             }
         } catch (SQLException e) {
             System.err.println("Failed to load members: " + e.getMessage());
         }
+        membersById.clear();
+        for (Member member : membersCache) {
+            membersById.put(member.getId(), member);
+        }
+        searchCache.invalidateAll("member");
+        memberPrefixIndex.rebuild(membersCache);
     }
     
     public ObservableList<Member> getAllMembers() { 
@@ -716,7 +1366,12 @@ public class DatabaseManager {
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
                     member.setId(generatedKeys.getInt(1));
+                    markChanged();
                     membersCache.add(member);
+                    membersById.put(member.getId(), member);
+                    invalidateMemberSearches(member);
+                    memberPrefixIndex.index(member);
+                    eligibility.refresh(member);
                     exportToSQLFile(); // Auto-export after data change
                 }
             }
@@ -725,8 +1380,8 @@ public class DatabaseManager {
         }
     }
     
-    public void updateMember(Member member) {
-        String sql = "UPDATE members SET first_name = ?, last_name = ?, email = ?, phone = ?, address = ?, birth_date = ?, status = ?, max_loans = ?, current_loans = ?, member_since = ?, active = ? WHERE id = ?";
+    public boolean updateMember(Member member) {
+        String sql = "UPDATE members SET first_name = ?, last_name = ?, email = ?, phone = ?, address = ?, birth_date = ?, status = ?, max_loans = ?, current_loans = ?, member_since = ?, active = ?, version = version + 1 WHERE id = ? AND version = ?";
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, member.getFirstName());
             stmt.setString(2, member.getLastName());
@@ -740,16 +1395,26 @@ public class DatabaseManager {
             stmt.setDate(10, Date.valueOf(member.getMemberSince()));
             stmt.setBoolean(11, member.isActive());
             stmt.setInt(12, member.getId());
+            stmt.setInt(13, member.getVersion());
             
-            stmt.executeUpdate();
+            if (!checkVersion(stmt.executeUpdate(), "member", member.getId())) {
+                return false;
+            }
+            member.setVersion(member.getVersion() + 1);
+            markChanged();
             
             int index = membersCache.indexOf(member);
             if (index >= 0) {
                 membersCache.set(index, member);
             }
+            invalidateMemberSearches(member);
+            memberPrefixIndex.index(member);
+            eligibility.refresh(member);
             exportToSQLFile(); // Auto-export after data change
+            return true;
         } catch (SQLException e) {
             System.err.println("Failed to update member: " + e.getMessage());
+            return false;
         }
     }
     
@@ -758,7 +1423,12 @@ public class DatabaseManager {
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, member.getId());
             stmt.executeUpdate();
+            markChanged();
             membersCache.remove(member);
+            membersById.remove(member.getId());
+            invalidateMemberSearches(member);
+            memberPrefixIndex.remove(member);
+            eligibility.remove(member);
             exportToSQLFile(); // Auto-export after data change
         } catch (SQLException e) {
             System.err.println("Failed to delete member: " + e.getMessage());
@@ -766,15 +1436,46 @@ public class DatabaseManager {
     }
     
     public Member findMemberById(int id) {
-        return membersCache.stream().filter(m -> m.getId() == id).findFirst().orElse(null);
+        return membersById.get(id);
     }
     
+    // Members whose first name, last name, full name, email or id starts with the search term
     public List<Member> searchMembers(String searchTerm) {
-        return membersCache.stream()
-            .filter(m -> m.getFullName().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                        m.getEmail().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                        String.valueOf(m.getId()).contains(searchTerm))
-            .collect(Collectors.toList());
+        String query = MemberPrefixIndex.normalizeKey(searchTerm);
+        List<Integer> cached = searchCache.get("member", query);
+        if (cached != null) {
+            List<Member> results = new ArrayList<>(cached.size());
+            for (Integer id : cached) {
+                results.add(membersById.get(id));
+            }
+            return results;
+        }
+        
+        List<Member> results = memberPrefixIndex.typeAhead(query, Integer.MAX_VALUE, null);
+        List<Integer> ids = new ArrayList<>(results.size());
+        for (Member member : results) {
+            ids.add(member.getId());
+        }
+        searchCache.put("member", query, ids, false);
+        return results;
+    }
+    
+    public Set<Integer> searchMemberIds(String searchTerm) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Member member : searchMembers(searchTerm)) {
+            ids.add(member.getId());
+        }
+        return ids;
+    }
+    
+    // Drops cached searches whose results contain the member or that the member (now) matches
+    private void invalidateMemberSearches(Member member) {
+        searchCache.invalidate("member", member.getId(), query -> MemberPrefixIndex.matchesQuery(member, query));
+    }
+    
+    // First matches for a type-ahead field, in name order; filter may be null
+    public List<Member> typeAheadMembers(String prefix, int limit, Predicate<Member> filter) {
+        return memberPrefixIndex.typeAhead(prefix, limit, filter);
     }
     
     // Staff operations
@@ -800,6 +1501,7 @@ public class DatabaseManager {
                 staff.setSalary(rs.getDouble("salary"));
                 staff.setStatus(rs.getString("status"));
                 // staff.setActive(rs.getBoolean("active")); // Staff has no setActive method
+                staff.setVersion(rs.getInt("version"));
                 
                 staffCache.add(staff);
             }
@@ -833,6 +1535,7 @@ public class DatabaseManager {
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
                     staffMember.setId(generatedKeys.getInt(1));
+                    markChanged();
                     staffCache.add(staffMember);
                 }
             }
@@ -841,8 +1544,8 @@ public class DatabaseManager {
         }
     }
     
-    public void updateStaff(Staff staffMember) {
-        String sql = "UPDATE staff SET first_name = ?, last_name = ?, email = ?, phone = ?, position = ?, department = ?, hire_date = ?, salary = ?, status = ?, username = ?, role = ?, active = ? WHERE id = ?";
+    public boolean updateStaff(Staff staffMember) {
+        String sql = "UPDATE staff SET first_name = ?, last_name = ?, email = ?, phone = ?, position = ?, department = ?, hire_date = ?, salary = ?, status = ?, username = ?, role = ?, active = ?, version = version + 1 WHERE id = ? AND version = ?";
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, staffMember.getFirstName());
             stmt.setString(2, staffMember.getLastName());
@@ -857,15 +1560,22 @@ public class DatabaseManager {
             stmt.setString(11, staffMember.getRole());
             stmt.setBoolean(12, staffMember.isActive());
             stmt.setInt(13, staffMember.getId());
+            stmt.setInt(14, staffMember.getVersion());
             
-            stmt.executeUpdate();
+            if (!checkVersion(stmt.executeUpdate(), "staff member", staffMember.getId())) {
+                return false;
+            }
+            staffMember.setVersion(staffMember.getVersion() + 1);
+            markChanged();
             
             int index = staffCache.indexOf(staffMember);
             if (index >= 0) {
                 staffCache.set(index, staffMember);
             }
+            return true;
         } catch (SQLException e) {
             System.err.println("Failed to update staff member: " + e.getMessage());
+            return false;
         }
     }
     
@@ -874,6 +1584,7 @@ public class DatabaseManager {
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, staffMember.getId());
             stmt.executeUpdate();
+            markChanged();
             staffCache.remove(staffMember);
         } catch (SQLException e) {
             System.err.println("Failed to delete staff member: " + e.getMessage());
@@ -883,11 +1594,13 @@ public class DatabaseManager {
     // Loan operations
     private void loadLoans() {
         loansCache.clear();
+        loansById.clear();
         String sql = """
             SELECT l.*, 
                    m.first_name as member_first, m.last_name as member_last, m.email as member_email,
                    m.phone as member_phone, m.address as member_address, m.birth_date as member_birth,
                    m.status as member_status, m.max_loans, m.current_loans, m.member_since, m.active as member_active,
+                   m.version as member_version, media.version as media_version,
                    media.title, media.isbn, media.publish_year, media.publisher, media.type, media.total_copies,
                    media.available_copies, media.location, media.description as media_description, media.language,
                    media.author_id, media.category_id,
@@ -904,58 +1617,64 @@ public class DatabaseManager {
              ResultSet rs = stmt.executeQuery()) {
             
             while (rs.next()) {
-                // Create Member object
-                Member member = new Member(
-                    rs.getInt("member_id"),
-                    rs.getString("member_first"),
-                    rs.getString("member_last"),
-                    rs.getString("member_email"),
-                    rs.getString("member_phone"),
-                    rs.getString("member_address"),
-                    rs.getDate("member_birth").toLocalDate()
-                );
-                member.setStatus(rs.getString("member_status"));
-                member.setMaxLoans(rs.getInt("max_loans"));
-                member.setCurrentLoans(rs.getInt("current_loans"));
-                member.setMemberSince(rs.getDate("member_since").toLocalDate());
-                // member.setActive(rs.getBoolean("member_active")); // Member has no setActive method
-                
-                // Create Author object (if exists)
-                Author author = null;
-                if (rs.getString("author_first") != null) {
-                    author = new Author(
-                        rs.getInt("author_id"),
-                        rs.getString("author_first"),
-                        rs.getString("author_last"),
-                        rs.getString("biography"),
-                        rs.getString("nationality")
+                // Share the cached member and media instances so counters and versions stay consistent
+                Member member = findMemberById(rs.getInt("member_id"));
+                if (member == null) {
+                    member = new Member(
+                        rs.getInt("member_id"),
+                        rs.getString("member_first"),
+                        rs.getString("member_last"),
+                        rs.getString("member_email"),
+                        rs.getString("member_phone"),
+                        rs.getString("member_address"),
+                        rs.getDate("member_birth").toLocalDate()
                     );
+                    member.setStatus(rs.getString("member_status"));
+                    member.setMaxLoans(rs.getInt("max_loans"));
+                    member.setCurrentLoans(rs.getInt("current_loans"));
+                    member.setMemberSince(rs.getDate("member_since").toLocalDate());
+                    member.setVersion(rs.getInt("member_version"));
                 }
                 
-                // Create Category object
-                Category category = new Category(
-                    rs.getInt("category_id"),
-                    rs.getString("category_name"),
-                    rs.getString("category_description"),
-                    rs.getInt("loan_duration_days")
-                );
-                
-                // Create Media object
-                Media media = new Media(
-                    rs.getInt("media_id"),
-                    rs.getString("title"),
-                    rs.getString("isbn"),
-                    rs.getInt("publish_year"),
-                    rs.getString("publisher"),
-                    rs.getString("type"),
-                    rs.getInt("total_copies"),
-                    rs.getString("location"),
-                    author,
-                    category
-                );
-                media.setAvailableCopies(rs.getInt("available_copies"));
-                media.setDescription(rs.getString("media_description"));
-                media.setLanguage(rs.getString("language"));
+                Media media = findMediaById(rs.getInt("media_id"));
+                if (media == null) {
+                    // Create Author object (if exists)
+                    Author author = null;
+                    if (rs.getString("author_first") != null) {
+                        author = new Author(
+                            rs.getInt("author_id"),
+                            rs.getString("author_first"),
+                            rs.getString("author_last"),
+                            rs.getString("biography"),
+                            rs.getString("nationality")
+                        );
+                    }
+                    
+                    // Create Category object
+                    Category category = new Category(
+                        rs.getInt("category_id"),
+                        rs.getString("category_name"),
+                        rs.getString("category_description"),
+                        rs.getInt("loan_duration_days")
+                    );
+                    
+                    media = new Media(
+                        rs.getInt("media_id"),
+                        rs.getString("title"),
+                        rs.getString("isbn"),
+                        rs.getInt("publish_year"),
+                        rs.getString("publisher"),
+                        rs.getString("type"),
+                        rs.getInt("total_copies"),
+                        rs.getString("location"),
+                        author,
+                        category
+                    );
+                    media.setAvailableCopies(rs.getInt("available_copies"));
+                    media.setDescription(rs.getString("media_description"));
+                    media.setLanguage(rs.getString("language"));
+                    media.setVersion(rs.getInt("media_version"));
+                }
                 
                 // Create Loan object
                 Loan loan = new Loan(
@@ -972,12 +1691,15 @@ public class DatabaseManager {
                 loan.setRenewalCount(rs.getInt("renewal_count"));
                 loan.setMaxRenewals(rs.getInt("max_renewals"));
                 loan.setNotes(rs.getString("notes"));
+                loan.setVersion(rs.getInt("version"));
                 
                 loansCache.add(loan);
+                loansById.put(loan.getId(), loan);
             }
         } catch (SQLException e) {
             System.err.println("Failed to load loans: " + e.getMessage());
         }
+        overdueTracker.rebuild(loansCache, LibraryClock.today());
     }
     
     public ObservableList<Loan> getAllLoans() { 
@@ -985,6 +1707,12 @@ public class DatabaseManager {
     }
     
     public void addLoan(Loan loan) {
+        // Reserve the copy first so two desks cannot lend out the last copy at the same time
+        if (!adjustAvailableCopies(loan.getMedia(), -1)) {
+            System.err.println("Failed to add loan: no copy of " + loan.getMediaTitle() + " is available");
+            return;
+        }
+        
         String sql = "INSERT INTO loans (member_id, media_id, loan_date, due_date, return_date, status, renewal_count, max_renewals, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
         try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setInt(1, loan.getMember().getId());
@@ -1002,25 +1730,23 @@ public class DatabaseManager {
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
                     loan.setId(generatedKeys.getInt(1));
+                    markChanged();
                     loansCache.add(loan);
-                    
-                    // Update member current loans
-                    loan.getMember().setCurrentLoans(loan.getMember().getCurrentLoans() + 1);
-                    updateMember(loan.getMember());
-                    
-                    // Update media available copies
-                    loan.getMedia().borrowCopy();
-                    updateMedia(loan.getMedia());
+                    loansById.put(loan.getId(), loan);
+                    overdueTracker.index(loan);
+                    syncCurrentLoans(memberActivity.index(loan));
+                    eligibility.refresh(loan.getMember());
                     exportToSQLFile();
                 }
             }
         } catch (SQLException e) {
             System.err.println("Failed to add loan: " + e.getMessage());
+            adjustAvailableCopies(loan.getMedia(), 1);
         }
     }
     
-    public void updateLoan(Loan loan) {
-        String sql = "UPDATE loans SET member_id = ?, media_id = ?, loan_date = ?, due_date = ?, return_date = ?, status = ?, renewal_count = ?, max_renewals = ?, notes = ? WHERE id = ?";
+    public boolean updateLoan(Loan loan) {
+        String sql = "UPDATE loans SET member_id = ?, media_id = ?, loan_date = ?, due_date = ?, return_date = ?, status = ?, renewal_count = ?, max_renewals = ?, notes = ?, version = version + 1 WHERE id = ? AND version = ?";
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, loan.getMember().getId());
             stmt.setInt(2, loan.getMedia().getId());
@@ -1032,38 +1758,125 @@ public class DatabaseManager {
             stmt.setInt(8, loan.getMaxRenewals());
             stmt.setString(9, loan.getNotes());
             stmt.setInt(10, loan.getId());
+            stmt.setInt(11, loan.getVersion());
             
-            stmt.executeUpdate();
+            if (!checkVersion(stmt.executeUpdate(), "loan", loan.getId())) {
+                return false;
+            }
+            loan.setVersion(loan.getVersion() + 1);
+            markChanged();
+            // Renewals move the due date, returns take the loan out of the tracker
+            overdueTracker.index(loan);
+            syncCurrentLoans(memberActivity.index(loan));
+            // Renewing or returning can also clear an overdue block
+            eligibility.refresh(loan.getMember());
             
             int index = loansCache.indexOf(loan);
             if (index >= 0) {
                 loansCache.set(index, loan);
+                loansById.put(loan.getId(), loan);
             }
             exportToSQLFile();
+            return true;
         } catch (SQLException e) {
             System.err.println("Failed to update loan: " + e.getMessage());
+            return false;
         }
     }
     
-    public void returnLoan(Loan loan) {
-        loan.returnMedia();
-        loan.getMember().setCurrentLoans(loan.getMember().getCurrentLoans() - 1);
-        loan.getMedia().returnCopy();
-        
-        updateLoan(loan);
-        updateMember(loan.getMember());
-        updateMedia(loan.getMedia());
-    }
-    
-    public List<Loan> getActiveLoans() {
-        return loansCache.stream().filter(l -> "Active".equals(l.getStatus())).collect(Collectors.toList());
-    }
-    
-    public List<Loan> getOverdueLoans() {
-        return loansCache.stream().filter(Loan::isOverdue).collect(Collectors.toList());
+    // A single return takes the bulk path, so a loan the nightly fine run has already charged is not fined again
+    public ReturnBatch returnLoan(Loan loan) {
+        return returnLoans(List.of(loan));
     }
     
-    public List<Loan> getMemberLoans(Member member) {
+    // Counters are changed relative to the stored value so concurrent desks never overwrite each other
+    private boolean adjustAvailableCopies(Media media, int delta) {
+        String sql = "UPDATE media SET available_copies = available_copies + ?, version = version + 1 " +
+                     "WHERE id = ? AND available_copies + ? BETWEEN 0 AND total_copies";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, delta);
+            stmt.setInt(2, media.getId());
+            stmt.setInt(3, delta);
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+        } catch (SQLException e) {
+            System.err.println("Failed to update available copies: " + e.getMessage());
+            return false;
+        }
+        
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT available_copies, version FROM media WHERE id = ?")) {
+            stmt.setInt(1, media.getId());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    media.setAvailableCopies(rs.getInt("available_copies"));
+                    media.setVersion(rs.getInt("version"));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Failed to refresh media: " + e.getMessage());
+        }
+        
+        int index = mediaCache.indexOf(media);
+        if (index >= 0) {
+            mediaCache.set(index, media);
+        }
+        mediaFacetIndex.index(media);
+        markChanged();
+        return true;
+    }
+    
+    // Rederives current_loans from the active loans instead of counting up and down, so it cannot drift
+    private void syncCurrentLoans(List<Integer> memberIds) {
+        for (int memberId : memberIds) {
+            Member member = findMemberById(memberId);
+            if (member == null) {
+                continue;
+            }
+            String sql = "UPDATE members SET current_loans = (SELECT COUNT(*) FROM loans WHERE member_id = ? AND status = 'Active'), version = version + 1 WHERE id = ?";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, memberId);
+                stmt.setInt(2, memberId);
+                stmt.executeUpdate();
+            } catch (SQLException e) {
+                System.err.println("Failed to update current loans: " + e.getMessage());
+                continue;
+            }
+            
+            try (PreparedStatement stmt = connection.prepareStatement("SELECT current_loans, version FROM members WHERE id = ?")) {
+                stmt.setInt(1, memberId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        member.setCurrentLoans(rs.getInt("current_loans"));
+                        member.setVersion(rs.getInt("version"));
+                    }
+                }
+            } catch (SQLException e) {
+                System.err.println("Failed to refresh member: " + e.getMessage());
+            }
+            
+            int index = membersCache.indexOf(member);
+            if (index >= 0) {
+                membersCache.set(index, member);
+            }
+            eligibility.refresh(member);
+            markChanged();
+        }
+    }
+    
+    public Loan findLoanById(int id) {
+        return loansById.get(id);
+    }
+    
+    public List<Loan> getActiveLoans() {
+        return loansCache.stream().filter(l -> "Active".equals(l.getStatus())).collect(Collectors.toList());
+    }
+    
+    public List<Loan> getOverdueLoans() {
+        return overdueTracker.getOverdueLoans(LibraryClock.today());
+    }
+    
+    public List<Loan> getMemberLoans(Member member) {
         return loansCache.stream().filter(l -> l.getMember().equals(member)).collect(Collectors.toList());
     }
     
@@ -1074,7 +1887,8 @@ public class DatabaseManager {
             SELECT f.*, 
                    m.first_name as member_first, m.last_name as member_last, m.email as member_email,
                    m.phone as member_phone, m.address as member_address, m.birth_date as member_birth,
-                   m.status as member_status, m.max_loans, m.current_loans, m.member_since, m.active as member_active
+                   m.status as member_status, m.max_loans, m.current_loans, m.member_since, m.active as member_active,
+                   m.version as member_version
             FROM fines f
             JOIN members m ON f.member_id = m.id
             ORDER BY f.issue_date DESC
@@ -1083,21 +1897,23 @@ public class DatabaseManager {
              ResultSet rs = stmt.executeQuery()) {
             
             while (rs.next()) {
-                // Create Member object
-                Member member = new Member(
-                    rs.getInt("member_id"),
-                    rs.getString("member_first"),
-                    rs.getString("member_last"),
-                    rs.getString("member_email"),
-                    rs.getString("member_phone"),
-                    rs.getString("member_address"),
-                    rs.getDate("member_birth").toLocalDate()
-                );
-                member.setStatus(rs.getString("member_status"));
-                member.setMaxLoans(rs.getInt("max_loans"));
-                member.setCurrentLoans(rs.getInt("current_loans"));
-                member.setMemberSince(rs.getDate("member_since").toLocalDate());
-                // member.setActive(rs.getBoolean("member_active")); // Member has no setActive method
+                Member member = findMemberById(rs.getInt("member_id"));
+                if (member == null) {
+                    member = new Member(
+                        rs.getInt("member_id"),
+                        rs.getString("member_first"),
+                        rs.getString("member_last"),
+                        rs.getString("member_email"),
+                        rs.getString("member_phone"),
+                        rs.getString("member_address"),
+                        rs.getDate("member_birth").toLocalDate()
+                    );
+                    member.setStatus(rs.getString("member_status"));
+                    member.setMaxLoans(rs.getInt("max_loans"));
+                    member.setCurrentLoans(rs.getInt("current_loans"));
+                    member.setMemberSince(rs.getDate("member_since").toLocalDate());
+                    member.setVersion(rs.getInt("member_version"));
+                }
                 
                 // Find associated loan if exists
                 Loan loan = null;
@@ -1120,12 +1936,96 @@ public class DatabaseManager {
                 }
                 fine.setStatus(rs.getString("status"));
                 fine.setDescription(rs.getString("description"));
+                fine.setVersion(rs.getInt("version"));
                 
                 finesCache.add(fine);
             }
         } catch (SQLException e) {
             System.err.println("Failed to load fines: " + e.getMessage());
         }
+        loadFineLedger();
+        loadMemberActivity();
+    }
+    
+    private void loadMemberActivity() {
+        memberActivity.rebuild(loansCache, finesCache);
+        // current_loans used to be adjusted by hand and could drift; rederive it from the loans
+        if (!isClientMode()) {
+            try {
+                int corrected = executeUpdate("""
+                    UPDATE members m
+                    SET current_loans = (SELECT COUNT(*) FROM loans l WHERE l.member_id = m.id AND l.status = 'Active')
+                    WHERE current_loans <> (SELECT COUNT(*) FROM loans l WHERE l.member_id = m.id AND l.status = 'Active')
+                    """);
+                if (corrected > 0) {
+                    System.out.println("✓ Corrected the current loan count of " + corrected + " members");
+                }
+            } catch (SQLException e) {
+                System.err.println("Failed to correct current loan counts: " + e.getMessage());
+            }
+        }
+        for (Member member : membersCache) {
+            member.setCurrentLoans(memberActivity.getActiveLoans(member.getId()));
+        }
+    }
+    
+    // Fines from before the ledger get their issue and settlement postings once, in bulk
+    private static final String[] BACKFILL_FINE_TRANSACTIONS_SQL = {
+        """
+        INSERT INTO fine_transactions (fine_id, member_id, type, amount_cents, created_at)
+        SELECT f.id, f.member_id, 'Issue', CAST(ROUND(f.amount * 100) AS BIGINT), f.issue_date
+        FROM fines f
+        WHERE NOT EXISTS (SELECT 1 FROM fine_transactions t WHERE t.fine_id = f.id)
+        """,
+        """
+        INSERT INTO fine_transactions (fine_id, member_id, type, amount_cents, created_at)
+        SELECT f.id, f.member_id, CASE f.status WHEN 'Paid' THEN 'Payment' WHEN 'Waived' THEN 'Waiver' ELSE 'Adjustment' END,
+               -CAST(ROUND(f.amount * 100) AS BIGINT), COALESCE(f.paid_date, f.issue_date)
+        FROM fines f
+        WHERE f.status <> 'Outstanding'
+          AND (SELECT COUNT(*) FROM fine_transactions t WHERE t.fine_id = f.id) = 1
+        """
+    };
+    
+    private void loadFineLedger() {
+        Map<Integer, Long> memberBalances = new HashMap<>();
+        long paidCents = 0;
+        long waivedCents = 0;
+        try {
+            if (!isClientMode()) {
+                int backfilled = 0;
+                for (String sql : BACKFILL_FINE_TRANSACTIONS_SQL) {
+                    backfilled += executeUpdate(sql);
+                }
+                if (backfilled > 0) {
+                    System.out.println("✓ Fine ledger: " + backfilled + " postings backfilled from existing fines");
+                }
+            }
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT member_id, SUM(amount_cents) FROM fine_transactions GROUP BY member_id")) {
+                while (rs.next()) {
+                    memberBalances.put(rs.getInt(1), rs.getLong(2));
+                }
+            }
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT type, SUM(amount_cents) FROM fine_transactions WHERE type IN ('Payment', 'Waiver') GROUP BY type")) {
+                while (rs.next()) {
+                    if (FineLedger.PAYMENT.equals(rs.getString(1))) {
+                        paidCents = -rs.getLong(2);
+                    } else {
+                        waivedCents = -rs.getLong(2);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Failed to load fine ledger: " + e.getMessage());
+        }
+        fineLedger.rebuild(finesCache, memberBalances, paidCents, waivedCents);
+        
+        Map<Integer, Long> discrepancies = fineLedger.findDiscrepancies();
+        if (!discrepancies.isEmpty()) {
+            System.err.println("Fine ledger does not reconcile with outstanding fines (member id -> difference in cents): " + discrepancies);
+        }
     }
     
     public ObservableList<Fine> getAllFines() { 
@@ -1134,64 +2034,155 @@ public class DatabaseManager {
     
     public void addFine(Fine fine) {
         String sql = "INSERT INTO fines (member_id, loan_id, amount, reason, issue_date, paid_date, status, description) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setInt(1, fine.getMember().getId());
-            stmt.setObject(2, fine.getLoan() != null ? fine.getLoan().getId() : null);
-            stmt.setDouble(3, fine.getAmount());
-            stmt.setString(4, fine.getReason());
-            stmt.setDate(5, Date.valueOf(fine.getIssueDate()));
-            stmt.setDate(6, fine.getPaidDate() != null ? Date.valueOf(fine.getPaidDate()) : null);
-            stmt.setString(7, fine.getStatus());
-            stmt.setString(8, fine.getDescription());
-            
-            stmt.executeUpdate();
-            
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    fine.setId(generatedKeys.getInt(1));
-                    finesCache.add(fine);
+        try {
+            List<FineLedger.Posting> postings = inTransaction(() -> {
+                try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    stmt.setInt(1, fine.getMember().getId());
+                    stmt.setObject(2, fine.getLoan() != null ? fine.getLoan().getId() : null);
+                    stmt.setDouble(3, fine.getAmount());
+                    stmt.setString(4, fine.getReason());
+                    stmt.setDate(5, Date.valueOf(fine.getIssueDate()));
+                    stmt.setDate(6, fine.getPaidDate() != null ? Date.valueOf(fine.getPaidDate()) : null);
+                    stmt.setString(7, fine.getStatus());
+                    stmt.setString(8, fine.getDescription());
+                    
+                    stmt.executeUpdate();
+                    
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        if (!generatedKeys.next()) {
+                            throw new SQLException("No id generated for fine");
+                        }
+                        fine.setId(generatedKeys.getInt(1));
+                    }
                 }
-            }
+                List<FineLedger.Posting> issued = fineLedger.postingsFor(fine);
+                insertFineTransactions(issued);
+                markChanged();
+                return issued;
+            });
+            fineLedger.apply(fine, postings);
+            memberActivity.recordFine(fine);
+            eligibility.refresh(fine.getMember());
+            finesCache.add(fine);
         } catch (SQLException e) {
+            fine.setId(0);
             System.err.println("Failed to add fine: " + e.getMessage());
         }
     }
     
-    public void updateFine(Fine fine) {
-        String sql = "UPDATE fines SET member_id = ?, loan_id = ?, amount = ?, reason = ?, issue_date = ?, paid_date = ?, status = ?, description = ? WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, fine.getMember().getId());
-            stmt.setObject(2, fine.getLoan() != null ? fine.getLoan().getId() : null);
-            stmt.setDouble(3, fine.getAmount());
-            stmt.setString(4, fine.getReason());
-            stmt.setDate(5, Date.valueOf(fine.getIssueDate()));
-            stmt.setDate(6, fine.getPaidDate() != null ? Date.valueOf(fine.getPaidDate()) : null);
-            stmt.setString(7, fine.getStatus());
-            stmt.setString(8, fine.getDescription());
-            stmt.setInt(9, fine.getId());
-            
-            stmt.executeUpdate();
-            
-            int index = finesCache.indexOf(fine);
-            if (index >= 0) {
-                finesCache.set(index, fine);
-            }
+    public boolean updateFine(Fine fine) {
+        String sql = "UPDATE fines SET member_id = ?, loan_id = ?, amount = ?, reason = ?, issue_date = ?, paid_date = ?, status = ?, description = ?, version = version + 1 WHERE id = ? AND version = ?";
+        List<FineLedger.Posting> postings;
+        try {
+            postings = inTransaction(() -> {
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    stmt.setInt(1, fine.getMember().getId());
+                    stmt.setObject(2, fine.getLoan() != null ? fine.getLoan().getId() : null);
+                    stmt.setDouble(3, fine.getAmount());
+                    stmt.setString(4, fine.getReason());
+                    stmt.setDate(5, Date.valueOf(fine.getIssueDate()));
+                    stmt.setDate(6, fine.getPaidDate() != null ? Date.valueOf(fine.getPaidDate()) : null);
+                    stmt.setString(7, fine.getStatus());
+                    stmt.setString(8, fine.getDescription());
+                    stmt.setInt(9, fine.getId());
+                    stmt.setInt(10, fine.getVersion());
+                    if (stmt.executeUpdate() == 0) {
+                        return null;
+                    }
+                }
+                // Payment, waiver or adjustment for whatever changed, in the same transaction as the fine
+                List<FineLedger.Posting> changes = fineLedger.postingsFor(fine);
+                insertFineTransactions(changes);
+                markChanged();
+                return changes;
+            });
         } catch (SQLException e) {
             System.err.println("Failed to update fine: " + e.getMessage());
+            return false;
+        }
+        if (!checkVersion(postings != null ? 1 : 0, "fine", fine.getId())) {
+            return false;
         }
+        fine.setVersion(fine.getVersion() + 1);
+        fineLedger.apply(fine, postings);
+        memberActivity.recordFine(fine);
+        eligibility.refresh(fine.getMember());
+        
+        int index = finesCache.indexOf(fine);
+        if (index >= 0) {
+            finesCache.set(index, fine);
+        }
+        return true;
     }
     
     public void deleteFine(Fine fine) {
         String sql = "DELETE FROM fines WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, fine.getId());
-            stmt.executeUpdate();
+        try {
+            List<FineLedger.Posting> postings = inTransaction(() -> {
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    stmt.setInt(1, fine.getId());
+                    stmt.executeUpdate();
+                }
+                // The postings stay as history; an open amount is reversed so the balance drops with the fine
+                List<FineLedger.Posting> reversal = fineLedger.postingsForRemoval(fine);
+                insertFineTransactions(reversal);
+                markChanged();
+                return reversal;
+            });
+            fineLedger.applyRemoval(fine, postings);
+            eligibility.refresh(fine.getMember());
             finesCache.remove(fine);
         } catch (SQLException e) {
             System.err.println("Failed to delete fine: " + e.getMessage());
         }
     }
     
+    private void insertFineTransactions(List<FineLedger.Posting> postings) throws SQLException {
+        if (postings.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO fine_transactions (fine_id, member_id, type, amount_cents, created_at) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (FineLedger.Posting posting : postings) {
+                stmt.setInt(1, posting.fineId());
+                stmt.setInt(2, posting.memberId());
+                stmt.setString(3, posting.type());
+                stmt.setLong(4, posting.amountCents());
+                stmt.setTimestamp(5, now);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+    
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T run() throws SQLException;
+    }
+    
+    private <T> T inTransaction(SqlWork<T> work) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            T result = work.run();
+            connection.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackError) {
+                System.err.println("Failed to roll back: " + rollbackError.getMessage());
+            }
+            throw e;
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                System.err.println("Failed to restore auto-commit: " + e.getMessage());
+            }
+        }
+    }
+    
     public List<Fine> getOutstandingFines() {
         return finesCache.stream().filter(Fine::isOutstanding).collect(Collectors.toList());
     }
@@ -1200,11 +2191,43 @@ public class DatabaseManager {
         return finesCache.stream().filter(f -> f.getMember().equals(member)).collect(Collectors.toList());
     }
     
-    public double getTotalOutstandingFines() {
-        return finesCache.stream()
-            .filter(Fine::isOutstanding)
-            .mapToDouble(Fine::getAmount)
-            .sum();
+    // Active and overdue loans, balance, lifetime loans and last activity, all from maintained aggregates
+    public MemberStats getMemberStats(Member member) {
+        int memberId = member.getId();
+        return new MemberStats(
+            memberId,
+            memberActivity.getActiveLoans(memberId),
+            overdueTracker.getOverdueCount(memberId, LibraryClock.today()),
+            fineLedger.getOutstandingCents(memberId),
+            memberActivity.getLifetimeLoans(memberId),
+            memberActivity.getLastActivity(memberId)
+        );
+    }
+    
+    // Checkout eligibility from the maintained eligible-member set
+    public boolean canBorrow(Member member) {
+        return eligibility.canBorrow(member);
+    }
+    
+    public EligibilityEngine getEligibility() {
+        return eligibility;
+    }
+    
+    // Ledger balances in cents, kept up to date with every fine change
+    public long getTotalOutstandingFineCents() {
+        return fineLedger.getOutstandingCents();
+    }
+    
+    public long getMemberOutstandingFineCents(Member member) {
+        return fineLedger.getOutstandingCents(member.getId());
+    }
+    
+    public long getTotalPaidFineCents() {
+        return fineLedger.getPaidCents();
+    }
+    
+    public long getTotalWaivedFineCents() {
+        return fineLedger.getWaivedCents();
     }
     
     // Statistics methods
@@ -1213,24 +2236,985 @@ public class DatabaseManager {
     public int getTotalMedia() { return mediaCache.size(); }
     public int getAvailableMediaCount() { return (int) mediaCache.stream().filter(Media::isAvailable).count(); }
     public int getTotalActiveLoans() { return getActiveLoans().size(); }
-    public int getTotalOverdueLoans() { return getOverdueLoans().size(); }
+    public int getTotalOverdueLoans() { return overdueTracker.getOverdueCount(LibraryClock.today()); }
     public int getTotalOutstandingFinesCount() { return getOutstandingFines().size(); }
     
-    // Auto-fine generation for overdue loans
-    public void generateOverdueFines() {
+    // Auto-fine generation for overdue loans: every overdue loan without an outstanding fine gets one.
+    // Candidates come from one indexed query; the amounts from the compiled fine policies
+    private static final String OVERDUE_FINE_CANDIDATES_SQL = """
+        SELECT l.id, l.member_id, l.due_date
+        FROM loans l
+        WHERE l.status = 'Active' AND l.due_date < ? AND l.id > ?
+          AND NOT EXISTS (SELECT 1 FROM fines f WHERE f.loan_id = l.id AND f.status = 'Outstanding')
+        ORDER BY l.id
+        LIMIT ?
+        """;
+    
+    // Returns the number of fines created
+    public int generateOverdueFines() {
+        try {
+            return generateOverdueFines(LibraryClock.today(), 0, Integer.MAX_VALUE).fines().size();
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            return 0;
+        }
+    }
+    
+    // One chunk of the fine run: up to limit overdue loans with an id above afterLoanId, in id order.
+    // Loans still within their grace days are passed over without a fine. Throws if the chunk
+    // could not be written, so the job run fails instead of finishing with loans left unfined
+    public OverdueFineBatch generateOverdueFines(LocalDate date, int afterLoanId, int limit) {
+        Date today = Date.valueOf(date);
+        Map<Integer, Loan> overdueById = new HashMap<>();
         for (Loan loan : getOverdueLoans()) {
-            boolean fineExists = finesCache.stream()
-                .anyMatch(f -> f.getLoan() != null && f.getLoan().equals(loan) && f.isOutstanding());
+            overdueById.put(loan.getId(), loan);
+        }
+        
+        List<Fine> created = new ArrayList<>();
+        List<List<FineLedger.Posting>> postings = new ArrayList<>();
+        int lastLoanId = afterLoanId;
+        int candidates = 0;
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement select = connection.prepareStatement(OVERDUE_FINE_CANDIDATES_SQL)) {
+                select.setDate(1, today);
+                select.setInt(2, afterLoanId);
+                select.setInt(3, limit);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        candidates++;
+                        int loanId = rs.getInt("id");
+                        lastLoanId = loanId;
+                        Loan loan = overdueById.get(loanId);
+                        if (loan == null) {
+                            // Due date moved by another desk since our last reload
+                            loan = findLoanById(loanId);
+                        }
+                        long daysOverdue = ChronoUnit.DAYS.between(rs.getDate("due_date").toLocalDate(), date);
+                        Member member = loan != null ? loan.getMember() : findMemberById(rs.getInt("member_id"));
+                        Fine fine = overdueFine(loan, member, daysOverdue, date);
+                        if (fine != null) {
+                            created.add(fine);
+                        }
+                    }
+                }
+                if (!created.isEmpty()) {
+                    postings = insertFines(created);
+                    markChanged();
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackError) {
+                System.err.println("Failed to roll back fine generation: " + rollbackError.getMessage());
+            }
+            throw new IllegalStateException("Failed to generate overdue fines: " + e.getMessage(), e);
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                System.err.println("Failed to restore auto-commit: " + e.getMessage());
+            }
+        }
+        
+        applyNewFines(created, postings);
+        return new OverdueFineBatch(created, lastLoanId, candidates < limit);
+    }
+    
+    // The fine the policy sets for a loan this many days overdue, or null if none is due yet (grace days)
+    private Fine overdueFine(Loan loan, Member member, long daysOverdue, LocalDate date) {
+        FinePolicy policy = FinePolicyEngine.getInstance().policyFor(loan != null ? loan.getMedia() : null);
+        double amount = policy.fineFor(daysOverdue);
+        if (amount <= 0) {
+            return null;
+        }
+        String reason = policy.isLost(daysOverdue)
+            ? "Lost item - " + daysOverdue + " days overdue"
+            : "Overdue return - " + daysOverdue + " days late";
+        Fine fine = new Fine(0, member, loan, amount, reason);
+        fine.setIssueDate(date);
+        return fine;
+    }
+    
+    // Inserts new fines and their issue postings as batches; must run inside a transaction.
+    // Returns each fine's postings, to apply to the ledger once committed
+    private List<List<FineLedger.Posting>> insertFines(List<Fine> fines) throws SQLException {
+        List<List<FineLedger.Posting>> postings = new ArrayList<>(fines.size());
+        if (fines.isEmpty()) {
+            return postings;
+        }
+        String sql = "INSERT INTO fines (member_id, loan_id, amount, reason, issue_date, status) VALUES (?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement insert = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (Fine fine : fines) {
+                insert.setInt(1, fine.getMember().getId());
+                insert.setObject(2, fine.getLoan() != null ? fine.getLoan().getId() : null);
+                insert.setDouble(3, fine.getAmount());
+                insert.setString(4, fine.getReason());
+                insert.setDate(5, Date.valueOf(fine.getIssueDate()));
+                insert.setString(6, fine.getStatus());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                for (Fine fine : fines) {
+                    if (!keys.next()) {
+                        throw new SQLException("Missing generated key for fine of loan " + fine.getLoan());
+                    }
+                    fine.setId(keys.getInt(1));
+                }
+            }
+        }
+        List<FineLedger.Posting> issuePostings = new ArrayList<>();
+        for (Fine fine : fines) {
+            List<FineLedger.Posting> issued = fineLedger.postingsFor(fine);
+            postings.add(issued);
+            issuePostings.addAll(issued);
+        }
+        insertFineTransactions(issuePostings);
+        return postings;
+    }
+    
+    private void applyNewFines(List<Fine> fines, List<List<FineLedger.Posting>> postings) {
+        for (int i = 0; i < fines.size(); i++) {
+            fineLedger.apply(fines.get(i), postings.get(i));
+            memberActivity.recordFine(fines.get(i));
+            eligibility.refresh(fines.get(i).getMember());
+        }
+        // One change notification for the whole batch instead of one per fine
+        finesCache.addAll(fines);
+    }
+    
+    // Auto-renewal: active loans due on the given day with renewals left, from the (status, due_date) index
+    private static final String RENEWAL_CANDIDATES_SQL = """
+        SELECT l.id
+        FROM loans l
+        WHERE l.status = 'Active' AND l.due_date = ? AND l.renewal_count < l.max_renewals AND l.id > ?
+        ORDER BY l.id
+        LIMIT ?
+        """;
+    
+    // One chunk of the renewal run: renews up to limit loans due on dueDate with an id above afterLoanId,
+    // as Loan.renew() would (one more loan period from the old due date). Loans of members who are not
+    // active or whose fines are over the checkout limit are passed over. Each loan period is one
+    // set-based UPDATE whose conditions repeat the selection, so a loan changed or renewed in the
+    // meantime is left alone; the models, indexes and caches are updated once for the chunk.
+    // Throws if the chunk could not be written, so the job run fails and is retried
+    public RenewalBatch autoRenewLoans(LocalDate dueDate, int afterLoanId, int limit) {
+        List<Loan> renewed = new ArrayList<>();
+        Map<Integer, RenewalState> states = new HashMap<>();
+        int lastLoanId = afterLoanId;
+        int candidates = 0;
+        try {
+            connection.setAutoCommit(false);
+            Map<Integer, List<Integer>> idsByPeriod = new LinkedHashMap<>();
+            try (PreparedStatement select = connection.prepareStatement(RENEWAL_CANDIDATES_SQL)) {
+                select.setDate(1, Date.valueOf(dueDate));
+                select.setInt(2, afterLoanId);
+                select.setInt(3, limit);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        candidates++;
+                        int loanId = rs.getInt("id");
+                        lastLoanId = loanId;
+                        Loan loan = findLoanById(loanId);
+                        if (loan == null || !loan.getMember().isActive()
+                                || eligibility.isOverFineLimit(fineLedger.getOutstandingCents(loan.getMember().getId()))) {
+                            continue;
+                        }
+                        idsByPeriod.computeIfAbsent(loan.getMedia().getLoanDurationDays(), days -> new ArrayList<>()).add(loanId);
+                    }
+                }
+            }
+            
+            String renewSql = """
+                MERGE INTO loans l USING TABLE(ID INT = ?) t ON l.id = t.ID
+                WHEN MATCHED AND l.status = 'Active' AND l.due_date = ? AND l.renewal_count < l.max_renewals THEN
+                  UPDATE SET due_date = DATEADD(DAY, ?, l.due_date), renewal_count = l.renewal_count + 1, version = l.version + 1
+                """;
+            try (PreparedStatement renew = connection.prepareStatement(renewSql)) {
+                for (Map.Entry<Integer, List<Integer>> period : idsByPeriod.entrySet()) {
+                    renew.setArray(1, idArray(period.getValue()));
+                    renew.setDate(2, Date.valueOf(dueDate));
+                    renew.setInt(3, period.getKey());
+                    renew.addBatch();
+                }
+                renew.executeBatch();
+            }
+            
+            List<Integer> eligibleIds = idsByPeriod.values().stream().flatMap(List::stream).collect(Collectors.toList());
+            if (!eligibleIds.isEmpty()) {
+                String readBack = "SELECT l.id, l.due_date, l.renewal_count, l.version FROM loans l JOIN TABLE(ID INT = ?) t ON l.id = t.ID WHERE l.due_date <> ?";
+                try (PreparedStatement stmt = connection.prepareStatement(readBack)) {
+                    stmt.setArray(1, idArray(eligibleIds));
+                    stmt.setDate(2, Date.valueOf(dueDate));
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            states.put(rs.getInt("id"), new RenewalState(
+                                rs.getDate("due_date").toLocalDate(), rs.getInt("renewal_count"), rs.getInt("version")));
+                        }
+                    }
+                }
+            }
+            if (!states.isEmpty()) {
+                markChanged();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackError) {
+                System.err.println("Failed to roll back renewals: " + rollbackError.getMessage());
+            }
+            throw new IllegalStateException("Failed to renew loans: " + e.getMessage(), e);
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                System.err.println("Failed to restore auto-commit: " + e.getMessage());
+            }
+        }
+        
+        Set<Member> members = new HashSet<>();
+        Set<Integer> countsChanged = new LinkedHashSet<>();
+        for (Map.Entry<Integer, RenewalState> entry : states.entrySet()) {
+            Loan loan = findLoanById(entry.getKey());
+            RenewalState state = entry.getValue();
+            loan.setDueDate(state.dueDate());
+            loan.setRenewalCount(state.renewalCount());
+            loan.setVersion(state.version());
+            overdueTracker.index(loan);
+            countsChanged.addAll(memberActivity.index(loan));
+            members.add(loan.getMember());
+            renewed.add(loan);
+        }
+        syncCurrentLoans(new ArrayList<>(countsChanged));
+        members.forEach(eligibility::refresh);
+        republish(loansCache, new HashSet<>(renewed));
+        if (!renewed.isEmpty()) {
+            exportToSQLFile();
+        }
+        return new RenewalBatch(renewed, lastLoanId, candidates < limit);
+    }
+    
+    private record RenewalState(LocalDate dueDate, int renewalCount, int version) {}
+    
+    // Bulk desk actions (overdue list): each runs as one transaction with one change
+    // notification and one export, however many items are selected. If another desk
+    // changed one of the items in the meantime, nothing is applied and the data is reloaded.
+    
+    private static final class BulkConflictException extends SQLException {
+        private static final long serialVersionUID = 1L;
+        
+        private final String entity;
+        private final int id;
+        
+        BulkConflictException(String entity, int id) {
+            super(entity + " #" + id + " was changed by another workstation");
+            this.entity = entity;
+            this.id = id;
+        }
+    }
+    
+    // The fines a return of these loans charges, for the confirmation: the fee of each overdue
+    // loan that has no outstanding fine yet (the nightly fine run or "Fine Selected" may have charged it)
+    public List<Fine> finesOnReturn(List<Loan> loans) {
+        try {
+            return returnFines(loans.stream().filter(l -> "Active".equals(l.getStatus())).collect(Collectors.toList()));
+        } catch (SQLException e) {
+            System.err.println("Failed to look up outstanding fines: " + e.getMessage());
+            return List.of();
+        }
+    }
+    
+    private List<Fine> returnFines(List<Loan> loans) throws SQLException {
+        List<Loan> overdue = loans.stream().filter(Loan::isOverdue).collect(Collectors.toList());
+        if (overdue.isEmpty()) {
+            return List.of();
+        }
+        Set<Integer> alreadyFined = loansWithOutstandingFine(overdue);
+        List<Fine> fines = new ArrayList<>();
+        for (Loan loan : overdue) {
+            double amount = FinePolicyEngine.getInstance().calculateFine(loan);
+            if (amount > 0 && !alreadyFined.contains(loan.getId())) {
+                fines.add(new Fine(0, loan.getMember(), loan, amount, "Overdue return"));
+            }
+        }
+        return fines;
+    }
+    
+    private Set<Integer> loansWithOutstandingFine(List<Loan> loans) throws SQLException {
+        Set<Integer> fined = new HashSet<>();
+        String sql = "SELECT DISTINCT f.loan_id FROM fines f JOIN TABLE(ID INT = ?) t ON f.loan_id = t.ID WHERE f.status = 'Outstanding'";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setArray(1, idArray(loans.stream().map(Loan::getId).collect(Collectors.toList())));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    fined.add(rs.getInt(1));
+                }
+            }
+        }
+        return fined;
+    }
+    
+    // Returns the loans as the desk does one by one: a fine for overdue items that have none
+    // outstanding, the copy back on the shelf and the member's loan count
+    public ReturnBatch returnLoans(List<Loan> loans) {
+        List<Loan> active = loans.stream().filter(l -> "Active".equals(l.getStatus())).collect(Collectors.toList());
+        if (active.isEmpty()) {
+            return new ReturnBatch(List.of(), List.of());
+        }
+        LocalDate today = LibraryClock.today();
+        List<Fine> fines = new ArrayList<>();
+        Map<Integer, Integer> copiesByMedia = new LinkedHashMap<>();
+        Set<Integer> memberIds = new LinkedHashSet<>();
+        for (Loan loan : active) {
+            copiesByMedia.merge(loan.getMedia().getId(), 1, Integer::sum);
+            memberIds.add(loan.getMember().getId());
+        }
+        
+        List<List<FineLedger.Posting>> postings;
+        try {
+            postings = inTransaction(() -> {
+                // Decided in the transaction, before the loans stop being overdue
+                fines.addAll(returnFines(active));
+                String returnSql = "UPDATE loans SET return_date = ?, status = 'Returned', version = version + 1 WHERE id = ? AND version = ?";
+                try (PreparedStatement stmt = connection.prepareStatement(returnSql)) {
+                    for (Loan loan : active) {
+                        stmt.setDate(1, Date.valueOf(today));
+                        stmt.setInt(2, loan.getId());
+                        stmt.setInt(3, loan.getVersion());
+                        stmt.addBatch();
+                    }
+                    checkBatch(stmt.executeBatch(), "loan", active.stream().map(Loan::getId).collect(Collectors.toList()));
+                }
+                List<List<FineLedger.Posting>> finePostings = insertFines(fines);
+                
+                // Same guard as a single return: never more copies on the shelf than exist
+                String copiesSql = "UPDATE media SET available_copies = available_copies + ?, version = version + 1 " +
+                                   "WHERE id = ? AND available_copies + ? BETWEEN 0 AND total_copies";
+                try (PreparedStatement stmt = connection.prepareStatement(copiesSql)) {
+                    for (Map.Entry<Integer, Integer> copies : copiesByMedia.entrySet()) {
+                        stmt.setInt(1, copies.getValue());
+                        stmt.setInt(2, copies.getKey());
+                        stmt.setInt(3, copies.getValue());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+                String countSql = "UPDATE members SET current_loans = (SELECT COUNT(*) FROM loans WHERE member_id = ? AND status = 'Active'), version = version + 1 WHERE id = ?";
+                try (PreparedStatement stmt = connection.prepareStatement(countSql)) {
+                    for (int memberId : memberIds) {
+                        stmt.setInt(1, memberId);
+                        stmt.setInt(2, memberId);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+                markChanged();
+                return finePostings;
+            });
+        } catch (BulkConflictException e) {
+            checkVersion(0, e.entity, e.id);
+            return new ReturnBatch(List.of(), List.of());
+        } catch (SQLException e) {
+            System.err.println("Failed to return loans: " + e.getMessage());
+            return new ReturnBatch(List.of(), List.of());
+        }
+        
+        for (Loan loan : active) {
+            loan.setReturnDate(today);
+            loan.setStatus("Returned");
+            loan.setVersion(loan.getVersion() + 1);
+            overdueTracker.index(loan);
+            memberActivity.index(loan);
+        }
+        applyNewFines(fines, postings);
+        refreshMediaCopies(copiesByMedia.keySet());
+        republish(loansCache, new HashSet<>(active));
+        republish(membersCache, refreshMemberCounters(memberIds));
+        exportToSQLFile();
+        return new ReturnBatch(active, fines);
+    }
+    
+    // Issues the policy fine for each selected overdue loan that has no outstanding fine yet.
+    // Returns the fines created
+    public List<Fine> fineOverdueLoans(List<Loan> loans) {
+        LocalDate today = LibraryClock.today();
+        List<Loan> overdue = loans.stream().filter(Loan::isOverdue).collect(Collectors.toList());
+        if (overdue.isEmpty()) {
+            return List.of();
+        }
+        List<Fine> fines = new ArrayList<>();
+        List<List<FineLedger.Posting>> postings;
+        try {
+            postings = inTransaction(() -> {
+                Set<Integer> alreadyFined = loansWithOutstandingFine(overdue);
+                for (Loan loan : overdue) {
+                    if (!alreadyFined.contains(loan.getId())) {
+                        Fine fine = overdueFine(loan, loan.getMember(), loan.getDaysOverdue(), today);
+                        if (fine != null) {
+                            fines.add(fine);
+                        }
+                    }
+                }
+                List<List<FineLedger.Posting>> finePostings = insertFines(fines);
+                if (!fines.isEmpty()) {
+                    markChanged();
+                }
+                return finePostings;
+            });
+        } catch (SQLException e) {
+            System.err.println("Failed to fine overdue loans: " + e.getMessage());
+            fines.forEach(fine -> fine.setId(0));
+            return List.of();
+        }
+        
+        applyNewFines(fines, postings);
+        if (!fines.isEmpty()) {
+            exportToSQLFile();
+        }
+        return fines;
+    }
+    
+    // Returns the members that were suspended (members already suspended are left alone)
+    public List<Member> suspendMembers(Collection<Member> members) {
+        List<Member> toSuspend = members.stream()
+            .filter(m -> !"Suspended".equals(m.getStatus()))
+            .distinct()
+            .collect(Collectors.toList());
+        if (toSuspend.isEmpty()) {
+            return List.of();
+        }
+        try {
+            inTransaction(() -> {
+                String sql = "UPDATE members SET status = 'Suspended', version = version + 1 WHERE id = ? AND version = ?";
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    for (Member member : toSuspend) {
+                        stmt.setInt(1, member.getId());
+                        stmt.setInt(2, member.getVersion());
+                        stmt.addBatch();
+                    }
+                    checkBatch(stmt.executeBatch(), "member", toSuspend.stream().map(Member::getId).collect(Collectors.toList()));
+                }
+                markChanged();
+                return null;
+            });
+        } catch (BulkConflictException e) {
+            checkVersion(0, e.entity, e.id);
+            return List.of();
+        } catch (SQLException e) {
+            System.err.println("Failed to suspend members: " + e.getMessage());
+            return List.of();
+        }
+        
+        for (Member member : toSuspend) {
+            member.setStatus("Suspended");
+            member.setVersion(member.getVersion() + 1);
+            invalidateMemberSearches(member);
+            eligibility.refresh(member);
+        }
+        republish(membersCache, new HashSet<>(toSuspend));
+        exportToSQLFile();
+        return toSuspend;
+    }
+    
+    private static void checkBatch(int[] updatedRows, String entity, List<Integer> ids) throws BulkConflictException {
+        for (int i = 0; i < updatedRows.length; i++) {
+            if (updatedRows[i] == 0) {
+                throw new BulkConflictException(entity, ids.get(i));
+            }
+        }
+    }
+    
+    // For TABLE(ID INT = ?), joined to look a set of ids up by index in one statement;
+    // H2 checks "id = ANY(?)" against every row of the table instead
+    private java.sql.Array idArray(Collection<Integer> ids) throws SQLException {
+        return connection.createArrayOf("INTEGER", ids.toArray());
+    }
+    
+    // Reads back the counters a bulk update changed relative to the stored value
+    private void refreshMediaCopies(Collection<Integer> mediaIds) {
+        String sql = "SELECT m.id, m.available_copies, m.version FROM media m JOIN TABLE(ID INT = ?) t ON m.id = t.ID";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setArray(1, idArray(mediaIds));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Media media = mediaById.get(rs.getInt("id"));
+                    if (media != null) {
+                        media.setAvailableCopies(rs.getInt("available_copies"));
+                        media.setVersion(rs.getInt("version"));
+                        mediaFacetIndex.index(media);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Failed to refresh media: " + e.getMessage());
+        }
+    }
+    
+    private Set<Member> refreshMemberCounters(Collection<Integer> memberIds) {
+        Set<Member> refreshed = new HashSet<>();
+        String sql = "SELECT m.id, m.current_loans, m.version FROM members m JOIN TABLE(ID INT = ?) t ON m.id = t.ID";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setArray(1, idArray(memberIds));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Member member = membersById.get(rs.getInt("id"));
+                    if (member != null) {
+                        member.setCurrentLoans(rs.getInt("current_loans"));
+                        member.setVersion(rs.getInt("version"));
+                        eligibility.refresh(member);
+                        refreshed.add(member);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Failed to refresh members: " + e.getMessage());
+        }
+        return refreshed;
+    }
+    
+    // Re-sets the changed items in one pass over the cache (instead of an indexOf per item),
+    // so list listeners see them as updated; the views' debounced filters coalesce the burst
+    private static <T> void republish(ObservableList<T> cache, Set<T> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < cache.size(); i++) {
+            T item = cache.get(i);
+            if (changed.contains(item)) {
+                cache.set(i, item);
+            }
+        }
+    }
+    
+    // Job runs (batch scheduler)
+    
+    // Claims a job's run for one schedule slot and returns it with its checkpoint,
+    // or null if the slot is done or another desk holds a live lease on it
+    public JobRun claimJobRun(String jobName, String runKey, String owner, long leaseMillis) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            JobRun existing = findJobRun(jobName, runKey);
+            if (existing == null) {
+                String sql = "INSERT INTO job_runs (job_name, run_key, status, owner, started_at, heartbeat_at) VALUES (?, ?, ?, ?, ?, ?)";
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    stmt.setString(1, jobName);
+                    stmt.setString(2, runKey);
+                    stmt.setString(3, JobRun.RUNNING);
+                    stmt.setString(4, owner);
+                    stmt.setTimestamp(5, now);
+                    stmt.setTimestamp(6, now);
+                    stmt.executeUpdate();
+                } catch (SQLIntegrityConstraintViolationException e) {
+                    // Another desk claimed the slot first
+                    return null;
+                }
+                return findJobRun(jobName, runKey);
+            }
+            if (JobRun.SUCCEEDED.equals(existing.status())) {
+                return null;
+            }
+            
+            String sql = "UPDATE job_runs SET status = ?, owner = ?, heartbeat_at = ?, finished_at = NULL, message = NULL WHERE id = ? AND (status <> ? OR heartbeat_at < ?)";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, JobRun.RUNNING);
+                stmt.setString(2, owner);
+                stmt.setTimestamp(3, now);
+                stmt.setInt(4, existing.id());
+                stmt.setString(5, JobRun.RUNNING);
+                stmt.setTimestamp(6, Timestamp.valueOf(LocalDateTime.now().minus(Duration.ofMillis(leaseMillis))));
+                if (stmt.executeUpdate() == 0) {
+                    return null;
+                }
+            }
+            return findJobRun(jobName, runKey);
+        } catch (SQLException e) {
+            System.err.println("Failed to claim job run " + jobName + " (" + runKey + "): " + e.getMessage());
+            return null;
+        }
+    }
+    
+    // Stores the checkpoint after a chunk; doubles as the lease heartbeat.
+    // Returns false if the owner no longer holds the run (another desk took it over)
+    public boolean saveJobProgress(int runId, String owner, String checkpoint, int processed) {
+        String sql = "UPDATE job_runs SET checkpoint = ?, items_processed = items_processed + ?, chunks = chunks + 1, heartbeat_at = ? WHERE id = ? AND owner = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, checkpoint);
+            stmt.setInt(2, processed);
+            stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.setInt(4, runId);
+            stmt.setString(5, owner);
+            return stmt.executeUpdate() == 1;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to save job progress: " + e.getMessage(), e);
+        }
+    }
+    
+    // Only the current owner may close a run
+    public boolean finishJobRun(int runId, String owner, String status, String message) {
+        String sql = "UPDATE job_runs SET status = ?, finished_at = ?, message = ? WHERE id = ? AND owner = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, status);
+            stmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.setString(3, message != null && message.length() > 255 ? message.substring(0, 255) : message);
+            stmt.setInt(4, runId);
+            stmt.setString(5, owner);
+            boolean updated = stmt.executeUpdate() == 1;
+            exportToSQLFile();
+            return updated;
+        } catch (SQLException e) {
+            System.err.println("Failed to finish job run: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    // Most recent runs first
+    public List<JobRun> getJobRuns(String jobName, int limit) {
+        return queryJobRuns("SELECT * FROM job_runs WHERE job_name = ? ORDER BY id DESC LIMIT " + limit, jobName);
+    }
+    
+    public List<JobRun> getUnfinishedJobRuns(String jobName) {
+        return queryJobRuns("SELECT * FROM job_runs WHERE job_name = ? AND status = '" + JobRun.RUNNING + "' ORDER BY id", jobName);
+    }
+    
+    private JobRun findJobRun(String jobName, String runKey) throws SQLException {
+        String sql = "SELECT * FROM job_runs WHERE job_name = ? AND run_key = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, jobName);
+            stmt.setString(2, runKey);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapJobRun(rs) : null;
+            }
+        }
+    }
+    
+    private List<JobRun> queryJobRuns(String sql, String jobName) {
+        List<JobRun> runs = new ArrayList<>();
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, jobName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    runs.add(mapJobRun(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Failed to load job runs: " + e.getMessage());
+        }
+        return runs;
+    }
+    
+    private static JobRun mapJobRun(ResultSet rs) throws SQLException {
+        return new JobRun(
+            rs.getInt("id"),
+            rs.getString("job_name"),
+            rs.getString("run_key"),
+            rs.getString("status"),
+            rs.getString("checkpoint"),
+            rs.getInt("items_processed"),
+            rs.getInt("chunks"),
+            rs.getString("owner"),
+            toLocalDateTime(rs.getTimestamp("started_at")),
+            toLocalDateTime(rs.getTimestamp("heartbeat_at")),
+            toLocalDateTime(rs.getTimestamp("finished_at")),
+            rs.getString("message")
+        );
+    }
+    
+    // Notification outbox
+    
+    // Queues one notice per overdue loan whose member has an email address, in a single statement;
+    // loans that already have this notice waiting are skipped. The dispatcher renders the text when sending.
+    public int enqueueOverdueNotices(String template) {
+        return enqueueOverdueNotices(template, null);
+    }
+    
+    // Same, limited to the given loans (a selection in the overdue list)
+    public int enqueueOverdueNotices(String template, List<Loan> loans) {
+        if (loans != null && loans.isEmpty()) {
+            return 0;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String sql = """
+            INSERT INTO notification_outbox (member_id, loan_id, recipient, template, status, attempts, next_attempt_at, created_at)
+            SELECT l.member_id, l.id, m.email, ?, ?, 0, ?, ?
+            FROM loans l JOIN members m ON m.id = l.member_id
+            """ + (loans != null ? "JOIN TABLE(ID INT = ?) t ON l.id = t.ID\n" : "") + """
+            WHERE l.status = 'Active' AND l.due_date < ? AND m.email IS NOT NULL AND m.email <> ''
+              AND NOT EXISTS (SELECT 1 FROM notification_outbox o
+                              WHERE o.loan_id = l.id AND o.template = ? AND o.status IN (?, ?))
+            """;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int param = 1;
+            stmt.setString(param++, template);
+            stmt.setString(param++, OutboxMessage.PENDING);
+            stmt.setTimestamp(param++, now);
+            stmt.setTimestamp(param++, now);
+            if (loans != null) {
+                stmt.setArray(param++, idArray(loans.stream().map(Loan::getId).collect(Collectors.toList())));
+            }
+            stmt.setDate(param++, Date.valueOf(LibraryClock.today()));
+            stmt.setString(param++, template);
+            stmt.setString(param++, OutboxMessage.PENDING);
+            stmt.setString(param, OutboxMessage.SENDING);
+            int queued = stmt.executeUpdate();
+            exportToSQLFile();
+            return queued;
+        } catch (SQLException e) {
+            System.err.println("Failed to queue overdue notices: " + e.getMessage());
+            return 0;
+        }
+    }
+    
+    // Due-soon reminders: active loans due after date and at most daysBefore days later. The range
+    // comes from the (status, due_date) index; loan_reminders holds the loans already reminded for
+    // their current due date, so a renewed loan is reminded again for its new date
+    private static final String DUE_SOON_CANDIDATES_SQL = """
+        SELECT l.id, l.member_id, l.due_date, m.email
+        FROM loans l JOIN members m ON m.id = l.member_id
+        WHERE l.status = 'Active' AND l.due_date > ? AND l.due_date <= ? AND l.id > ?
+          AND m.email IS NOT NULL AND m.email <> ''
+          AND NOT EXISTS (SELECT 1 FROM loan_reminders r WHERE r.loan_id = l.id AND r.due_date = l.due_date)
+        ORDER BY l.id
+        LIMIT ?
+        """;
+    
+    // One chunk of the reminder run: up to limit loans with an id above afterLoanId, in id order.
+    // The notices and the loan_reminders rows are written in one transaction, so a loan is either
+    // queued and recorded or neither; the dispatcher renders the text when sending. Throws if the
+    // chunk could not be written, so the job run fails and is retried rather than skipping loans
+    public ReminderBatch queueDueSoonReminders(LocalDate date, int daysBefore, String template, int afterLoanId, int limit) {
+        record Candidate(int loanId, int memberId, Date dueDate, String email) {}
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        ReminderBatch batch;
+        try {
+            batch = inTransaction(() -> {
+                List<Candidate> candidates = new ArrayList<>();
+                try (PreparedStatement stmt = connection.prepareStatement(DUE_SOON_CANDIDATES_SQL)) {
+                    stmt.setDate(1, Date.valueOf(date));
+                    stmt.setDate(2, Date.valueOf(date.plusDays(daysBefore)));
+                    stmt.setInt(3, afterLoanId);
+                    stmt.setInt(4, limit);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            candidates.add(new Candidate(rs.getInt("id"), rs.getInt("member_id"),
+                                rs.getDate("due_date"), rs.getString("email")));
+                        }
+                    }
+                }
+                if (candidates.isEmpty()) {
+                    return new ReminderBatch(0, afterLoanId, true);
+                }
+                
+                String outboxSql = "INSERT INTO notification_outbox (member_id, loan_id, recipient, template, status, attempts, next_attempt_at, created_at) VALUES (?, ?, ?, ?, ?, 0, ?, ?)";
+                String reminderSql = "INSERT INTO loan_reminders (loan_id, due_date, template, reminded_at) VALUES (?, ?, ?, ?)";
+                try (PreparedStatement outbox = connection.prepareStatement(outboxSql);
+                     PreparedStatement reminders = connection.prepareStatement(reminderSql)) {
+                    for (Candidate candidate : candidates) {
+                        outbox.setInt(1, candidate.memberId());
+                        outbox.setInt(2, candidate.loanId());
+                        outbox.setString(3, candidate.email());
+                        outbox.setString(4, template);
+                        outbox.setString(5, OutboxMessage.PENDING);
+                        outbox.setTimestamp(6, now);
+                        outbox.setTimestamp(7, now);
+                        outbox.addBatch();
+                        
+                        reminders.setInt(1, candidate.loanId());
+                        reminders.setDate(2, candidate.dueDate());
+                        reminders.setString(3, template);
+                        reminders.setTimestamp(4, now);
+                        reminders.addBatch();
+                    }
+                    outbox.executeBatch();
+                    reminders.executeBatch();
+                }
+                markChanged();
+                int lastLoanId = candidates.get(candidates.size() - 1).loanId();
+                return new ReminderBatch(candidates.size(), lastLoanId, candidates.size() < limit);
+            });
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to queue due-soon reminders: " + e.getMessage(), e);
+        }
+        if (batch.queued() > 0) {
+            exportToSQLFile();
+        }
+        return batch;
+    }
+    
+    // Drops the reminder records of due dates up to date; the reminder window only looks ahead of it
+    public int purgeReminders(LocalDate date) {
+        try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM loan_reminders WHERE due_date <= ?")) {
+            stmt.setDate(1, Date.valueOf(date));
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Failed to purge loan reminders: " + e.getMessage());
+            return 0;
+        }
+    }
+    
+    // Queues a message that was already written (e.g. edited in the contact dialog)
+    public boolean enqueueNotification(Member member, Loan loan, String template, String subject, String body) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String sql = "INSERT INTO notification_outbox (member_id, loan_id, recipient, template, subject, body, status, attempts, next_attempt_at, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, 0, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, member.getId());
+            stmt.setObject(2, loan != null ? loan.getId() : null, Types.INTEGER);
+            stmt.setString(3, member.getEmail());
+            stmt.setString(4, template);
+            stmt.setString(5, subject);
+            stmt.setString(6, body);
+            stmt.setString(7, OutboxMessage.PENDING);
+            stmt.setTimestamp(8, now);
+            stmt.setTimestamp(9, now);
+            stmt.executeUpdate();
+            exportToSQLFile();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Failed to queue notification: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    // Takes up to limit due notices for sending. A row is only handed out if this desk
+    // moved it from Pending to Sending, so several desks can dispatch from the same outbox.
+    public List<OutboxMessage> claimNotifications(int limit) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<OutboxMessage> due = new ArrayList<>();
+        String select = "SELECT * FROM notification_outbox WHERE status = ? AND next_attempt_at <= ? ORDER BY next_attempt_at, id LIMIT " + limit;
+        try {
+            try (PreparedStatement stmt = connection.prepareStatement(select)) {
+                stmt.setString(1, OutboxMessage.PENDING);
+                stmt.setTimestamp(2, now);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        due.add(new OutboxMessage(
+                            rs.getLong("id"),
+                            rs.getInt("member_id"),
+                            rs.getInt("loan_id"),
+                            rs.getString("recipient"),
+                            rs.getString("template"),
+                            rs.getString("subject"),
+                            rs.getString("body"),
+                            rs.getString("status"),
+                            rs.getInt("attempts")
+                        ));
+                    }
+                }
+            }
+            if (due.isEmpty()) {
+                return due;
+            }
             
-            if (!fineExists) {
-                Fine fine = new Fine(0, loan.getMember(), loan, 
-                    loan.calculateFine(), "Overdue return - " + loan.getDaysOverdue() + " days late");
-                addFine(fine);
+            int[] claimed = inTransaction(() -> {
+                String sql = "UPDATE notification_outbox SET status = ?, claimed_at = ? WHERE id = ? AND status = ?";
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    for (OutboxMessage message : due) {
+                        stmt.setString(1, OutboxMessage.SENDING);
+                        stmt.setTimestamp(2, now);
+                        stmt.setLong(3, message.id());
+                        stmt.setString(4, OutboxMessage.PENDING);
+                        stmt.addBatch();
+                    }
+                    return stmt.executeBatch();
+                }
+            });
+            List<OutboxMessage> result = new ArrayList<>(due.size());
+            for (int i = 0; i < due.size(); i++) {
+                if (claimed[i] > 0) {
+                    result.add(due.get(i));
+                }
+            }
+            return result;
+        } catch (SQLException e) {
+            System.err.println("Failed to claim notifications: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+    
+    // Stores the delivery outcome of a claimed batch in one transaction
+    public boolean recordNotificationResults(List<OutboxMessage.Outcome> outcomes) {
+        if (outcomes.isEmpty()) {
+            return true;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String sql = "UPDATE notification_outbox SET status = ?, attempts = attempts + 1, subject = COALESCE(?, subject), next_attempt_at = COALESCE(?, next_attempt_at), last_error = ?, sent_at = ?, claimed_at = NULL WHERE id = ?";
+        try {
+            inTransaction(() -> {
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    for (OutboxMessage.Outcome outcome : outcomes) {
+                        String error = outcome.error();
+                        stmt.setString(1, outcome.status());
+                        stmt.setString(2, outcome.subject() != null && outcome.subject().length() > 255
+                            ? outcome.subject().substring(0, 255) : outcome.subject());
+                        stmt.setTimestamp(3, outcome.nextAttemptAt() != null ? Timestamp.valueOf(outcome.nextAttemptAt()) : null);
+                        stmt.setString(4, error != null && error.length() > 255 ? error.substring(0, 255) : error);
+                        stmt.setTimestamp(5, OutboxMessage.SENT.equals(outcome.status()) ? now : null);
+                        stmt.setLong(6, outcome.id());
+                        stmt.addBatch();
+                    }
+                    return stmt.executeBatch();
+                }
+            });
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Failed to record notification results: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    // Hands notices back whose sender died mid-batch, once the claim is older than the lease
+    public int releaseStaleNotifications(long leaseMillis) {
+        String sql = "UPDATE notification_outbox SET status = ?, claimed_at = NULL WHERE status = ? AND claimed_at < ?";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, OutboxMessage.PENDING);
+            stmt.setString(2, OutboxMessage.SENDING);
+            stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now().minus(Duration.ofMillis(leaseMillis))));
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Failed to release stale notifications: " + e.getMessage());
+            return 0;
+        }
+    }
+    
+    // Drops delivered, failed and cancelled notices older than the retention period
+    public int purgeNotifications(int keepDays) {
+        String sql = "DELETE FROM notification_outbox WHERE status IN (?, ?, ?) AND created_at < ?";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, OutboxMessage.SENT);
+            stmt.setString(2, OutboxMessage.FAILED);
+            stmt.setString(3, OutboxMessage.CANCELLED);
+            stmt.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now().minusDays(keepDays)));
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Failed to purge notifications: " + e.getMessage());
+            return 0;
+        }
+    }
+    
+    public Map<String, Integer> getNotificationCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT status, COUNT(*) AS n FROM notification_outbox GROUP BY status ORDER BY status")) {
+            while (rs.next()) {
+                counts.put(rs.getString("status"), rs.getInt("n"));
             }
+        } catch (SQLException e) {
+            System.err.println("Failed to count notifications: " + e.getMessage());
         }
+        return counts;
+    }
+    
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
     }
     
     public void closeConnection() {
+        if (syncPoller != null) {
+            syncPoller.shutdownNow();
+        }
         try {
             if (connection != null && !connection.isClosed()) {
                 connection.close();
@@ -1238,5 +3222,8 @@ public class DatabaseManager {
         } catch (SQLException e) {
             System.err.println("Failed to close database connection: " + e.getMessage());
         }
+        if (tcpServer != null) {
+            tcpServer.stop();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.library.service;
+
+import com.library.util.LibraryClock;
+
+import java.time.LocalDate;
+
+/**
+ * Morning reminder run: queues a notice for every active loan that falls due
+ * within the next few days, so items come back before they are overdue.
+ * Candidates are read from the loans' (status, due_date) index, never from the
+ * loan history, and each loan is recorded in loan_reminders for its due date,
+ * so reruns and other desks skip it. The dispatcher renders the queued notices
+ * per template in one pass when it sends them.
+ */
+public class DueSoonRemindersJob implements BatchJob {
+    public static final String NAME = "due-soon-reminders";
+    private static final int CHUNK_SIZE = 5000;
+    
+    private final DatabaseManager dbManager;
+    private final int daysBefore;
+    private final String template;
+    
+    public DueSoonRemindersJob(DatabaseManager dbManager, int daysBefore, String template) {
+        this.dbManager = dbManager;
+        this.daysBefore = daysBefore;
+        this.template = template;
+    }
+    
+    @Override
+    public String getName() {
+        return NAME;
+    }
+    
+    // Checkpoint: "business date|last examined loan id", as for the fine run
+    @Override
+    public Chunk processChunk(String checkpoint) {
+        if (!NoticeTemplates.getInstance().contains(template)) {
+            throw new IllegalStateException("Unknown notice template: " + template);
+        }
+        LocalDate date = LibraryClock.today();
+        int afterLoanId = 0;
+        if (checkpoint != null) {
+            String[] parts = checkpoint.split("\\|");
+            date = LocalDate.parse(parts[0]);
+            afterLoanId = Integer.parseInt(parts[1]);
+        } else {
+            // Reminders for due dates already reached can never match the window again
+            dbManager.purgeReminders(date);
+        }
+        
+        ReminderBatch batch = dbManager.queueDueSoonReminders(date, daysBefore, template, afterLoanId, CHUNK_SIZE);
+        if (batch.complete() || batch.lastLoanId() <= afterLoanId) {
+            return Chunk.done(batch.queued());
+        }
+        return new Chunk(batch.queued(), date + "|" + batch.lastLoanId());
+    }
+}
@@ -0,0 +1,126 @@
+package com.library.service;
+
+import com.library.model.Media;
+import com.library.model.Member;
+import com.library.util.LibraryClock;
+import com.library.util.Money;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Who may check out right now: one bit per member id, set when the member is
+ * active, below their loan limit, has no more overdue items than allowed and
+ * owes no more than the fine threshold. Bits are refreshed from the member
+ * aggregates whenever a member, loan or fine changes, and all at once when the
+ * business date moves on (loans fall overdue at midnight), so a checkout check
+ * is a bit lookup.
+ */
+public class EligibilityEngine {
+    public enum Reason {
+        OK("Eligible"),
+        INACTIVE("Member is not active"),
+        LOAN_LIMIT("Member is at the loan limit"),
+        OVERDUE("Member has overdue items"),
+        FINES("Member's outstanding fines are over the limit"),
+        UNAVAILABLE("Media is not available");
+        
+        private final String message;
+        
+        Reason(String message) {
+            this.message = message;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+    }
+    
+    private final Function<Member, MemberStats> statsSource;
+    private final int maxOverdueLoans;
+    private final long maxOutstandingCents;
+    private final BitSet eligible = new BitSet();
+    private Collection<Member> members = List.of();
+    private LocalDate computedFor;
+    
+    public EligibilityEngine(Function<Member, MemberStats> statsSource, int maxOverdueLoans, long maxOutstandingCents) {
+        this.statsSource = statsSource;
+        this.maxOverdueLoans = maxOverdueLoans;
+        this.maxOutstandingCents = maxOutstandingCents;
+    }
+    
+    public synchronized void rebuild(Collection<Member> members) {
+        this.members = members;
+        eligible.clear();
+        for (Member member : members) {
+            eligible.set(member.getId(), evaluate(member) == Reason.OK);
+        }
+        computedFor = LibraryClock.today();
+    }
+    
+    public synchronized void refresh(Member member) {
+        if (member != null) {
+            eligible.set(member.getId(), evaluate(member) == Reason.OK);
+        }
+    }
+    
+    public synchronized void remove(Member member) {
+        eligible.clear(member.getId());
+    }
+    
+    public synchronized boolean canBorrow(Member member) {
+        ensureCurrent();
+        return member != null && eligible.get(member.getId());
+    }
+    
+    public boolean canBorrow(Member member, Media media) {
+        return canBorrow(member) && media != null && media.isAvailable();
+    }
+    
+    // Why a checkout would be refused; only evaluates the rules when the bit says no
+    public synchronized Reason check(Member member, Media media) {
+        Reason reason = canBorrow(member) ? Reason.OK : evaluate(member);
+        if (reason == Reason.OK && (media == null || !media.isAvailable())) {
+            return Reason.UNAVAILABLE;
+        }
+        return reason;
+    }
+    
+    // The fine rule on its own, for renewals: a loan is only extended while the member could still borrow
+    public boolean isOverFineLimit(long outstandingCents) {
+        return outstandingCents > maxOutstandingCents;
+    }
+    
+    public String describe(Reason reason) {
+        if (reason == Reason.FINES) {
+            return reason.getMessage() + " (" + Money.format(maxOutstandingCents) + ")";
+        }
+        return reason.getMessage();
+    }
+    
+    private void ensureCurrent() {
+        if (!LibraryClock.today().equals(computedFor)) {
+            rebuild(members);
+        }
+    }
+    
+    private Reason evaluate(Member member) {
+        if (!member.isActive()) {
+            return Reason.INACTIVE;
+        }
+        MemberStats stats = statsSource.apply(member);
+        if (stats.activeLoans() >= member.getMaxLoans()) {
+            return Reason.LOAN_LIMIT;
+        }
+        if (stats.overdueLoans() > maxOverdueLoans) {
+            return Reason.OVERDUE;
+        }
+        if (isOverFineLimit(stats.outstandingCents())) {
+            return Reason.FINES;
+        }
+        return Reason.OK;
+    }
+}
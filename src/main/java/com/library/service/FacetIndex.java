@@ -0,0 +1,175 @@
+package com.library.service;
+
+import com.library.model.Media;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Bitmap index per facet value (type, category, language, location,
+ * availability). A query ANDs the selected values' bitmaps and counts every
+ * facet value against the selections of the other facets, so the result set
+ * and all counts come from bitmap intersections instead of per-row predicates.
+ */
+public class FacetIndex {
+    public enum Facet { TYPE, CATEGORY, LANGUAGE, LOCATION, AVAILABILITY }
+    
+    public static final String AVAILABLE = "Available";
+    public static final String UNAVAILABLE = "Unavailable";
+    
+    /**
+     * Matching media ids, plus per facet the number of matches each value would
+     * have if it were selected instead (the usual "drill sideways" counts).
+     */
+    public record Result(Set<Integer> mediaIds, Map<Facet, Map<String, Integer>> counts) {}
+    
+    // Media are addressed by a dense slot so the bitmaps stay small; slots of deleted media are reused
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+    private int[] idBySlot = new int[1024];
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private int nextSlot;
+    
+    private final Map<Facet, Map<String, BitSet>> bitmaps = new EnumMap<>(Facet.class);
+    // slot -> indexed value per facet, needed to clear the old bits when a media item changes
+    private final Map<Integer, Map<Facet, String>> valuesBySlot = new HashMap<>();
+    private final BitSet allSlots = new BitSet();
+    
+    public FacetIndex() {
+        for (Facet facet : Facet.values()) {
+            bitmaps.put(facet, new TreeMap<>());
+        }
+    }
+    
+    public synchronized void rebuild(Collection<Media> media) {
+        slotById.clear();
+        freeSlots.clear();
+        nextSlot = 0;
+        valuesBySlot.clear();
+        allSlots.clear();
+        for (Map<String, BitSet> values : bitmaps.values()) {
+            values.clear();
+        }
+        for (Media m : media) {
+            addMedia(m);
+        }
+    }
+    
+    // Adds a media item or re-indexes it after an update (including availability changes)
+    public synchronized void index(Media media) {
+        removeMedia(media.getId());
+        addMedia(media);
+    }
+    
+    public synchronized void remove(Media media) {
+        removeMedia(media.getId());
+    }
+    
+    /**
+     * Media matching all selections (facets missing from the map are not
+     * filtered), optionally restricted to the ids of a text search.
+     */
+    public synchronized Result query(Map<Facet, String> selections, Set<Integer> restrictTo) {
+        BitSet base = (BitSet) allSlots.clone();
+        if (restrictTo != null) {
+            BitSet restricted = new BitSet();
+            for (Integer id : restrictTo) {
+                Integer slot = slotById.get(id);
+                if (slot != null) {
+                    restricted.set(slot);
+                }
+            }
+            base.and(restricted);
+        }
+        
+        // For each facet: base AND all other facets' selections
+        Map<Facet, BitSet> others = new EnumMap<>(Facet.class);
+        for (Facet facet : Facet.values()) {
+            others.put(facet, (BitSet) base.clone());
+        }
+        for (Map.Entry<Facet, String> selection : selections.entrySet()) {
+            BitSet selected = bitmaps.get(selection.getKey()).getOrDefault(selection.getValue(), new BitSet());
+            for (Facet facet : Facet.values()) {
+                if (facet != selection.getKey()) {
+                    others.get(facet).and(selected);
+                }
+            }
+        }
+        
+        Map<Facet, Map<String, Integer>> counts = new EnumMap<>(Facet.class);
+        BitSet matches = null;
+        for (Facet facet : Facet.values()) {
+            BitSet sideways = others.get(facet);
+            Map<String, Integer> facetCounts = new TreeMap<>();
+            for (Map.Entry<String, BitSet> value : bitmaps.get(facet).entrySet()) {
+                BitSet hits = (BitSet) value.getValue().clone();
+                hits.and(sideways);
+                facetCounts.put(value.getKey(), hits.cardinality());
+            }
+            counts.put(facet, facetCounts);
+            
+            // The result is the sideways set of any facet narrowed by that facet's own selection
+            if (matches == null) {
+                matches = (BitSet) sideways.clone();
+                String own = selections.get(facet);
+                if (own != null) {
+                    matches.and(bitmaps.get(facet).getOrDefault(own, new BitSet()));
+                }
+            }
+        }
+        
+        Set<Integer> mediaIds = new LinkedHashSet<>();
+        for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+            mediaIds.add(idBySlot[slot]);
+        }
+        return new Result(mediaIds, counts);
+    }
+    
+    private void addMedia(Media media) {
+        int slot = freeSlots.isEmpty() ? nextSlot++ : freeSlots.pop();
+        slotById.put(media.getId(), slot);
+        if (slot >= idBySlot.length) {
+            idBySlot = Arrays.copyOf(idBySlot, idBySlot.length * 2);
+        }
+        idBySlot[slot] = media.getId();
+        allSlots.set(slot);
+        
+        Map<Facet, String> values = new EnumMap<>(Facet.class);
+        values.put(Facet.TYPE, media.getType());
+        values.put(Facet.CATEGORY, media.getCategoryName());
+        values.put(Facet.LANGUAGE, media.getLanguage());
+        values.put(Facet.LOCATION, media.getLocation());
+        values.put(Facet.AVAILABILITY, media.isAvailable() ? AVAILABLE : UNAVAILABLE);
+        values.values().removeIf(value -> value == null || value.isBlank());
+        
+        for (Map.Entry<Facet, String> value : values.entrySet()) {
+            bitmaps.get(value.getKey()).computeIfAbsent(value.getValue(), k -> new BitSet()).set(slot);
+        }
+        valuesBySlot.put(slot, values);
+    }
+    
+    private void removeMedia(int id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        allSlots.clear(slot);
+        for (Map.Entry<Facet, String> value : valuesBySlot.remove(slot).entrySet()) {
+            Map<String, BitSet> facetValues = bitmaps.get(value.getKey());
+            BitSet bits = facetValues.get(value.getValue());
+            bits.clear(slot);
+            if (bits.isEmpty()) {
+                facetValues.remove(value.getValue());
+            }
+        }
+        freeSlots.push(slot);
+    }
+}
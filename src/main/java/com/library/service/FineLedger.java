@@ -0,0 +1,150 @@
+package com.library.service;
+
+import com.library.model.Fine;
+import com.library.util.Money;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running balances over the fine_transactions ledger, in cents. Every change to
+ * a fine is turned into postings (issue, payment, waiver, adjustment) that are
+ * written next to the fine row and applied here, so member and library totals
+ * are map lookups instead of sums over all fines.
+ */
+public class FineLedger {
+    public static final String ISSUE = "Issue";
+    public static final String PAYMENT = "Payment";
+    public static final String WAIVER = "Waiver";
+    public static final String ADJUSTMENT = "Adjustment";
+    
+    // Positive amounts raise the member's outstanding balance, negative ones settle it
+    public record Posting(int fineId, int memberId, String type, long amountCents) {}
+    
+    // What the ledger last saw of a fine: whose balance it counts towards and how much is still open
+    private record FineState(int memberId, long outstandingCents) {}
+    
+    private final Map<Integer, FineState> fineStates = new HashMap<>();
+    private final Map<Integer, Long> memberOutstanding = new HashMap<>();
+    private long outstandingCents;
+    private long paidCents;
+    private long waivedCents;
+    
+    // Balances come from the transaction sums, the per-fine state from the fines themselves
+    public synchronized void rebuild(Collection<Fine> fines, Map<Integer, Long> memberBalances, long paidCents, long waivedCents) {
+        fineStates.clear();
+        for (Fine fine : fines) {
+            fineStates.put(fine.getId(), stateOf(fine));
+        }
+        memberOutstanding.clear();
+        memberOutstanding.putAll(memberBalances);
+        memberOutstanding.values().removeIf(balance -> balance == 0);
+        outstandingCents = memberBalances.values().stream().mapToLong(Long::longValue).sum();
+        this.paidCents = paidCents;
+        this.waivedCents = waivedCents;
+    }
+    
+    // Postings that bring the ledger in line with the fine's current state; the fine must have its id
+    public synchronized List<Posting> postingsFor(Fine fine) {
+        List<Posting> postings = new ArrayList<>();
+        FineState newState = stateOf(fine);
+        FineState oldState = fineStates.get(fine.getId());
+        if (oldState == null) {
+            long amountCents = Money.toCents(fine.getAmount());
+            postings.add(new Posting(fine.getId(), newState.memberId(), ISSUE, amountCents));
+            oldState = new FineState(newState.memberId(), amountCents);
+        } else if (oldState.memberId() != newState.memberId() && oldState.outstandingCents() != 0) {
+            // Moved to another member: carry the open amount over
+            postings.add(new Posting(fine.getId(), oldState.memberId(), ADJUSTMENT, -oldState.outstandingCents()));
+            postings.add(new Posting(fine.getId(), newState.memberId(), ADJUSTMENT, oldState.outstandingCents()));
+        }
+        
+        long delta = newState.outstandingCents() - oldState.outstandingCents();
+        if (delta != 0) {
+            String type = ADJUSTMENT;
+            if (newState.outstandingCents() == 0 && fine.isPaid()) {
+                type = PAYMENT;
+            } else if (newState.outstandingCents() == 0 && "Waived".equals(fine.getStatus())) {
+                type = WAIVER;
+            }
+            postings.add(new Posting(fine.getId(), newState.memberId(), type, delta));
+        }
+        return postings;
+    }
+    
+    // Closes whatever is still open on a fine that is being deleted
+    public synchronized List<Posting> postingsForRemoval(Fine fine) {
+        FineState state = fineStates.get(fine.getId());
+        if (state == null || state.outstandingCents() == 0) {
+            return List.of();
+        }
+        return List.of(new Posting(fine.getId(), state.memberId(), ADJUSTMENT, -state.outstandingCents()));
+    }
+    
+    // Call once the postings are committed
+    public synchronized void apply(Fine fine, List<Posting> postings) {
+        for (Posting posting : postings) {
+            memberOutstanding.merge(posting.memberId(), posting.amountCents(), Long::sum);
+            memberOutstanding.remove(posting.memberId(), 0L);
+            outstandingCents += posting.amountCents();
+            if (PAYMENT.equals(posting.type())) {
+                paidCents -= posting.amountCents();
+            } else if (WAIVER.equals(posting.type())) {
+                waivedCents -= posting.amountCents();
+            }
+        }
+        fineStates.put(fine.getId(), stateOf(fine));
+    }
+    
+    public synchronized void applyRemoval(Fine fine, List<Posting> postings) {
+        apply(fine, postings);
+        fineStates.remove(fine.getId());
+    }
+    
+    public synchronized long getOutstandingCents(int memberId) {
+        return memberOutstanding.getOrDefault(memberId, 0L);
+    }
+    
+    public synchronized long getOutstandingCents() {
+        return outstandingCents;
+    }
+    
+    public synchronized long getPaidCents() {
+        return paidCents;
+    }
+    
+    public synchronized long getWaivedCents() {
+        return waivedCents;
+    }
+    
+    // Members whose ledger balance differs from the sum of their outstanding fines; empty when everything reconciles
+    public synchronized Map<Integer, Long> findDiscrepancies() {
+        Map<Integer, Long> expected = new HashMap<>();
+        for (FineState state : fineStates.values()) {
+            if (state.outstandingCents() != 0) {
+                expected.merge(state.memberId(), state.outstandingCents(), Long::sum);
+            }
+        }
+        Map<Integer, Long> discrepancies = new HashMap<>();
+        for (Map.Entry<Integer, Long> entry : memberOutstanding.entrySet()) {
+            long difference = entry.getValue() - expected.getOrDefault(entry.getKey(), 0L);
+            if (difference != 0) {
+                discrepancies.put(entry.getKey(), difference);
+            }
+        }
+        for (Map.Entry<Integer, Long> entry : expected.entrySet()) {
+            if (!memberOutstanding.containsKey(entry.getKey())) {
+                discrepancies.put(entry.getKey(), -entry.getValue());
+            }
+        }
+        return discrepancies;
+    }
+    
+    private static FineState stateOf(Fine fine) {
+        int memberId = fine.getMember() != null ? fine.getMember().getId() : 0;
+        return new FineState(memberId, fine.isOutstanding() ? Money.toCents(fine.getAmount()) : 0);
+    }
+}
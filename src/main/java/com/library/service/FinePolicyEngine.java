@@ -0,0 +1,108 @@
+package com.library.service;
+
+import com.library.model.FinePolicy;
+import com.library.model.Loan;
+import com.library.model.Media;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Resolves the fine policy for a media item. The policies from fine_policies are
+ * compiled into one row per category id with one slot per media type, so a
+ * lookup is two array accesses however many policies there are. Categories
+ * without a policy of their own share the type-only row.
+ */
+public class FinePolicyEngine {
+    private static final FinePolicyEngine INSTANCE = new FinePolicyEngine();
+
+    // Used until the policies are loaded, and when the table has no catch-all row
+    public static final FinePolicy DEFAULT_POLICY = new FinePolicy(0, null, null, 0.50, 0, 10.00, 0, 0.00);
+
+    private static final String[] MEDIA_TYPES = {"Book", "DVD", "CD", "Magazine", "Journal"};
+    private static final int OTHER_TYPE = MEDIA_TYPES.length;
+
+    private record Compiled(FinePolicy[][] byCategory, FinePolicy[] byType) {}
+
+    private volatile Compiled compiled = compile(List.of());
+
+    public static FinePolicyEngine getInstance() {
+        return INSTANCE;
+    }
+
+    public void load(Collection<FinePolicy> policies) {
+        compiled = compile(policies);
+    }
+
+    public FinePolicy policyFor(Media media) {
+        Compiled current = compiled;
+        if (media == null) {
+            return current.byType()[OTHER_TYPE];
+        }
+        int type = typeIndex(media.getType());
+        int categoryId = media.getCategory() != null ? media.getCategory().getId() : 0;
+        FinePolicy[] row = categoryId > 0 && categoryId < current.byCategory().length
+            ? current.byCategory()[categoryId]
+            : current.byType();
+        return row[type];
+    }
+
+    // Rate, grace days and cap come from the fine policy for the loan's media category and type
+    public double calculateFine(Loan loan) {
+        return loan.calculateFine(policyFor(loan.getMedia()));
+    }
+
+    private static Compiled compile(Collection<FinePolicy> policies) {
+        FinePolicy catchAll = find(policies, null, null);
+        if (catchAll == null) {
+            catchAll = DEFAULT_POLICY;
+        }
+        FinePolicy[] byType = new FinePolicy[OTHER_TYPE + 1];
+        for (int type = 0; type <= OTHER_TYPE; type++) {
+            FinePolicy typePolicy = type < OTHER_TYPE ? find(policies, null, MEDIA_TYPES[type]) : null;
+            byType[type] = typePolicy != null ? typePolicy : catchAll;
+        }
+
+        int maxCategoryId = policies.stream()
+            .map(FinePolicy::categoryId)
+            .filter(Objects::nonNull)
+            .mapToInt(Integer::intValue)
+            .max().orElse(0);
+        FinePolicy[][] byCategory = new FinePolicy[maxCategoryId + 1][];
+        for (int categoryId = 0; categoryId <= maxCategoryId; categoryId++) {
+            FinePolicy categoryPolicy = find(policies, categoryId, null);
+            boolean hasOwnPolicy = categoryPolicy != null;
+            FinePolicy[] row = new FinePolicy[OTHER_TYPE + 1];
+            for (int type = 0; type <= OTHER_TYPE; type++) {
+                FinePolicy exact = type < OTHER_TYPE ? find(policies, categoryId, MEDIA_TYPES[type]) : null;
+                hasOwnPolicy |= exact != null;
+                // Category + type, then category, then the type-only row
+                row[type] = exact != null ? exact : categoryPolicy != null ? categoryPolicy : byType[type];
+            }
+            byCategory[categoryId] = hasOwnPolicy ? row : byType;
+        }
+        return new Compiled(byCategory, byType);
+    }
+
+    private static FinePolicy find(Collection<FinePolicy> policies, Integer categoryId, String mediaType) {
+        for (FinePolicy policy : policies) {
+            if (Objects.equals(policy.categoryId(), categoryId) && Objects.equals(policy.mediaType(), mediaType)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    private static int typeIndex(String type) {
+        if (type == null) return OTHER_TYPE;
+        return switch (type) {
+            case "Book" -> 0;
+            case "DVD" -> 1;
+            case "CD" -> 2;
+            case "Magazine" -> 3;
+            case "Journal" -> 4;
+            default -> OTHER_TYPE;
+        };
+    }
+}
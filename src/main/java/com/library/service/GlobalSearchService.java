@@ -0,0 +1,211 @@
+package com.library.service;
+
+import com.library.model.Fine;
+import com.library.model.Loan;
+import com.library.model.Media;
+import com.library.model.Member;
+import com.library.util.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * One search over members, media, loans and fines under a shared latency budget.
+ * The loan and fine lists are copied and scanned in parallel on a fork-join pool
+ * while the calling thread queries the member and media indexes, which belong to
+ * the data thread and cannot be read from the pool. Each group's ranking then
+ * runs on the pool too. A group that is not done by the deadline, or whose
+ * index lookup would only start after it, is left out (and reported) instead of
+ * holding up the rest.
+ */
+public class GlobalSearchService {
+    public static final int DEFAULT_GROUP_LIMIT = 10;
+    public static final long DEFAULT_BUDGET_MILLIS = 150;
+    
+    public enum Group {
+        MEMBERS("Members", 1.0), MEDIA("Media", 1.0), LOANS("Loans", 0.8), FINES("Fines", 0.6);
+        
+        private final String label;
+        private final double weight;
+        
+        Group(String label, double weight) {
+            this.label = label;
+            this.weight = weight;
+        }
+        
+        public String getLabel() { return label; }
+    }
+    
+    // item is the Member, Media, Loan or Fine itself, so callers can open it
+    public record Hit(Group group, int id, String title, String detail, double score, Object item) {}
+    
+    // Groups in order of their best hit, each ranked within itself
+    public record Result(String query, Map<Group, List<Hit>> groups, Set<Group> timedOut, long elapsedMillis) {
+        public int size() {
+            return groups.values().stream().mapToInt(List::size).sum();
+        }
+    }
+    
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+    
+    private final DatabaseManager dbManager;
+    private final ForkJoinPool pool = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    
+    public GlobalSearchService(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+    
+    /**
+     * Must be called on the thread that owns the caches (the FX thread, or
+     * inside DatabaseManager.readData): the indexes are queried and the lists
+     * copied here, and the pool only works on those snapshots. The budget covers
+     * the lookups, but one that has started is not cut short.
+     */
+    public Result search(String searchTerm, int groupLimit, long budgetMillis) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        String query = TextNormalizer.normalize(searchTerm == null ? "" : searchTerm.trim());
+        if (query.isEmpty()) {
+            return new Result(query, new LinkedHashMap<>(), EnumSet.noneOf(Group.class), 0);
+        }
+        
+        Map<Group, CompletableFuture<List<Hit>>> futures = new EnumMap<>(Group.class);
+        Set<Group> timedOut = EnumSet.noneOf(Group.class);
+        // The scans are the slow groups, so they start first and run while the indexes are queried
+        List<Loan> loans = new ArrayList<>(dbManager.getAllLoans());
+        futures.put(Group.LOANS, submit(() -> searchLoans(loans, query, groupLimit, deadline)));
+        List<Fine> fines = new ArrayList<>(dbManager.getAllFines());
+        futures.put(Group.FINES, submit(() -> searchFines(fines, query, groupLimit, deadline)));
+        if (System.nanoTime() < deadline) {
+            List<Member> members = new ArrayList<>(dbManager.searchMembers(query));
+            futures.put(Group.MEMBERS, submit(() -> searchMembers(members, query, groupLimit, deadline)));
+        } else {
+            timedOut.add(Group.MEMBERS);
+        }
+        if (System.nanoTime() < deadline) {
+            List<Media> media = new ArrayList<>(dbManager.searchMedia(query));
+            futures.put(Group.MEDIA, submit(() -> searchMedia(media, query, groupLimit, deadline)));
+        } else {
+            timedOut.add(Group.MEDIA);
+        }
+        
+        Map<Group, List<Hit>> groups = new EnumMap<>(Group.class);
+        for (Map.Entry<Group, CompletableFuture<List<Hit>>> entry : futures.entrySet()) {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            try {
+                List<Hit> hits = entry.getValue().get(remaining, TimeUnit.NANOSECONDS);
+                if (!hits.isEmpty()) {
+                    hits.sort(Comparator.comparingDouble(Hit::score).reversed());
+                    groups.put(entry.getKey(), hits);
+                }
+            } catch (TimeoutException e) {
+                // Does not interrupt the task; it ends by itself at its next deadline check
+                entry.getValue().cancel(false);
+                timedOut.add(entry.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                timedOut.add(entry.getKey());
+            } catch (ExecutionException e) {
+                System.err.println("Global search failed for " + entry.getKey().getLabel() + ": " + e.getCause().getMessage());
+            }
+        }
+        
+        // Groups with the strongest hit come first
+        Map<Group, List<Hit>> ranked = new LinkedHashMap<>();
+        groups.entrySet().stream()
+            .sorted(Comparator.comparingDouble((Map.Entry<Group, List<Hit>> e) -> e.getValue().get(0).score()).reversed())
+            .forEach(e -> ranked.put(e.getKey(), e.getValue()));
+        return new Result(query, ranked, timedOut, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+    
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+    
+    private CompletableFuture<List<Hit>> submit(Supplier<List<Hit>> search) {
+        return CompletableFuture.supplyAsync(search, pool);
+    }
+    
+    // Members and media arrive ranked from their indexes; only the top hits are built
+    private List<Hit> searchMembers(List<Member> members, String query, int limit, long deadline) {
+        List<Hit> hits = new ArrayList<>();
+        for (Member member : members) {
+            if (hits.size() >= limit || System.nanoTime() > deadline) break;
+            hits.add(new Hit(Group.MEMBERS, member.getId(), member.getFullName(),
+                member.getEmail() + " · " + member.getStatus(),
+                score(Group.MEMBERS, hits.size(), limit, member.getId(), query), member));
+        }
+        return hits;
+    }
+    
+    private List<Hit> searchMedia(List<Media> mediaList, String query, int limit, long deadline) {
+        List<Hit> hits = new ArrayList<>();
+        for (Media media : mediaList) {
+            if (hits.size() >= limit || System.nanoTime() > deadline) break;
+            hits.add(new Hit(Group.MEDIA, media.getId(), media.getTitle(),
+                media.getAuthorName() + " · " + media.getType() + " · " + media.getAvailableCopies() + "/" + media.getTotalCopies() + " available",
+                score(Group.MEDIA, hits.size(), limit, media.getId(), query), media));
+        }
+        return hits;
+    }
+    
+    // Loans and fines have no index; they are scanned by their cached search keys, stopping at the deadline
+    private List<Hit> searchLoans(List<Loan> loans, String query, int limit, long deadline) {
+        List<Loan> matches = new ArrayList<>();
+        for (int i = 0; i < loans.size(); i++) {
+            if (i % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) break;
+            if (loans.get(i).getSearchKey().contains(query)) {
+                matches.add(loans.get(i));
+            }
+        }
+        // Open loans are what the desk usually looks for
+        matches.sort(Comparator.comparing((Loan loan) -> "Returned".equals(loan.getStatus()))
+            .thenComparing(Loan::getDueDate, Comparator.nullsLast(Comparator.reverseOrder())));
+        
+        List<Hit> hits = new ArrayList<>();
+        for (Loan loan : matches.subList(0, Math.min(limit, matches.size()))) {
+            hits.add(new Hit(Group.LOANS, loan.getId(), loan.getMediaTitle(),
+                loan.getMemberName() + " · due " + loan.getDueDate() + " · " + (loan.isOverdue() ? "Overdue" : loan.getStatus()),
+                score(Group.LOANS, hits.size(), limit, loan.getId(), query), loan));
+        }
+        return hits;
+    }
+    
+    private List<Hit> searchFines(List<Fine> fines, String query, int limit, long deadline) {
+        List<Fine> matches = new ArrayList<>();
+        for (int i = 0; i < fines.size(); i++) {
+            if (i % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) break;
+            if (fines.get(i).getSearchKey().contains(query)) {
+                matches.add(fines.get(i));
+            }
+        }
+        // Outstanding fines first
+        matches.sort(Comparator.comparing((Fine fine) -> !"Outstanding".equals(fine.getStatus())));
+        
+        List<Hit> hits = new ArrayList<>();
+        for (Fine fine : matches.subList(0, Math.min(limit, matches.size()))) {
+            hits.add(new Hit(Group.FINES, fine.getId(), fine.getMemberName() + " · " + fine.getFormattedAmount(),
+                fine.getReason() + " · " + fine.getStatus(),
+                score(Group.FINES, hits.size(), limit, fine.getId(), query), fine));
+        }
+        return hits;
+    }
+    
+    // Rank within the group scaled by the group's weight; typing an exact id wins outright
+    private static double score(Group group, int rank, int limit, int id, String query) {
+        double score = group.weight * (1.0 - (double) rank / (limit + 1));
+        return query.equals(String.valueOf(id)) ? score + 1.0 : score;
+    }
+}
@@ -0,0 +1,12 @@
+package com.library.service;
+
+import java.time.LocalDateTime;
+
+// One row of the job_runs history: a job's run for one schedule slot (run key)
+public record JobRun(int id, String jobName, String runKey, String status, String checkpoint,
+                     int itemsProcessed, int chunks, String owner,
+                     LocalDateTime startedAt, LocalDateTime heartbeatAt, LocalDateTime finishedAt, String message) {
+    public static final String RUNNING = "Running";
+    public static final String SUCCEEDED = "Succeeded";
+    public static final String FAILED = "Failed";
+}
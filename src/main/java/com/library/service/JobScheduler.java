@@ -0,0 +1,196 @@
+package com.library.service;
+
+import com.library.util.CronSchedule;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link BatchJob}s on cron schedules, off the desk's thread. Each run is
+ * recorded in job_runs and processed in bounded chunks on the data thread with
+ * a pause in between, so the desk stays responsive during heavy jobs. The
+ * checkpoint is stored after every chunk: a crashed or stopped run resumes from
+ * there, and a finished run is never repeated, even with several desks scheduling
+ * the same job. A failed run is retried from its checkpoint a few times.
+ */
+public class JobScheduler {
+    // A run whose owner has not reported progress for this long is considered dead and may be taken over
+    private static final long LEASE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long CHUNK_PAUSE_MILLIS = 100;
+    private static final long RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final int MAX_ATTEMPTS = 3;
+    
+    private record ScheduledJob(BatchJob job, CronSchedule schedule) {}
+    
+    private final DatabaseManager dbManager;
+    private final Map<String, ScheduledJob> jobs = new LinkedHashMap<>();
+    private final ScheduledExecutorService executor;
+    private final String owner;
+    private volatile boolean stopped;
+    
+    public JobScheduler(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.owner = hostName() + ":" + ProcessHandle.current().pid();
+    }
+    
+    // The built-in jobs with their schedules from database.properties; an empty cron disables a job
+    public static JobScheduler createDefault(DatabaseManager dbManager) {
+        JobScheduler scheduler = new JobScheduler(dbManager);
+        String finesCron = dbManager.getConfig("jobs.overdue_fines.cron", "0 2 * * *").trim();
+        if (!finesCron.isEmpty()) {
+            scheduler.schedule(new OverdueFinesJob(dbManager), CronSchedule.parse(finesCron));
+        }
+        String renewCron = dbManager.getConfig("jobs.auto_renew.cron", "30 1 * * *").trim();
+        if (!renewCron.isEmpty()) {
+            scheduler.schedule(new AutoRenewJob(dbManager), CronSchedule.parse(renewCron));
+        }
+        String remindersCron = dbManager.getConfig("jobs.due_soon.cron", "0 7 * * *").trim();
+        if (!remindersCron.isEmpty()) {
+            int daysBefore = Integer.parseInt(dbManager.getConfig("jobs.due_soon.days_before", "2").trim());
+            String template = dbManager.getConfig("jobs.due_soon.template", NoticeTemplates.DUE_SOON).trim();
+            scheduler.schedule(new DueSoonRemindersJob(dbManager, daysBefore, template), CronSchedule.parse(remindersCron));
+        }
+        return scheduler;
+    }
+    
+    public synchronized void schedule(BatchJob job, CronSchedule schedule) {
+        jobs.put(job.getName(), new ScheduledJob(job, schedule));
+    }
+    
+    public synchronized void start() {
+        for (ScheduledJob scheduled : jobs.values()) {
+            resumeUnfinishedRuns(scheduled.job());
+            scheduleNext(scheduled);
+        }
+    }
+    
+    // Runs a job outside its schedule (e.g. from the dashboard), still chunked and recorded
+    public synchronized Future<?> runNow(String jobName) {
+        ScheduledJob scheduled = jobs.get(jobName);
+        if (scheduled == null) {
+            throw new IllegalArgumentException("Unknown job: " + jobName);
+        }
+        String runKey = "manual " + LocalDateTime.now().withNano(0);
+        return executor.submit(() -> run(scheduled.job(), runKey));
+    }
+    
+    public List<JobRun> getHistory(String jobName, int limit) {
+        return dbManager.callOnDataThread(() -> dbManager.getJobRuns(jobName, limit));
+    }
+    
+    public void shutdown() {
+        stopped = true;
+        executor.shutdownNow();
+    }
+    
+    private void scheduleNext(ScheduledJob scheduled) {
+        if (stopped) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = scheduled.schedule().next(now);
+        long delay = Math.max(0, Duration.between(now, next).toMillis());
+        executor.schedule(() -> {
+            try {
+                // The slot is the run key, so every desk scheduling this job competes for the same run
+                run(scheduled.job(), next.toString());
+            } finally {
+                scheduleNext(scheduled);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+    
+    // Picks up runs left behind by a crash or shutdown, once their lease has run out
+    private void resumeUnfinishedRuns(BatchJob job) {
+        for (JobRun unfinished : dbManager.callOnDataThread(() -> dbManager.getUnfinishedJobRuns(job.getName()))) {
+            LocalDateTime leaseEnd = unfinished.heartbeatAt() != null
+                ? unfinished.heartbeatAt().plus(Duration.ofMillis(LEASE_MILLIS))
+                : LocalDateTime.now();
+            long delay = Math.max(0, Duration.between(LocalDateTime.now(), leaseEnd).toMillis());
+            executor.schedule(() -> run(job, unfinished.runKey()), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    private void run(BatchJob job, String runKey) {
+        run(job, runKey, 1);
+    }
+    
+    private void run(BatchJob job, String runKey, int attempt) {
+        JobRun run;
+        try {
+            run = dbManager.callOnDataThread(() -> dbManager.claimJobRun(job.getName(), runKey, owner, LEASE_MILLIS));
+        } catch (RuntimeException e) {
+            System.err.println("Job " + job.getName() + " could not start: " + e.getMessage());
+            return;
+        }
+        if (run == null) {
+            // Already done for this slot, or another desk is running it
+            return;
+        }
+        
+        System.out.println("Job " + job.getName() + " started (" + runKey + ")");
+        String checkpoint = run.checkpoint();
+        int processed = run.itemsProcessed();
+        try {
+            while (!stopped) {
+                String from = checkpoint;
+                BatchJob.Chunk chunk = dbManager.callOnDataThread(() -> {
+                    BatchJob.Chunk result = job.processChunk(from);
+                    return dbManager.saveJobProgress(run.id(), owner, result.checkpoint(), result.processed()) ? result : null;
+                });
+                if (chunk == null) {
+                    // Our lease ran out and another desk took the run over; it carries on from the last checkpoint
+                    System.err.println("Job " + job.getName() + " stopped: run was taken over by another desk");
+                    return;
+                }
+                processed += chunk.processed();
+                if (chunk.isDone()) {
+                    dbManager.callOnDataThread(() -> dbManager.finishJobRun(run.id(), owner, JobRun.SUCCEEDED, null));
+                    System.out.println("✓ Job " + job.getName() + " finished: " + processed + " items");
+                    return;
+                }
+                checkpoint = chunk.checkpoint();
+                // Let the desk have the data thread between chunks
+                Thread.sleep(CHUNK_PAUSE_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            // Shutting down; the run stays open and resumes from its checkpoint after the lease
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            if (stopped) {
+                return;
+            }
+            System.err.println("Job " + job.getName() + " failed: " + e.getMessage());
+            try {
+                dbManager.callOnDataThread(() -> dbManager.finishJobRun(run.id(), owner, JobRun.FAILED, e.getMessage()));
+            } catch (RuntimeException recordError) {
+                System.err.println("Failed to record job failure: " + recordError.getMessage());
+            }
+            if (attempt < MAX_ATTEMPTS && !stopped) {
+                // The failed chunk was rolled back, so the retry starts again from the saved checkpoint
+                executor.schedule(() -> run(job, runKey, attempt + 1), RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+    
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "localhost";
+        }
+    }
+}
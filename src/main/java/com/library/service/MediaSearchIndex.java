@@ -0,0 +1,237 @@
+package com.library.service;
+
+import com.library.model.Media;
+import com.library.util.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the catalog. Every query token must match
+ * (AND), each as a prefix of an indexed term, and results are ranked by the
+ * fields the tokens were found in.
+ */
+public class MediaSearchIndex {
+    // Field weights: a hit in the title ranks above a hit in the description
+    private static final int TITLE_WEIGHT = 8;
+    private static final int AUTHOR_WEIGHT = 5;
+    private static final int ISBN_WEIGHT = 4;
+    private static final int PUBLISHER_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final Pattern ISBN_SEPARATORS = Pattern.compile("[\\s-]");
+    
+    // term -> (media id -> weight)
+    private final TreeMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+    // media id -> (term -> weight), needed to unindex a media item whose fields were edited in place
+    private final Map<Integer, Map<String, Integer>> documents = new HashMap<>();
+    private final Map<Integer, Media> mediaById = new HashMap<>();
+    // Normalized titles as indexed, used to order results with equal scores
+    private final Map<Integer, String> titles = new HashMap<>();
+    
+    public synchronized void rebuild(Collection<Media> media) {
+        postings.clear();
+        documents.clear();
+        mediaById.clear();
+        titles.clear();
+        for (Media m : media) {
+            addDocument(m);
+        }
+    }
+    
+    // Adds a media item or re-indexes it after an update
+    public synchronized void index(Media media) {
+        removeDocument(media.getId());
+        addDocument(media);
+    }
+    
+    public synchronized void remove(Media media) {
+        removeDocument(media.getId());
+    }
+    
+    public synchronized int size() {
+        return documents.size();
+    }
+    
+    public synchronized List<Media> search(String query) {
+        Map<Integer, Integer> scores = score(query);
+        List<Map.Entry<Integer, Integer>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Integer, Integer>comparingByValue(Comparator.reverseOrder())
+            .thenComparing(e -> titles.get(e.getKey())));
+        List<Media> results = new ArrayList<>(ranked.size());
+        for (Map.Entry<Integer, Integer> entry : ranked) {
+            results.add(mediaById.get(entry.getKey()));
+        }
+        return results;
+    }
+    
+    public synchronized Set<Integer> searchIds(String query) {
+        return new LinkedHashSet<>(score(query).keySet());
+    }
+    
+    private Map<Integer, Integer> score(String query) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(TextNormalizer.tokenize(query)));
+        if (tokens.isEmpty()) {
+            return new HashMap<>();
+        }
+        // Longer tokens tend to be more selective; estimating them first keeps the counting limits small
+        tokens.sort(Comparator.comparingInt(String::length).reversed());
+        
+        // The token with the fewest postings seeds the candidates
+        String seed = null;
+        int seedSize = Integer.MAX_VALUE;
+        for (String token : tokens) {
+            int size = postingCount(token, seedSize);
+            if (size < seedSize) {
+                seed = token;
+                seedSize = size;
+            }
+        }
+        if (seed == null || seedSize == 0) {
+            return new HashMap<>();
+        }
+        Map<Integer, Integer> scores = prefixPostings(seed);
+        
+        for (String token : tokens) {
+            if (token.equals(seed)) {
+                continue;
+            }
+            if (postingCount(token, scores.size()) < scores.size()) {
+                // Narrow token: intersect with its postings
+                Map<Integer, Integer> matches = prefixPostings(token);
+                scores.entrySet().removeIf(candidate -> {
+                    Integer weight = matches.get(candidate.getKey());
+                    if (weight == null) {
+                        return true;
+                    }
+                    candidate.setValue(candidate.getValue() + weight);
+                    return false;
+                });
+            } else {
+                // Broad token: cheaper to check the few candidates' own terms
+                scores.entrySet().removeIf(candidate -> {
+                    int best = bestMatch(documents.get(candidate.getKey()), token);
+                    if (best == 0) {
+                        return true;
+                    }
+                    candidate.setValue(candidate.getValue() + best);
+                    return false;
+                });
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        return scores;
+    }
+    
+    // Number of postings under a prefix, counting stops once the limit is reached
+    private int postingCount(String prefix, int limit) {
+        int count = 0;
+        for (Map<Integer, Integer> ids : prefixRange(prefix).values()) {
+            count += ids.size();
+            if (count >= limit) {
+                return limit;
+            }
+        }
+        return count;
+    }
+    
+    // Best weight per media id over all terms starting with the prefix; exact term matches count double
+    private Map<Integer, Integer> prefixPostings(String prefix) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        for (Map.Entry<String, Map<Integer, Integer>> entry : prefixRange(prefix).entrySet()) {
+            int bonus = entry.getKey().length() == prefix.length() ? 2 : 1;
+            for (Map.Entry<Integer, Integer> posting : entry.getValue().entrySet()) {
+                scores.merge(posting.getKey(), posting.getValue() * bonus, Math::max);
+            }
+        }
+        return scores;
+    }
+    
+    private static int bestMatch(Map<String, Integer> terms, String token) {
+        int best = 0;
+        for (Map.Entry<String, Integer> term : terms.entrySet()) {
+            if (term.getKey().startsWith(token)) {
+                int bonus = term.getKey().length() == token.length() ? 2 : 1;
+                best = Math.max(best, term.getValue() * bonus);
+            }
+        }
+        return best;
+    }
+    
+    private NavigableMap<String, Map<Integer, Integer>> prefixRange(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+    
+    // Whether the media item would be found by the query, without consulting the index
+    static boolean matchesQuery(Media media, String query) {
+        Set<String> terms = indexedTerms(media).keySet();
+        for (String token : TextNormalizer.tokenize(query)) {
+            if (terms.stream().noneMatch(term -> term.startsWith(token))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // Indexed terms of a media item with their field weight
+    private static Map<String, Integer> indexedTerms(Media media) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, media.getTitle(), TITLE_WEIGHT);
+        if (media.getAuthor() != null) {
+            addTerms(terms, media.getAuthorName(), AUTHOR_WEIGHT);
+        }
+        addTerms(terms, media.getPublisher(), PUBLISHER_WEIGHT);
+        addTerms(terms, media.getDescription(), DESCRIPTION_WEIGHT);
+        addTerms(terms, media.getIsbn(), ISBN_WEIGHT);
+        // Also index the ISBN without hyphens so it can be found either way
+        if (media.getIsbn() != null) {
+            addTerms(terms, ISBN_SEPARATORS.matcher(media.getIsbn()).replaceAll(""), ISBN_WEIGHT);
+        }
+        return terms;
+    }
+    
+    private void addDocument(Media media) {
+        Map<String, Integer> terms = indexedTerms(media);
+        documents.put(media.getId(), terms);
+        mediaById.put(media.getId(), media);
+        titles.put(media.getId(), TextNormalizer.normalize(media.getTitle()));
+        for (Map.Entry<String, Integer> term : terms.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), k -> new HashMap<>()).put(media.getId(), term.getValue());
+        }
+    }
+    
+    private void removeDocument(int id) {
+        Map<String, Integer> terms = documents.remove(id);
+        mediaById.remove(id);
+        titles.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<Integer, Integer> ids = postings.get(term);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+    
+    private static void addTerms(Map<String, Integer> terms, String text, int weight) {
+        for (String token : TextNormalizer.tokenize(text)) {
+            // A term found in several fields keeps its strongest field weight
+            terms.merge(token, weight, Math::max);
+        }
+    }
+}
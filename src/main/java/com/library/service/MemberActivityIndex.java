@@ -0,0 +1,107 @@
+package com.library.service;
+
+import com.library.model.Fine;
+import com.library.model.Loan;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-member loan counts and last activity, updated from loan and fine changes
+ * so member stats and eligibility checks never scan the loan list. Loans are
+ * edited in place, so the state each loan was last counted with is kept to
+ * undo its old contribution.
+ */
+public class MemberActivityIndex {
+    private record LoanState(int memberId, boolean active) {}
+    
+    private static final class Tally {
+        int activeLoans;
+        int lifetimeLoans;
+        LocalDate lastActivity;
+    }
+    
+    private final Map<Integer, LoanState> loanStates = new HashMap<>();
+    private final Map<Integer, Tally> tallies = new HashMap<>();
+    
+    public synchronized void rebuild(Collection<Loan> loans, Collection<Fine> fines) {
+        loanStates.clear();
+        tallies.clear();
+        for (Loan loan : loans) {
+            indexLoan(loan);
+        }
+        for (Fine fine : fines) {
+            recordFine(fine);
+        }
+    }
+    
+    // Returns the ids of members whose active loan count changed (none, the member, or old and new member)
+    public synchronized List<Integer> index(Loan loan) {
+        LoanState oldState = loanStates.get(loan.getId());
+        LoanState newState = indexLoan(loan);
+        if (oldState == null) {
+            return newState.active() ? List.of(newState.memberId()) : List.of();
+        }
+        if (oldState.memberId() != newState.memberId()) {
+            return List.of(oldState.memberId(), newState.memberId());
+        }
+        return oldState.active() != newState.active() ? List.of(newState.memberId()) : List.of();
+    }
+    
+    public synchronized void recordFine(Fine fine) {
+        if (fine.getMember() == null) {
+            return;
+        }
+        Tally tally = tallies.computeIfAbsent(fine.getMember().getId(), id -> new Tally());
+        touch(tally, fine.getIssueDate());
+        touch(tally, fine.getPaidDate());
+    }
+    
+    public synchronized int getActiveLoans(int memberId) {
+        Tally tally = tallies.get(memberId);
+        return tally != null ? tally.activeLoans : 0;
+    }
+    
+    public synchronized int getLifetimeLoans(int memberId) {
+        Tally tally = tallies.get(memberId);
+        return tally != null ? tally.lifetimeLoans : 0;
+    }
+    
+    public synchronized LocalDate getLastActivity(int memberId) {
+        Tally tally = tallies.get(memberId);
+        return tally != null ? tally.lastActivity : null;
+    }
+    
+    private LoanState indexLoan(Loan loan) {
+        LoanState oldState = loanStates.get(loan.getId());
+        if (oldState != null) {
+            Tally old = tallies.get(oldState.memberId());
+            old.lifetimeLoans--;
+            if (oldState.active()) {
+                old.activeLoans--;
+            }
+        }
+        
+        int memberId = loan.getMember() != null ? loan.getMember().getId() : 0;
+        LoanState newState = new LoanState(memberId, "Active".equals(loan.getStatus()));
+        loanStates.put(loan.getId(), newState);
+        Tally tally = tallies.computeIfAbsent(memberId, id -> new Tally());
+        tally.lifetimeLoans++;
+        if (newState.active()) {
+            tally.activeLoans++;
+        }
+        // Last activity only moves forward; a corrected date does not take back a visit
+        touch(tally, loan.getLoanDate());
+        touch(tally, loan.getReturnDate());
+        return newState;
+    }
+    
+    private static void touch(Tally tally, LocalDate date) {
+        if (date != null && (tally.lastActivity == null || date.isAfter(tally.lastActivity))) {
+            tally.lastActivity = date;
+        }
+    }
+}
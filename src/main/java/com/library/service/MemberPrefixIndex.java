@@ -0,0 +1,134 @@
+package com.library.service;
+
+import com.library.model.Member;
+import com.library.util.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Sorted prefix index for patron lookup at the desk. Each member is reachable
+ * by the start of their first name, last name, "first last", "last first",
+ * email or id, so a keystroke is a range scan instead of a pass over all members.
+ */
+public class MemberPrefixIndex {
+    // Separates the key from the member id, so equal names from different members stay distinct entries
+    private static final char SEPARATOR = '\u0000';
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    
+    // "normalized key\0id" -> member id, in key order
+    private final TreeMap<String, Integer> entries = new TreeMap<>();
+    private final Map<Integer, List<String>> keysById = new HashMap<>();
+    private final Map<Integer, Member> membersById = new HashMap<>();
+    
+    public synchronized void rebuild(Collection<Member> members) {
+        entries.clear();
+        keysById.clear();
+        membersById.clear();
+        for (Member member : members) {
+            addMember(member);
+        }
+    }
+    
+    // Adds a member or re-indexes it after an update
+    public synchronized void index(Member member) {
+        removeMember(member.getId());
+        addMember(member);
+    }
+    
+    public synchronized void remove(Member member) {
+        removeMember(member.getId());
+    }
+    
+    // Up to limit members matching the prefix, in name order; filter may be null
+    public synchronized List<Member> typeAhead(String prefix, int limit, Predicate<Member> filter) {
+        Map<Integer, Member> results = new LinkedHashMap<>();
+        for (Integer id : range(prefix).values()) {
+            if (results.size() >= limit) {
+                break;
+            }
+            Member member = membersById.get(id);
+            if (!results.containsKey(id) && (filter == null || filter.test(member))) {
+                results.put(id, member);
+            }
+        }
+        return new ArrayList<>(results.values());
+    }
+    
+    public synchronized Set<Integer> matchingIds(String prefix) {
+        return new LinkedHashSet<>(range(prefix).values());
+    }
+    
+    private Map<String, Integer> range(String prefix) {
+        String key = normalizeKey(prefix);
+        return key.isEmpty() ? entries : entries.subMap(key, true, key + Character.MAX_VALUE, false);
+    }
+    
+    // Whether the member would be found by the query, without consulting the index
+    static boolean matchesQuery(Member member, String query) {
+        String prefix = normalizeKey(query);
+        for (String key : keysOf(member)) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // Normalized with single spaces, so "anna  müller" and "Anna Muller" hit the same key
+    static String normalizeKey(String text) {
+        return WHITESPACE.matcher(TextNormalizer.normalize(text == null ? "" : text.trim())).replaceAll(" ");
+    }
+    
+    private void addMember(Member member) {
+        List<String> keys = keysOf(member);
+        keysById.put(member.getId(), keys);
+        membersById.put(member.getId(), member);
+        for (String key : keys) {
+            entries.put(key, member.getId());
+        }
+    }
+    
+    // Index entries ("key\0id") of a member
+    private static List<String> keysOf(Member member) {
+        List<String> keys = new ArrayList<>(6);
+        addKey(keys, member.getFirstName(), member.getId());
+        addKey(keys, member.getLastName(), member.getId());
+        if (member.getFirstName() != null && member.getLastName() != null) {
+            addKey(keys, member.getFirstName() + " " + member.getLastName(), member.getId());
+            addKey(keys, member.getLastName() + " " + member.getFirstName(), member.getId());
+        }
+        addKey(keys, member.getEmail(), member.getId());
+        addKey(keys, String.valueOf(member.getId()), member.getId());
+        return keys;
+    }
+    
+    private void removeMember(int id) {
+        List<String> keys = keysById.remove(id);
+        membersById.remove(id);
+        if (keys != null) {
+            for (String key : keys) {
+                entries.remove(key);
+            }
+        }
+    }
+    
+    private static void addKey(List<String> keys, String text, int id) {
+        String key = normalizeKey(text);
+        if (!key.isEmpty()) {
+            String entry = key + SEPARATOR + id;
+            if (!keys.contains(entry)) {
+                keys.add(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.library.service;
+
+import java.time.LocalDate;
+
+// Circulation aggregates of one member, as kept by DatabaseManager; lastActivity is null for members without loans or fines
+public record MemberStats(int memberId, int activeLoans, int overdueLoans, long outstandingCents,
+                          int lifetimeLoans, LocalDate lastActivity) {
+}
@@ -0,0 +1,214 @@
+package com.library.service;
+
+import com.library.model.Loan;
+import com.library.model.NoticeTemplate;
+import com.library.util.LibraryClock;
+import com.library.util.Money;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The notices members can be sent, by name. The templates from notice_templates
+ * are compiled once on load; a {@link Renderer} then fills them in for one loan
+ * after another into the same buffer, which is what the notification run does
+ * for thousands of overdue loans.
+ */
+public class NoticeTemplates {
+    public static final String FRIENDLY_REMINDER = "Friendly Reminder";
+    public static final String URGENT_NOTICE = "Urgent Notice";
+    public static final String FINAL_WARNING = "Final Warning";
+    // Sent by the due-soon reminder job before the due date; all other notices are about overdue loans
+    public static final String DUE_SOON = "Due Soon Reminder";
+
+    // Seeded into notice_templates when the table is empty, and used until the table is loaded
+    public static final List<NoticeTemplate> DEFAULTS = List.of(
+        new NoticeTemplate(0, FRIENDLY_REMINDER, "Reminder: Overdue item - {{title}}",
+            "Dear {{member_name}},\n\n" +
+            "This is a friendly reminder that the following item is overdue:\n\n" +
+            "Title: {{title}}\n" +
+            "Due Date: {{due_date}}\n" +
+            "Days Overdue: {{days_overdue}}\n\n" +
+            "Please return this item at your earliest convenience. " +
+            "A fine of {{fine}} has been applied to your account.\n\n" +
+            "If you have already returned this item, please disregard this message. " +
+            "If you need to renew the loan, please contact us immediately.\n\n" +
+            "Thank you for your cooperation.\n\n" +
+            "Best regards,\n" +
+            "Library Staff"),
+        new NoticeTemplate(0, URGENT_NOTICE, "URGENT: Overdue item - {{title}}",
+            "URGENT: Overdue Item Notice\n\n" +
+            "Dear {{member_name}},\n\n" +
+            "Our records show that you have an overdue item that requires immediate attention:\n\n" +
+            "Title: {{title}}\n" +
+            "Due Date: {{due_date}}\n" +
+            "Days Overdue: {{days_overdue}}\n" +
+            "Current Fine: {{fine}}\n\n" +
+            "Please return this item IMMEDIATELY to avoid additional penalties. " +
+            "Failure to return overdue items may result in suspension of your library privileges.\n\n" +
+            "Please contact us at your earliest convenience if you are experiencing difficulties " +
+            "returning this item.\n\n" +
+            "Urgent attention required.\n\n" +
+            "Library Administration"),
+        new NoticeTemplate(0, FINAL_WARNING, "FINAL WARNING: Overdue item - {{title}}",
+            "FINAL WARNING: Immediate Action Required\n\n" +
+            "Dear {{member_name}},\n\n" +
+            "This is your FINAL WARNING regarding the following severely overdue item:\n\n" +
+            "Title: {{title}}\n" +
+            "Due Date: {{due_date}}\n" +
+            "Days Overdue: {{days_overdue}}\n" +
+            "Current Fine: {{fine}}\n\n" +
+            "IMMEDIATE ACTION IS REQUIRED. You must:\n" +
+            "1. Return the overdue item within 48 hours\n" +
+            "2. Pay the outstanding fine\n" +
+            "3. Contact the library to discuss this matter\n\n" +
+            "Failure to comply within 48 hours will result in:\n" +
+            "• Suspension of your library account\n" +
+            "• Additional administrative fees\n" +
+            "• Potential legal action for item replacement\n\n" +
+            "This is your final opportunity to resolve this matter before " +
+            "further action is taken.\n\n" +
+            "Contact us immediately: [Library Contact Information]\n\n" +
+            "Library Administration\n" +
+            "Final Notice"),
+        new NoticeTemplate(0, DUE_SOON, "Reminder: {{title}} is due on {{due_date}}",
+            "Dear {{member_name}},\n\n" +
+            "This is a friendly reminder that the following item is due soon:\n\n" +
+            "Title: {{title}}\n" +
+            "Due Date: {{due_date}}\n" +
+            "Days Left: {{days_left}}\n\n" +
+            "Please return or renew it by the due date to avoid late fees.\n\n" +
+            "Thank you for your cooperation.\n\n" +
+            "Best regards,\n" +
+            "Library Staff")
+    );
+
+    // After DEFAULTS, which the instance compiles on construction
+    private static final NoticeTemplates INSTANCE = new NoticeTemplates();
+
+    public record Notice(String subject, String body) {}
+
+    private record Compiled(CompiledTemplate subject, CompiledTemplate body) {}
+
+    private volatile Map<String, Compiled> compiled = compile(DEFAULTS);
+
+    public static NoticeTemplates getInstance() {
+        return INSTANCE;
+    }
+
+    public void load(Collection<NoticeTemplate> templates) {
+        compiled = compile(templates);
+    }
+
+    // In table order
+    public List<String> getNames() {
+        return new ArrayList<>(compiled.keySet());
+    }
+
+    public boolean contains(String name) {
+        return compiled.containsKey(name);
+    }
+
+    // Whether a queued notice should still go out for the loan as it is now:
+    // a reminder only before the due date, any other notice only while the loan is overdue
+    public boolean stillApplies(String name, Loan loan) {
+        if (!"Active".equals(loan.getStatus())) {
+            return false;
+        }
+        return DUE_SOON.equals(name) ? !loan.isOverdue() : loan.isOverdue();
+    }
+
+    public Notice render(String name, Loan loan) {
+        return new Renderer().render(name, loan);
+    }
+
+    // One notice per loan, in order, all rendered through the same buffer and against the same business date
+    public List<Notice> renderAll(String name, List<Loan> loans) {
+        Renderer renderer = new Renderer();
+        return LibraryClock.withSnapshot(() -> {
+            List<Notice> notices = new ArrayList<>(loans.size());
+            for (Loan loan : loans) {
+                notices.add(renderer.render(name, loan));
+            }
+            return notices;
+        });
+    }
+
+    public Renderer newRenderer() {
+        return new Renderer();
+    }
+
+    /**
+     * Renders notices one loan at a time into a buffer it keeps between calls.
+     * Not thread-safe; use one per thread.
+     */
+    public final class Renderer {
+        private final StringBuilder buffer = new StringBuilder(2048);
+        private Loan loan;
+        private long fineCents;
+
+        public Notice render(String name, Loan loan) {
+            Compiled template = compiled.get(name);
+            if (template == null) {
+                throw new IllegalArgumentException("Unknown notice template: " + name);
+            }
+            this.loan = loan;
+            // The fine goes through the policy engine, so work it out once for subject and body
+            this.fineCents = Money.toCents(FinePolicyEngine.getInstance().calculateFine(loan));
+
+            buffer.setLength(0);
+            template.subject().appendTo(buffer, this);
+            String subject = buffer.toString();
+
+            buffer.setLength(0);
+            buffer.ensureCapacity(template.body().literalLength() + 128);
+            template.body().appendTo(buffer, this);
+            return new Notice(subject, buffer.toString());
+        }
+
+        void append(CompiledTemplate.Placeholder placeholder, StringBuilder out) {
+            switch (placeholder) {
+                case MEMBER_NAME -> out.append(loan.getMember().getFirstName());
+                case TITLE -> out.append(loan.getMediaTitle());
+                case DUE_DATE -> appendDate(out, loan.getDueDate());
+                case DAYS_OVERDUE -> out.append(loan.getDaysOverdue());
+                case DAYS_LEFT -> out.append(Math.max(0, ChronoUnit.DAYS.between(LibraryClock.today(), loan.getDueDate())));
+                case FINE -> Money.appendTo(out, fineCents);
+            }
+        }
+
+        // dd/MM/yyyy, like the rest of the UI
+        private void appendDate(StringBuilder out, LocalDate date) {
+            appendTwoDigits(out, date.getDayOfMonth());
+            out.append('/');
+            appendTwoDigits(out, date.getMonthValue());
+            out.append('/').append(date.getYear());
+        }
+
+        private void appendTwoDigits(StringBuilder out, int value) {
+            if (value < 10) {
+                out.append('0');
+            }
+            out.append(value);
+        }
+    }
+
+    private static Map<String, Compiled> compile(Collection<NoticeTemplate> templates) {
+        Map<String, Compiled> result = new LinkedHashMap<>();
+        for (NoticeTemplate template : templates) {
+            try {
+                result.put(template.name(), new Compiled(
+                    CompiledTemplate.parse(template.subject()), CompiledTemplate.parse(template.body())));
+            } catch (IllegalArgumentException e) {
+                // Leave a broken template out rather than sending notices with raw placeholders
+                System.err.println("Notice template '" + template.name() + "' skipped: " + e.getMessage());
+            }
+        }
+        return result;
+    }
+}
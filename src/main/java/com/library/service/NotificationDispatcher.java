@@ -0,0 +1,309 @@
+package com.library.service;
+
+import com.library.mail.FakeSmtpServer;
+import com.library.mail.MailMessage;
+import com.library.mail.SmtpMailer;
+import com.library.model.Loan;
+import com.library.util.VirtualThreads;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers the notification outbox. Due notices are claimed in rounds and
+ * rendered on the data thread, so due dates and fines are current when the
+ * mail goes out. A round is then sent over several SMTP sessions in parallel,
+ * each on its own virtual thread with one batch per session. Failed deliveries
+ * are retried with exponential backoff up to a limit, and every outcome is
+ * written back to the outbox.
+ */
+public class NotificationDispatcher {
+    // A claim older than this belongs to a desk that died mid-batch
+    private static final long LEASE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long MAX_BACKOFF_SECONDS = TimeUnit.HOURS.toSeconds(6);
+    private static final int SMTP_TIMEOUT_MILLIS = 10_000;
+    private static final int LATENCY_SAMPLES = 4096;
+    private static final String DEFAULT_SUBJECT = "Message from your library";
+
+    public record Settings(int batchSize, int connections, int maxAttempts, long retryBaseSeconds,
+                           long pollIntervalMillis, int keepDays) {}
+
+    // Counters since start; the rate is for the last run that sent anything, latencies are per SMTP transaction
+    public record Metrics(long sent, long retried, long failed, long cancelled, Map<String, Integer> outbox,
+                          long lastRunMessages, long lastRunMillis, double lastRunPerSecond,
+                          double p50LatencyMillis, double p95LatencyMillis, double p99LatencyMillis) {}
+
+    private record Round(List<MailMessage> messages, Map<Long, OutboxMessage> rows, List<OutboxMessage.Outcome> skipped) {
+        boolean isEmpty() {
+            return messages.isEmpty() && skipped.isEmpty();
+        }
+    }
+
+    private final DatabaseManager dbManager;
+    private final SmtpMailer mailer;
+    private final Settings settings;
+    private final FakeSmtpServer sink;
+    private final ScheduledExecutorService poller;
+    private final ExecutorService senders;
+    private volatile boolean stopped;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private long latencyCount;
+    private volatile long lastRunMessages;
+    private volatile long lastRunMillis;
+
+    public NotificationDispatcher(DatabaseManager dbManager, SmtpMailer mailer, Settings settings, FakeSmtpServer sink) {
+        this.dbManager = dbManager;
+        this.mailer = mailer;
+        this.settings = settings;
+        this.sink = sink;
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.senders = VirtualThreads.newPerTaskExecutor(settings.connections());
+    }
+
+    // SMTP and batching from database.properties; with notifications.smtp.fake the mails go to a local sink
+    public static NotificationDispatcher createDefault(DatabaseManager dbManager) {
+        String host = dbManager.getConfig("notifications.smtp.host", "localhost").trim();
+        int port = Integer.parseInt(dbManager.getConfig("notifications.smtp.port", "2525").trim());
+        FakeSmtpServer sink = null;
+        if (Boolean.parseBoolean(dbManager.getConfig("notifications.smtp.fake", "false").trim())) {
+            try {
+                sink = new FakeSmtpServer(port);
+                sink.start();
+                host = "localhost";
+                System.out.println("✓ Fake SMTP sink on port " + port + " (notices are recorded, not delivered)");
+            } catch (IOException e) {
+                // Usually another desk on this machine already runs the sink; send to that one
+                System.err.println("Fake SMTP sink not started on port " + port + ": " + e.getMessage());
+            }
+        }
+        SmtpMailer mailer = new SmtpMailer(host, port,
+            dbManager.getConfig("notifications.from", "library@example.org").trim(), SMTP_TIMEOUT_MILLIS);
+        Settings settings = new Settings(
+            Integer.parseInt(dbManager.getConfig("notifications.batch_size", "100").trim()),
+            Integer.parseInt(dbManager.getConfig("notifications.connections", "4").trim()),
+            Integer.parseInt(dbManager.getConfig("notifications.max_attempts", "5").trim()),
+            Long.parseLong(dbManager.getConfig("notifications.retry_base_seconds", "60").trim()),
+            Long.parseLong(dbManager.getConfig("notifications.poll_interval_ms", "10000").trim()),
+            Integer.parseInt(dbManager.getConfig("notifications.keep_days", "30").trim()));
+        return new NotificationDispatcher(dbManager, mailer, settings, sink);
+    }
+
+    public void start() {
+        poller.scheduleWithFixedDelay(this::pollOnce, settings.pollIntervalMillis(), settings.pollIntervalMillis(),
+            TimeUnit.MILLISECONDS);
+    }
+
+    // Sends what is due right away instead of waiting for the next poll (e.g. after a bulk enqueue)
+    public Future<Integer> dispatchNow() {
+        return poller.submit(this::dispatchPending);
+    }
+
+    public void shutdown() {
+        stopped = true;
+        poller.shutdownNow();
+        senders.shutdownNow();
+        if (sink != null) {
+            sink.stop();
+        }
+    }
+
+    public FakeSmtpServer getSink() {
+        return sink;
+    }
+
+    public Metrics getMetrics() {
+        Map<String, Integer> outbox = dbManager.callOnDataThread(dbManager::getNotificationCounts);
+        long[] samples;
+        synchronized (latencies) {
+            samples = Arrays.copyOf(latencies, (int) Math.min(latencyCount, LATENCY_SAMPLES));
+        }
+        Arrays.sort(samples);
+        long messages = lastRunMessages;
+        long millis = lastRunMillis;
+        return new Metrics(sent.sum(), retried.sum(), failed.sum(), cancelled.sum(), outbox,
+            messages, millis, millis > 0 ? messages * 1000.0 / millis : 0,
+            percentileMillis(samples, 0.50), percentileMillis(samples, 0.95), percentileMillis(samples, 0.99));
+    }
+
+    private void pollOnce() {
+        try {
+            dispatchPending();
+        } catch (RuntimeException e) {
+            System.err.println("Notification dispatch failed: " + e.getMessage());
+        }
+    }
+
+    // Sends everything that is due, round by round; returns the number of notices delivered
+    synchronized int dispatchPending() {
+        // Claims left by a desk that died mid-batch (here or elsewhere) go out again once their lease is over
+        int released = dbManager.callOnDataThread(() -> dbManager.releaseStaleNotifications(LEASE_MILLIS));
+        if (released > 0) {
+            System.out.println("Notification outbox: " + released + " interrupted notices queued again");
+        }
+        long start = System.nanoTime();
+        int delivered = 0;
+        int attempted = 0;
+        while (!stopped) {
+            Round round = dbManager.callOnDataThread(
+                () -> render(dbManager.claimNotifications(settings.batchSize() * settings.connections())));
+            if (round.isEmpty()) {
+                break;
+            }
+
+            List<OutboxMessage.Outcome> outcomes = new ArrayList<>(round.skipped());
+            cancelled.add(round.skipped().size());
+            Map<Long, String> subjects = new HashMap<>();
+            for (MailMessage message : round.messages()) {
+                subjects.put(message.id(), message.subject());
+            }
+            LocalDateTime now = LocalDateTime.now();
+            for (SmtpMailer.Delivery delivery : send(round.messages())) {
+                OutboxMessage row = round.rows().get(delivery.id());
+                OutboxMessage.Outcome outcome = outcomeOf(delivery, row, subjects.get(delivery.id()), now);
+                outcomes.add(outcome);
+                if (OutboxMessage.SENT.equals(outcome.status())) {
+                    delivered++;
+                    recordLatency(delivery.latencyNanos());
+                }
+            }
+            attempted += round.messages().size();
+            // If this fails the rows stay claimed and go out again after the lease: at least once, never lost
+            dbManager.callOnDataThread(() -> dbManager.recordNotificationResults(outcomes));
+        }
+
+        if (attempted > 0) {
+            long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            lastRunMessages = delivered;
+            lastRunMillis = millis;
+            dbManager.callOnDataThread(() -> {
+                dbManager.purgeNotifications(settings.keepDays());
+                dbManager.exportToSQLFile();
+                return null;
+            });
+            System.out.printf("✓ Notifications: %d of %d sent in %d ms (%.0f/s)%n",
+                delivered, attempted, millis, delivered * 1000.0 / millis);
+        }
+        return delivered;
+    }
+
+    // Runs on the data thread: fills in templated notices from the loan as it is now,
+    // each template's rows rendered in one bulk pass
+    private Round render(List<OutboxMessage> claimed) {
+        NoticeTemplates templates = NoticeTemplates.getInstance();
+        List<MailMessage> messages = new ArrayList<>(claimed.size());
+        Map<Long, OutboxMessage> rows = new HashMap<>();
+        List<OutboxMessage.Outcome> skipped = new ArrayList<>();
+        Map<String, List<OutboxMessage>> rowsByTemplate = new LinkedHashMap<>();
+        Map<String, List<Loan>> loansByTemplate = new LinkedHashMap<>();
+        for (OutboxMessage row : claimed) {
+            rows.put(row.id(), row);
+            if (row.body() != null) {
+                messages.add(new MailMessage(row.id(), row.recipient(),
+                    row.subject() != null ? row.subject() : DEFAULT_SUBJECT, row.body()));
+                continue;
+            }
+
+            Loan loan = dbManager.findLoanById(row.loanId());
+            if (loan == null || !templates.stillApplies(row.template(), loan)) {
+                // Returned or renewed since the notice was queued, or a reminder whose due date has passed
+                skipped.add(new OutboxMessage.Outcome(row.id(), OutboxMessage.CANCELLED, null, null,
+                    loan == null ? "Loan no longer exists" : "Notice no longer applies to the loan"));
+            } else if (!templates.contains(row.template())) {
+                skipped.add(new OutboxMessage.Outcome(row.id(), OutboxMessage.FAILED, null, null,
+                    "Unknown notice template: " + row.template()));
+            } else {
+                rowsByTemplate.computeIfAbsent(row.template(), name -> new ArrayList<>()).add(row);
+                loansByTemplate.computeIfAbsent(row.template(), name -> new ArrayList<>()).add(loan);
+            }
+        }
+
+        for (Map.Entry<String, List<OutboxMessage>> group : rowsByTemplate.entrySet()) {
+            List<NoticeTemplates.Notice> notices = templates.renderAll(group.getKey(), loansByTemplate.get(group.getKey()));
+            List<OutboxMessage> groupRows = group.getValue();
+            for (int i = 0; i < groupRows.size(); i++) {
+                OutboxMessage row = groupRows.get(i);
+                messages.add(new MailMessage(row.id(), row.recipient(), notices.get(i).subject(), notices.get(i).body()));
+            }
+        }
+        return new Round(messages, rows, skipped);
+    }
+
+    // One SMTP session per batch, all batches of the round in parallel
+    private List<SmtpMailer.Delivery> send(List<MailMessage> messages) {
+        List<List<MailMessage>> batches = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i += settings.batchSize()) {
+            batches.add(messages.subList(i, Math.min(messages.size(), i + settings.batchSize())));
+        }
+        List<Future<List<SmtpMailer.Delivery>>> futures = new ArrayList<>(batches.size());
+        for (List<MailMessage> batch : batches) {
+            futures.add(senders.submit(() -> mailer.sendBatch(batch)));
+        }
+
+        List<SmtpMailer.Delivery> deliveries = new ArrayList<>(messages.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                deliveries.addAll(futures.get(i).get());
+            } catch (InterruptedException | ExecutionException e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                for (MailMessage message : batches.get(i)) {
+                    deliveries.add(new SmtpMailer.Delivery(message.id(), false, false, "Send aborted: " + e, 0));
+                }
+            }
+        }
+        return deliveries;
+    }
+
+    private OutboxMessage.Outcome outcomeOf(SmtpMailer.Delivery delivery, OutboxMessage row, String subject, LocalDateTime now) {
+        if (delivery.delivered()) {
+            sent.increment();
+            return new OutboxMessage.Outcome(delivery.id(), OutboxMessage.SENT, subject, null, null);
+        }
+        int attempts = row.attempts() + 1;
+        if (delivery.permanent() || attempts >= settings.maxAttempts()) {
+            failed.increment();
+            return new OutboxMessage.Outcome(delivery.id(), OutboxMessage.FAILED, null, null, delivery.error());
+        }
+        retried.increment();
+        long backoff = Math.min(MAX_BACKOFF_SECONDS, settings.retryBaseSeconds() << Math.min(attempts - 1, 20));
+        return new OutboxMessage.Outcome(delivery.id(), OutboxMessage.PENDING, null, now.plusSeconds(backoff), delivery.error());
+    }
+
+    private void recordLatency(long nanos) {
+        synchronized (latencies) {
+            latencies[(int) (latencyCount % LATENCY_SAMPLES)] = nanos;
+            latencyCount++;
+        }
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,17 @@
+package com.library.service;
+
+import java.time.LocalDateTime;
+
+// One row of notification_outbox. Templated notices have no body until the dispatcher renders them.
+public record OutboxMessage(long id, int memberId, int loanId, String recipient, String template,
+                            String subject, String body, String status, int attempts) {
+    public static final String PENDING = "Pending";
+    public static final String SENDING = "Sending";
+    public static final String SENT = "Sent";
+    public static final String FAILED = "Failed";
+    // The notice no longer applies, e.g. the item was returned before it went out
+    public static final String CANCELLED = "Cancelled";
+
+    // What a delivery attempt did to a row; nextAttemptAt is only set for retries
+    public record Outcome(long id, String status, String subject, LocalDateTime nextAttemptAt, String error) {}
+}
@@ -0,0 +1,9 @@
+package com.library.service;
+
+import com.library.model.Fine;
+
+import java.util.List;
+
+// Result of one chunk of the fine run: the fines created, the last loan id examined
+// (the cursor for the next chunk) and whether no overdue loans are left after it
+public record OverdueFineBatch(List<Fine> fines, int lastLoanId, boolean complete) {}
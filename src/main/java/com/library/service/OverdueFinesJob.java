@@ -0,0 +1,44 @@
+package com.library.service;
+
+import com.library.util.LibraryClock;
+
+import java.time.LocalDate;
+
+/**
+ * Nightly fine run: fines every overdue loan that has no outstanding fine yet,
+ * in chunks of loans ordered by id. The checkpoint keeps the business date of
+ * the run, so a run resumed the next morning still charges the same days.
+ */
+public class OverdueFinesJob implements BatchJob {
+    public static final String NAME = "overdue-fines";
+    private static final int CHUNK_SIZE = 5000;
+    
+    private final DatabaseManager dbManager;
+    
+    public OverdueFinesJob(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+    
+    @Override
+    public String getName() {
+        return NAME;
+    }
+    
+    // Checkpoint: "business date|last examined loan id"
+    @Override
+    public Chunk processChunk(String checkpoint) {
+        LocalDate date = LibraryClock.today();
+        int afterLoanId = 0;
+        if (checkpoint != null) {
+            String[] parts = checkpoint.split("\\|");
+            date = LocalDate.parse(parts[0]);
+            afterLoanId = Integer.parseInt(parts[1]);
+        }
+        
+        OverdueFineBatch batch = dbManager.generateOverdueFines(date, afterLoanId, CHUNK_SIZE);
+        if (batch.complete() || batch.lastLoanId() <= afterLoanId) {
+            return Chunk.done(batch.fines().size());
+        }
+        return new Chunk(batch.fines().size(), date + "|" + batch.lastLoanId());
+    }
+}
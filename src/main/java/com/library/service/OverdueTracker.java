@@ -0,0 +1,128 @@
+package com.library.service;
+
+import com.library.model.Loan;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Active loans filed by due date, one bucket per day. When the date moves on,
+ * the buckets that fell due are moved into the overdue set, so the overdue
+ * list and count cost O(result) instead of a pass over every loan.
+ */
+public class OverdueTracker {
+    // Active loans that are not overdue yet, by due date
+    private final TreeMap<LocalDate, Map<Integer, Loan>> pendingByDueDate = new TreeMap<>();
+    // Due date each pending loan was filed under (loans are edited in place, so the old date is needed to find it)
+    private final Map<Integer, LocalDate> filedDueDates = new HashMap<>();
+    private final Map<Integer, Loan> overdue = new LinkedHashMap<>();
+    // Member each overdue loan was counted for, and the resulting per-member counts
+    private final Map<Integer, Integer> overdueMemberIds = new HashMap<>();
+    private final Map<Integer, Integer> overdueByMember = new HashMap<>();
+    private LocalDate today;
+    
+    public synchronized void rebuild(Collection<Loan> loans, LocalDate today) {
+        pendingByDueDate.clear();
+        filedDueDates.clear();
+        overdue.clear();
+        overdueMemberIds.clear();
+        overdueByMember.clear();
+        this.today = today;
+        for (Loan loan : loans) {
+            addLoan(loan);
+        }
+    }
+    
+    // Files a new loan or re-files one after checkout, renewal or return
+    public synchronized void index(Loan loan) {
+        removeLoan(loan.getId());
+        addLoan(loan);
+    }
+    
+    public synchronized void remove(Loan loan) {
+        removeLoan(loan.getId());
+    }
+    
+    public synchronized List<Loan> getOverdueLoans(LocalDate today) {
+        advanceTo(today);
+        return new ArrayList<>(overdue.values());
+    }
+    
+    public synchronized int getOverdueCount(LocalDate today) {
+        advanceTo(today);
+        return overdue.size();
+    }
+    
+    public synchronized int getOverdueCount(int memberId, LocalDate today) {
+        advanceTo(today);
+        return overdueByMember.getOrDefault(memberId, 0);
+    }
+    
+    // Moves every bucket that is due before today into the overdue set; nothing to do within the same day
+    private void advanceTo(LocalDate date) {
+        if (date.equals(today)) {
+            return;
+        }
+        if (today != null && date.isBefore(today)) {
+            // The clock went backwards (fixed date, manual correction): refile everything
+            List<Loan> loans = new ArrayList<>(overdue.values());
+            pendingByDueDate.values().forEach(bucket -> loans.addAll(bucket.values()));
+            rebuild(loans, date);
+            return;
+        }
+        today = date;
+        Iterator<Map.Entry<LocalDate, Map<Integer, Loan>>> buckets = pendingByDueDate.headMap(date, false).entrySet().iterator();
+        while (buckets.hasNext()) {
+            for (Loan loan : buckets.next().getValue().values()) {
+                filedDueDates.remove(loan.getId());
+                putOverdue(loan);
+            }
+            buckets.remove();
+        }
+    }
+    
+    private void addLoan(Loan loan) {
+        LocalDate dueDate = loan.getDueDate();
+        if (!"Active".equals(loan.getStatus()) || dueDate == null) {
+            return;
+        }
+        if (today != null && today.isAfter(dueDate)) {
+            putOverdue(loan);
+        } else {
+            pendingByDueDate.computeIfAbsent(dueDate, d -> new LinkedHashMap<>()).put(loan.getId(), loan);
+            filedDueDates.put(loan.getId(), dueDate);
+        }
+    }
+    
+    private void putOverdue(Loan loan) {
+        overdue.put(loan.getId(), loan);
+        int memberId = loan.getMember() != null ? loan.getMember().getId() : 0;
+        overdueMemberIds.put(loan.getId(), memberId);
+        overdueByMember.merge(memberId, 1, Integer::sum);
+    }
+    
+    private void removeLoan(int loanId) {
+        if (overdue.remove(loanId) != null) {
+            int memberId = overdueMemberIds.remove(loanId);
+            if (overdueByMember.merge(memberId, -1, Integer::sum) == 0) {
+                overdueByMember.remove(memberId);
+            }
+            return;
+        }
+        LocalDate dueDate = filedDueDates.remove(loanId);
+        if (dueDate != null) {
+            Map<Integer, Loan> bucket = pendingByDueDate.get(dueDate);
+            bucket.remove(loanId);
+            if (bucket.isEmpty()) {
+                pendingByDueDate.remove(dueDate);
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.library.service;
+
+// Result of one chunk of the reminder run: the reminders queued, the last loan id examined
+// (the cursor for the next chunk) and whether no loans in the window are left after it
+public record ReminderBatch(int queued, int lastLoanId, boolean complete) {}
@@ -0,0 +1,9 @@
+package com.library.service;
+
+import com.library.model.Loan;
+
+import java.util.List;
+
+// Result of one chunk of the renewal run: the loans renewed, the last loan id examined
+// (the cursor for the next chunk) and whether no candidates are left after it
+public record RenewalBatch(List<Loan> renewed, int lastLoanId, boolean complete) {}
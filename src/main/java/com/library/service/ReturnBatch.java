@@ -0,0 +1,9 @@
+package com.library.service;
+
+import com.library.model.Fine;
+import com.library.model.Loan;
+
+import java.util.List;
+
+// Result of a bulk return: the loans returned and the fines charged for them (none if the return failed)
+public record ReturnBatch(List<Loan> returned, List<Fine> fines) {}
@@ -0,0 +1,134 @@
+package com.library.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Bounded LRU cache of search results (normalized query -> result ids), kept
+ * per namespace such as "media" or "member". When an entity changes, only the
+ * queries whose results contain it, or which it may now match, are dropped.
+ */
+public class SearchResultCache {
+    public record Stats(long hits, long misses, long evictions, long invalidations, int size, int capacity) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+    
+    private record Entry(List<Integer> ids, boolean invalidateOnAnyChange) {}
+    
+    private final int capacity;
+    private final LinkedHashMap<String, Entry> entries;
+    // namespace + entity id -> cache keys whose results contain that entity
+    private final Map<String, Set<String>> keysByEntity = new HashMap<>();
+    
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    
+    public SearchResultCache(int capacity) {
+        this.capacity = capacity;
+        // Access order turns the LinkedHashMap into an LRU list
+        this.entries = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true);
+    }
+    
+    public synchronized List<Integer> get(String namespace, String query) {
+        Entry entry = entries.get(key(namespace, query));
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.ids();
+    }
+    
+    /**
+     * Caches a result. invalidateOnAnyChange marks results that cannot be
+     * checked cheaply against a change (e.g. fuzzy matches), so any change in
+     * the namespace drops them.
+     */
+    public synchronized void put(String namespace, String query, List<Integer> ids, boolean invalidateOnAnyChange) {
+        String key = key(namespace, query);
+        removeEntry(key);
+        entries.put(key, new Entry(List.copyOf(ids), invalidateOnAnyChange));
+        for (Integer id : ids) {
+            keysByEntity.computeIfAbsent(entityKey(namespace, id), k -> new HashSet<>()).add(key);
+        }
+        if (entries.size() > capacity) {
+            Iterator<String> eldest = entries.keySet().iterator();
+            String evicted = eldest.next();
+            removeEntry(evicted);
+            evictions++;
+        }
+    }
+    
+    /**
+     * Drops the cached queries affected by a change of one entity: those whose
+     * results contain it, and those the (new) entity would match.
+     */
+    public synchronized void invalidate(String namespace, int entityId, Predicate<String> matchesQuery) {
+        String prefix = namespace + ":";
+        Set<String> affected = new HashSet<>(keysByEntity.getOrDefault(entityKey(namespace, entityId), Set.of()));
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            String key = entry.getKey();
+            if (key.startsWith(prefix) && !affected.contains(key)
+                    && (entry.getValue().invalidateOnAnyChange() || matchesQuery.test(key.substring(prefix.length())))) {
+                affected.add(key);
+            }
+        }
+        for (String key : affected) {
+            removeEntry(key);
+            invalidations++;
+        }
+    }
+    
+    // Drops a whole namespace, e.g. after its data was reloaded
+    public synchronized void invalidateAll(String namespace) {
+        String prefix = namespace + ":";
+        for (String key : new ArrayList<>(entries.keySet())) {
+            if (key.startsWith(prefix)) {
+                removeEntry(key);
+                invalidations++;
+            }
+        }
+    }
+    
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, invalidations, entries.size(), capacity);
+    }
+    
+    private void removeEntry(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        String namespace = key.substring(0, key.indexOf(':'));
+        for (Integer id : entry.ids()) {
+            String entityKey = entityKey(namespace, id);
+            Set<String> keys = keysByEntity.get(entityKey);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByEntity.remove(entityKey);
+                }
+            }
+        }
+    }
+    
+    private static String key(String namespace, String query) {
+        return namespace + ":" + query;
+    }
+    
+    private static String entityKey(String namespace, int id) {
+        return namespace + "#" + id;
+    }
+}
@@ -0,0 +1,253 @@
+package com.library.service;
+
+import com.library.model.Media;
+import com.library.util.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Fuzzy lookup over the words of media titles and author names, for
+ * misspellings like "Dürenmat" or "Tolstoi". Query words are matched against
+ * the vocabulary by shared trigrams, the best candidates are re-scored by edit
+ * distance, and media are ranked by how well all query words matched.
+ */
+public class TrigramIndex {
+    private static final double MIN_TRIGRAM_SIMILARITY = 0.25;
+    private static final int MAX_WORD_CANDIDATES = 64;
+    
+    // Vocabulary: word id -> word, plus trigram -> word ids
+    private final List<String> words = new ArrayList<>();
+    private final Map<String, Integer> wordIds = new HashMap<>();
+    private final Map<String, Set<Integer>> trigramPostings = new HashMap<>();
+    // word id -> media ids containing it, and the reverse for re-indexing
+    private final Map<Integer, Set<Integer>> mediaByWord = new HashMap<>();
+    private final Map<Integer, Set<Integer>> wordsByMedia = new HashMap<>();
+    private final Map<Integer, Media> mediaById = new HashMap<>();
+    private final Map<Integer, String> titles = new HashMap<>();
+    
+    // Scratch counters reused between queries (access is synchronized)
+    private int[] overlapCounts = new int[0];
+    
+    private record WordMatch(int wordId, double score) {}
+    
+    public synchronized void rebuild(Collection<Media> media) {
+        words.clear();
+        wordIds.clear();
+        trigramPostings.clear();
+        mediaByWord.clear();
+        wordsByMedia.clear();
+        mediaById.clear();
+        titles.clear();
+        for (Media m : media) {
+            addMedia(m);
+        }
+    }
+    
+    // Adds a media item or re-indexes it after its title or author changed
+    public synchronized void index(Media media) {
+        removeMedia(media.getId());
+        addMedia(media);
+    }
+    
+    public synchronized void remove(Media media) {
+        removeMedia(media.getId());
+    }
+    
+    // Media whose title/author words are close to every query word, best match first
+    public synchronized List<Media> search(String query, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(TextNormalizer.tokenize(query)));
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        Map<Integer, Double> scores = null;
+        for (String token : tokens) {
+            Map<Integer, Double> tokenScores = new HashMap<>();
+            for (WordMatch match : matchWord(token)) {
+                for (Integer mediaId : mediaByWord.getOrDefault(match.wordId(), Set.of())) {
+                    tokenScores.merge(mediaId, match.score(), Math::max);
+                }
+            }
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                // Every query word has to match something
+                Map<Integer, Double> previous = scores;
+                tokenScores.replaceAll((id, score) -> previous.containsKey(id) ? previous.get(id) + score : null);
+                tokenScores.values().removeIf(score -> score == null);
+                scores = tokenScores;
+            }
+            if (scores.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+        
+        // Keep only the best `limit` hits in a bounded heap (worst on top) instead of sorting all of them
+        Map<Integer, Double> finalScores = scores;
+        Comparator<Integer> ranking = Comparator.<Integer>comparingDouble(finalScores::get).reversed()
+            .thenComparing(titles::get);
+        PriorityQueue<Integer> best = new PriorityQueue<>(ranking.reversed());
+        for (Integer id : finalScores.keySet()) {
+            best.add(id);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Integer> ranked = new ArrayList<>(best);
+        ranked.sort(ranking);
+        List<Media> results = new ArrayList<>(ranked.size());
+        for (Integer id : ranked) {
+            results.add(mediaById.get(id));
+        }
+        return results;
+    }
+    
+    // Vocabulary words close to the token, scored 0..1 by edit distance
+    private List<WordMatch> matchWord(String token) {
+        Set<String> queryTrigrams = trigrams(token);
+        if (overlapCounts.length < words.size()) {
+            overlapCounts = new int[words.size() * 2];
+        }
+        
+        List<Integer> touched = new ArrayList<>();
+        for (String trigram : queryTrigrams) {
+            for (Integer wordId : trigramPostings.getOrDefault(trigram, Set.of())) {
+                if (overlapCounts[wordId]++ == 0) {
+                    touched.add(wordId);
+                }
+            }
+        }
+        
+        // Trigram similarity picks the candidates ...
+        List<WordMatch> candidates = new ArrayList<>();
+        for (Integer wordId : touched) {
+            int shared = overlapCounts[wordId];
+            overlapCounts[wordId] = 0;
+            String word = words.get(wordId);
+            // Only the start of a long word is compared, so partially typed words still match
+            int comparedTrigrams = Math.min(word.length(), token.length() + 1) + 2;
+            double similarity = (double) shared / (queryTrigrams.size() + comparedTrigrams - shared);
+            if (similarity >= MIN_TRIGRAM_SIMILARITY) {
+                candidates.add(new WordMatch(wordId, similarity));
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(WordMatch::score).reversed());
+        
+        // ... and edit distance decides
+        List<WordMatch> matches = new ArrayList<>();
+        int maxDistance = Math.max(1, token.length() / 3);
+        for (int i = 0; i < candidates.size() && i < MAX_WORD_CANDIDATES; i++) {
+            String word = words.get(candidates.get(i).wordId());
+            int distance = Math.min(
+                levenshtein(token, word, maxDistance),
+                levenshtein(token, word.substring(0, Math.min(word.length(), token.length())), maxDistance));
+            if (distance <= maxDistance) {
+                double score = 1.0 - (double) distance / Math.max(token.length(), 1);
+                matches.add(new WordMatch(candidates.get(i).wordId(), score));
+            }
+        }
+        return matches;
+    }
+    
+    private void addMedia(Media media) {
+        Set<Integer> mediaWords = new HashSet<>();
+        List<String> tokens = TextNormalizer.tokenize(media.getTitle());
+        if (media.getAuthor() != null) {
+            tokens.addAll(TextNormalizer.tokenize(media.getAuthorName()));
+        }
+        for (String token : tokens) {
+            int wordId = wordId(token);
+            mediaWords.add(wordId);
+            mediaByWord.computeIfAbsent(wordId, k -> new HashSet<>()).add(media.getId());
+        }
+        wordsByMedia.put(media.getId(), mediaWords);
+        mediaById.put(media.getId(), media);
+        titles.put(media.getId(), TextNormalizer.normalize(media.getTitle()));
+    }
+    
+    private void removeMedia(int id) {
+        Set<Integer> mediaWords = wordsByMedia.remove(id);
+        mediaById.remove(id);
+        titles.remove(id);
+        if (mediaWords == null) {
+            return;
+        }
+        for (Integer wordId : mediaWords) {
+            Set<Integer> ids = mediaByWord.get(wordId);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                // Unused words leave the trigram postings; their id slot stays reserved
+                mediaByWord.remove(wordId);
+                for (String trigram : trigrams(words.get(wordId))) {
+                    Set<Integer> postings = trigramPostings.get(trigram);
+                    postings.remove(wordId);
+                    if (postings.isEmpty()) {
+                        trigramPostings.remove(trigram);
+                    }
+                }
+                wordIds.remove(words.get(wordId));
+            }
+        }
+    }
+    
+    private int wordId(String word) {
+        Integer existing = wordIds.get(word);
+        if (existing != null) {
+            return existing;
+        }
+        int id = words.size();
+        words.add(word);
+        wordIds.put(word, id);
+        for (String trigram : trigrams(word)) {
+            trigramPostings.computeIfAbsent(trigram, k -> new HashSet<>()).add(id);
+        }
+        return id;
+    }
+    
+    // Trigrams of the word padded as "  word ", so short words and word starts get trigrams too
+    private static Set<String> trigrams(String word) {
+        String padded = "  " + word + " ";
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+    
+    // Edit distance, giving up early (returning max + 1) once it must exceed max
+    private static int levenshtein(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -2,6 +2,9 @@ package com.library.ui;
 
 import com.library.model.Loan;
 import com.library.service.DatabaseManager;
+import com.library.service.FinePolicyEngine;
+import com.library.service.NoticeTemplates;
+import com.library.util.LibraryClock;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
@@ -10,6 +13,8 @@ import javafx.scene.layout.VBox;
 import java.time.format.DateTimeFormatter;
 
 public class ContactMemberDialog extends Dialog<Void> {
+    private static final String CUSTOM_MESSAGE = "Custom Message";
+    
     private DatabaseManager dbManager;
     private Loan loan;
     private TextArea messageArea;
@@ -78,7 +83,7 @@ public class ContactMemberDialog extends Dialog<Void> {
         addInfoRow(grid, 3, "Item:", loan.getMediaTitle());
         addInfoRow(grid, 4, "Due Date:", loan.getDueDate().format(formatter));
         addInfoRow(grid, 5, "Days Overdue:", String.valueOf(loan.getDaysOverdue()));
-        addInfoRow(grid, 6, "Fine Amount:", String.format("€%.2f", loan.calculateFine()));
+        addInfoRow(grid, 6, "Fine Amount:", String.format("€%.2f", FinePolicyEngine.getInstance().calculateFine(loan)));
         
         section.getChildren().addAll(title, grid);
         return section;
@@ -91,12 +96,8 @@ public class ContactMemberDialog extends Dialog<Void> {
         title.getStyleClass().add("section-title");
         
         templateCombo = new ComboBox<>();
-        templateCombo.getItems().addAll(
-            "Friendly Reminder",
-            "Urgent Notice", 
-            "Final Warning",
-            "Custom Message"
-        );
+        templateCombo.getItems().addAll(NoticeTemplates.getInstance().getNames());
+        templateCombo.getItems().add(CUSTOM_MESSAGE);
         templateCombo.setPromptText("Select a template");
         templateCombo.setPrefWidth(200);
         
@@ -142,85 +143,11 @@ public class ContactMemberDialog extends Dialog<Void> {
     
     private void loadTemplate() {
         String template = templateCombo.getValue();
-        if (template == null || "Custom Message".equals(template)) {
+        if (template == null || CUSTOM_MESSAGE.equals(template)) {
             return;
         }
         
-        var member = loan.getMember();
-        String memberName = member.getFirstName();
-        String mediaTitle = loan.getMediaTitle();
-        long daysOverdue = loan.getDaysOverdue();
-        String dueDate = loan.getDueDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-        double fineAmount = loan.calculateFine();
-        
-        String message = "";
-        
-        switch (template) {
-            case "Friendly Reminder":
-                message = String.format(
-                    "Dear %s,\n\n" +
-                    "This is a friendly reminder that the following item is overdue:\n\n" +
-                    "Title: %s\n" +
-                    "Due Date: %s\n" +
-                    "Days Overdue: %d\n\n" +
-                    "Please return this item at your earliest convenience. " +
-                    "A fine of €%.2f has been applied to your account.\n\n" +
-                    "If you have already returned this item, please disregard this message. " +
-                    "If you need to renew the loan, please contact us immediately.\n\n" +
-                    "Thank you for your cooperation.\n\n" +
-                    "Best regards,\n" +
-                    "Library Staff",
-                    memberName, mediaTitle, dueDate, daysOverdue, fineAmount
-                );
-                break;
-                
-            case "Urgent Notice":
-                message = String.format(
-                    "URGENT: Overdue Item Notice\n\n" +
-                    "Dear %s,\n\n" +
-                    "Our records show that you have an overdue item that requires immediate attention:\n\n" +
-                    "Title: %s\n" +
-                    "Due Date: %s\n" +
-                    "Days Overdue: %d\n" +
-                    "Current Fine: €%.2f\n\n" +
-                    "Please return this item IMMEDIATELY to avoid additional penalties. " +
-                    "Failure to return overdue items may result in suspension of your library privileges.\n\n" +
-                    "Please contact us at your earliest convenience if you are experiencing difficulties " +
-                    "returning this item.\n\n" +
-                    "Urgent attention required.\n\n" +
-                    "Library Administration",
-                    memberName, mediaTitle, dueDate, daysOverdue, fineAmount
-                );
-                break;
-                
-            case "Final Warning":
-                message = String.format(
-                    "FINAL WARNING: Immediate Action Required\n\n" +
-                    "Dear %s,\n\n" +
-                    "This is your FINAL WARNING regarding the following severely overdue item:\n\n" +
-                    "Title: %s\n" +
-                    "Due Date: %s\n" +
-                    "Days Overdue: %d\n" +
-                    "Current Fine: €%.2f\n\n" +
-                    "IMMEDIATE ACTION IS REQUIRED. You must:\n" +
-                    "1. Return the overdue item within 48 hours\n" +
-                    "2. Pay the outstanding fine\n" +
-                    "3. Contact the library to discuss this matter\n\n" +
-                    "Failure to comply within 48 hours will result in:\n" +
-                    "• Suspension of your library account\n" +
-                    "• Additional administrative fees\n" +
-                    "• Potential legal action for item replacement\n\n" +
-                    "This is your final opportunity to resolve this matter before " +
-                    "further action is taken.\n\n" +
-                    "Contact us immediately: [Library Contact Information]\n\n" +
-                    "Library Administration\n" +
-                    "Final Notice",
-                    memberName, mediaTitle, dueDate, daysOverdue, fineAmount
-                );
-                break;
-        }
-        
-        messageArea.setText(message);
+        messageArea.setText(NoticeTemplates.getInstance().render(template, loan).body());
     }
     
     private void sendNotification() {
@@ -234,25 +161,53 @@ public class ContactMemberDialog extends Dialog<Void> {
             return;
         }
         
-        // In a real application, this would send an email/SMS
-        // For now, we'll show a confirmation dialog
+        var member = loan.getMember();
+        if (member.getEmail() == null || member.getEmail().isBlank()) {
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle("No Email Address");
+            alert.setHeaderText(member.getFullName() + " has no email address");
+            alert.setContentText("Please contact the member by phone: " + member.getPhone());
+            alert.showAndWait();
+            return;
+        }
+        
+        // Queued in the notification outbox; the dispatcher sends it and retries if the mail server is down
+        String template = templateCombo.getValue();
+        boolean isTemplate = template != null && !CUSTOM_MESSAGE.equals(template);
+        String subject = isTemplate
+            ? NoticeTemplates.getInstance().render(template, loan).subject()
+            : "Your loan: " + loan.getMediaTitle();
+        if (!dbManager.enqueueNotification(member, loan, isTemplate ? template : null, subject, message)) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Notification Failed");
+            alert.setHeaderText("The message could not be queued");
+            alert.setContentText("Please try again.");
+            alert.showAndWait();
+            return;
+        }
+        
         Alert confirmAlert = new Alert(Alert.AlertType.INFORMATION);
-        confirmAlert.setTitle("Notification Sent");
-        confirmAlert.setHeaderText("Notification sent successfully");
+        confirmAlert.setTitle("Notification Queued");
+        confirmAlert.setHeaderText("Notification queued for sending");
         confirmAlert.setContentText(String.format(
-            "Message sent to %s\n\nEmail: %s\nPhone: %s\n\nMessage length: %d characters",
+            "Message to %s\n\nEmail: %s\n\nMessage length: %d characters",
             loan.getMemberName(),
-            loan.getMember().getEmail(),
-            loan.getMember().getPhone(),
+            member.getEmail(),
             message.length()
         ));
         confirmAlert.showAndWait();
         
         // Add a note to the loan
         String existingNotes = loan.getNotes() != null ? loan.getNotes() : "";
-        String newNote = "\nContacted member on " + java.time.LocalDate.now() + 
+        String newNote = "\nContacted member on " + LibraryClock.today() + 
                         " - Template: " + (templateCombo.getValue() != null ? templateCombo.getValue() : "Custom");
         loan.setNotes(existingNotes + newNote);
-        dbManager.updateLoan(loan);
+        if (!dbManager.updateLoan(loan)) {
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle("Note Not Saved");
+            alert.setHeaderText("The message was queued, but the contact note could not be added to the loan");
+            alert.setContentText("It was probably changed at another workstation and will be reloaded shortly; please try again.");
+            alert.showAndWait();
+        }
     }
 }
\ No newline at end of file
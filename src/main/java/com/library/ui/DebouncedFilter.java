@@ -0,0 +1,107 @@
+package com.library.ui;
+
+import javafx.animation.PauseTransition;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
+import javafx.concurrent.Task;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Filters a table's source list off the FX thread. The predicate is built on
+ * the FX thread (so it can read the filter controls and the search indexes),
+ * evaluated on a background thread, and the matches are published with a
+ * single setAll. Typing is debounced, and a newer run cancels an older one.
+ */
+public class DebouncedFilter<T> {
+    private static final Duration TYPING_DELAY = Duration.millis(200);
+    private static final int CANCEL_CHECK_INTERVAL = 1024;
+    
+    // One worker for all views: only the latest run of a view matters, older ones get cancelled
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "table-filter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final ObservableList<T> source;
+    private final Supplier<Predicate<T>> predicateFactory;
+    private final ObservableList<T> results = FXCollections.observableArrayList();
+    private final PauseTransition debounce = new PauseTransition(TYPING_DELAY);
+    // Held here and registered weakly, so a view that is navigated away from can be collected
+    private final ListChangeListener<T> sourceListener = change -> refilterLater();
+    private Task<List<T>> running;
+    
+    public DebouncedFilter(ObservableList<T> source, Supplier<Predicate<T>> predicateFactory) {
+        this.source = source;
+        this.predicateFactory = predicateFactory;
+        debounce.setOnFinished(e -> start());
+        // Data changes re-run the filter; bursts such as a reload are coalesced by the debounce
+        source.addListener(new WeakListChangeListener<>(sourceListener));
+    }
+    
+    // The filtered items, to be wrapped in a SortedList for the table
+    public ObservableList<T> getResults() {
+        return results;
+    }
+    
+    // For typing: waits until input pauses
+    public void refilterLater() {
+        cancelRunning();
+        debounce.playFromStart();
+    }
+    
+    // For combo boxes and reloads: starts right away (still off the FX thread)
+    public void refilterNow() {
+        debounce.stop();
+        start();
+    }
+    
+    private void start() {
+        cancelRunning();
+        Predicate<T> predicate = predicateFactory.get();
+        List<T> snapshot = new ArrayList<>(source);
+        
+        Task<List<T>> task = new Task<>() {
+            @Override
+            protected List<T> call() {
+                List<T> matches = new ArrayList<>();
+                for (int i = 0; i < snapshot.size(); i++) {
+                    if (i % CANCEL_CHECK_INTERVAL == 0 && isCancelled()) {
+                        return matches;
+                    }
+                    T item = snapshot.get(i);
+                    if (predicate.test(item)) {
+                        matches.add(item);
+                    }
+                }
+                return matches;
+            }
+        };
+        task.setOnSucceeded(e -> {
+            // A result that arrives after a newer run was started is stale
+            if (running == task) {
+                running = null;
+                results.setAll(task.getValue());
+            }
+        });
+        task.setOnFailed(e -> System.err.println("Filtering failed: " + task.getException().getMessage()));
+        running = task;
+        WORKER.execute(task);
+    }
+    
+    private void cancelRunning() {
+        if (running != null) {
+            running.cancel();
+            running = null;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.library.ui;
 
 import com.library.model.Fine;
 import com.library.service.DatabaseManager;
+import com.library.util.LibraryClock;
+import com.library.util.Money;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
@@ -102,7 +104,7 @@ public class FineDetailsDialog extends Dialog<Void> {
         
         if (fine.isOutstanding()) {
             long daysOutstanding = java.time.temporal.ChronoUnit.DAYS.between(
-                fine.getIssueDate(), java.time.LocalDate.now());
+                fine.getIssueDate(), LibraryClock.today());
             addDetailRow(grid, 6, "Days Outstanding:", String.valueOf(daysOutstanding));
         }
         
@@ -133,11 +135,7 @@ public class FineDetailsDialog extends Dialog<Void> {
         addDetailRow(grid, 4, "Status:", member.getStatus());
         
         // Show total outstanding fines for this member
-        double totalFines = dbManager.getMemberFines(member).stream()
-            .filter(com.library.model.Fine::isOutstanding)
-            .mapToDouble(com.library.model.Fine::getAmount)
-            .sum();
-        addDetailRow(grid, 5, "Total Outstanding Fines:", String.format("€%.2f", totalFines));
+        addDetailRow(grid, 5, "Total Outstanding Fines:", Money.format(dbManager.getMemberOutstandingFineCents(member)));
         
         section.getChildren().addAll(title, grid);
         return section;
@@ -200,7 +198,10 @@ public class FineDetailsDialog extends Dialog<Void> {
         Optional<ButtonType> result = confirmAlert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
             fine.markAsPaid();
-            dbManager.updateFine(fine);
+            if (!dbManager.updateFine(fine)) {
+                showAlert("Save Failed", "The fine could not be saved. It was probably changed at another workstation and will be reloaded shortly; please try again.");
+                return false;
+            }
             showAlert("Success", "Fine marked as paid successfully!");
             return true;
         }
@@ -219,7 +220,10 @@ public class FineDetailsDialog extends Dialog<Void> {
         Optional<ButtonType> result = confirmAlert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
             fine.waive();
-            dbManager.updateFine(fine);
+            if (!dbManager.updateFine(fine)) {
+                showAlert("Save Failed", "The fine could not be saved. It was probably changed at another workstation and will be reloaded shortly; please try again.");
+                return false;
+            }
             showAlert("Success", "Fine waived successfully!");
             return true;
         }
@@ -2,8 +2,9 @@ package com.library.ui;
 
 import com.library.model.Fine;
 import com.library.service.DatabaseManager;
-import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
+import com.library.util.TextNormalizer;
+import com.library.util.Collation;
+import com.library.util.Money;
 import javafx.collections.transformation.SortedList;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
@@ -14,11 +15,12 @@ import javafx.scene.layout.VBox;
 
 import java.time.LocalDate;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 public class FineManagementView extends VBox {
     private DatabaseManager dbManager;
     private TableView<Fine> fineTable;
-    private FilteredList<Fine> filteredFines;
+    private DebouncedFilter<Fine> fineFilter;
     private TextField searchField;
     private ComboBox<String> statusFilter;
     private Label totalOutstandingLabel;
@@ -139,14 +141,9 @@ public class FineManagementView extends VBox {
         idCol.setPrefWidth(80);
         
         // Member Column
-        TableColumn<Fine, String> memberCol = new TableColumn<>("Member");
+        TableColumn<Fine, Collation.SortKey> memberCol = new TableColumn<>("Member");
         memberCol.setCellValueFactory(cellData -> 
-            new javafx.beans.binding.StringBinding() {
-                @Override
-                protected String computeValue() {
-                    return cellData.getValue().getMemberName();
-                }
-            });
+            new javafx.beans.property.ReadOnlyObjectWrapper<>(cellData.getValue().getMemberSortKey()));
         memberCol.setPrefWidth(150);
         
         // Amount Column
@@ -205,56 +202,52 @@ public class FineManagementView extends VBox {
     }
     
     private void loadFines() {
-        ObservableList<Fine> fines = dbManager.getAllFines();
-        filteredFines = new FilteredList<>(fines);
-        
-        searchField.textProperty().addListener((observable, oldValue, newValue) -> updateFilters());
-        statusFilter.valueProperty().addListener((observable, oldValue, newValue) -> updateFilters());
-        
-        SortedList<Fine> sortedFines = new SortedList<>(filteredFines);
-        sortedFines.comparatorProperty().bind(fineTable.comparatorProperty());
-        
-        fineTable.setItems(sortedFines);
+        // The filter pipeline and its listeners are set up once; later calls re-apply the filters
+        if (fineFilter == null) {
+            fineFilter = new DebouncedFilter<>(dbManager.getAllFines(), this::buildFilterPredicate);
+            
+            searchField.textProperty().addListener((observable, oldValue, newValue) -> fineFilter.refilterLater());
+            statusFilter.valueProperty().addListener((observable, oldValue, newValue) -> fineFilter.refilterNow());
+            
+            SortedList<Fine> sortedFines = new SortedList<>(fineFilter.getResults());
+            sortedFines.comparatorProperty().bind(fineTable.comparatorProperty());
+            
+            fineTable.setItems(sortedFines);
+        }
+        fineFilter.refilterNow();
         updateStatistics();
     }
     
-    private void updateFilters() {
-        filteredFines.setPredicate(fine -> {
-            String searchText = searchField.getText();
-            boolean matchesSearch = true;
-            if (searchText != null && !searchText.trim().isEmpty()) {
-                String lowerCaseFilter = searchText.toLowerCase();
-                matchesSearch = fine.getMemberName().toLowerCase().contains(lowerCaseFilter) ||
-                              fine.getReason().toLowerCase().contains(lowerCaseFilter) ||
-                              String.valueOf(fine.getId()).contains(lowerCaseFilter);
-            }
+    // Runs on the FX thread; the returned predicate runs in the background, so it only uses captured values
+    private Predicate<Fine> buildFilterPredicate() {
+        // Search filter: normalized once, then matched against each fine's cached search key
+        String searchText = searchField.getText();
+        String searchKey = searchText != null ? TextNormalizer.normalize(searchText.trim()) : "";
+        String statusFilterValue = statusFilter.getValue();
+        
+        return fine -> {
+            boolean matchesSearch = searchKey.isEmpty() || fine.getSearchKey().contains(searchKey);
             
-            String statusFilterValue = statusFilter.getValue();
             boolean matchesStatus = statusFilterValue == null || "All".equals(statusFilterValue) || 
                                   statusFilterValue.equals(fine.getStatus());
             
             return matchesSearch && matchesStatus;
-        });
+        };
     }
     
     private void updateStatistics() {
-        double totalOutstanding = dbManager.getTotalOutstandingFines();
-        double totalPaid = dbManager.getAllFines().stream()
-            .filter(Fine::isPaid)
-            .mapToDouble(Fine::getAmount)
-            .sum();
-        
-        totalOutstandingLabel.setText(String.format("Outstanding: €%.2f", totalOutstanding));
-        totalPaidLabel.setText(String.format("Total Paid: €%.2f", totalPaid));
+        totalOutstandingLabel.setText("Outstanding: " + Money.format(dbManager.getTotalOutstandingFineCents()));
+        totalPaidLabel.setText("Total Paid: " + Money.format(dbManager.getTotalPaidFineCents()));
     }
     
     private void markAsPaid() {
         Fine selectedFine = fineTable.getSelectionModel().getSelectedItem();
         if (selectedFine != null && selectedFine.isOutstanding()) {
             selectedFine.markAsPaid();
-            dbManager.updateFine(selectedFine);
+            boolean saved = dbManager.updateFine(selectedFine);
             loadFines();
-            showAlert("Success", "Fine marked as paid!");
+            showAlert(saved ? "Success" : "Save Failed",
+                saved ? "Fine marked as paid!" : "The fine could not be saved. It was probably changed at another workstation and will be reloaded shortly; please try again.");
         }
     }
     
@@ -262,9 +255,10 @@ public class FineManagementView extends VBox {
         Fine selectedFine = fineTable.getSelectionModel().getSelectedItem();
         if (selectedFine != null && selectedFine.isOutstanding()) {
             selectedFine.waive();
-            dbManager.updateFine(selectedFine);
+            boolean saved = dbManager.updateFine(selectedFine);
             loadFines();
-            showAlert("Success", "Fine waived!");
+            showAlert(saved ? "Success" : "Save Failed",
+                saved ? "Fine waived!" : "The fine could not be saved. It was probably changed at another workstation and will be reloaded shortly; please try again.");
         }
     }
     
@@ -0,0 +1,115 @@
+package com.library.ui;
+
+import com.library.model.Fine;
+import com.library.model.Loan;
+import com.library.model.Media;
+import com.library.model.Member;
+import com.library.service.DatabaseManager;
+import com.library.service.GlobalSearchService;
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.VBox;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class GlobalSearchView extends VBox {
+    private DatabaseManager dbManager;
+    private GlobalSearchService searchService;
+    private String query;
+    private Label summaryLabel;
+    private VBox groupsBox;
+    
+    public GlobalSearchView(DatabaseManager dbManager, GlobalSearchService searchService, String query) {
+        this.dbManager = dbManager;
+        this.searchService = searchService;
+        this.query = query;
+        setupUI();
+        runSearch();
+    }
+    
+    private void setupUI() {
+        setSpacing(15);
+        setPadding(new Insets(20));
+        getStyleClass().add("management-view");
+        
+        // Title
+        Label title = new Label("Search: " + query);
+        title.getStyleClass().add("page-title");
+        
+        summaryLabel = new Label();
+        summaryLabel.getStyleClass().add("stats-label");
+        
+        groupsBox = new VBox(10);
+        ScrollPane scrollPane = new ScrollPane(groupsBox);
+        scrollPane.setFitToWidth(true);
+        VBox.setVgrow(scrollPane, javafx.scene.layout.Priority.ALWAYS);
+        
+        getChildren().addAll(title, summaryLabel, scrollPane);
+    }
+    
+    private void runSearch() {
+        GlobalSearchService.Result result = searchService.search(query,
+            GlobalSearchService.DEFAULT_GROUP_LIMIT, GlobalSearchService.DEFAULT_BUDGET_MILLIS);
+        
+        String summary = result.size() + " results in " + result.elapsedMillis() + " ms";
+        if (!result.timedOut().isEmpty()) {
+            summary += " (no time left for " + result.timedOut().stream()
+                .map(GlobalSearchService.Group::getLabel).collect(Collectors.joining(", ")) + ")";
+        }
+        summaryLabel.setText(summary);
+        
+        groupsBox.getChildren().clear();
+        if (result.groups().isEmpty()) {
+            groupsBox.getChildren().add(new Label("Nothing found."));
+            return;
+        }
+        for (Map.Entry<GlobalSearchService.Group, List<GlobalSearchService.Hit>> group : result.groups().entrySet()) {
+            groupsBox.getChildren().add(createGroupPane(group.getKey(), group.getValue()));
+        }
+    }
+    
+    private TitledPane createGroupPane(GlobalSearchService.Group group, List<GlobalSearchService.Hit> hits) {
+        ListView<GlobalSearchService.Hit> list = new ListView<>();
+        list.getItems().setAll(hits);
+        list.setPrefHeight(Math.min(hits.size(), 10) * 48 + 4);
+        list.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(GlobalSearchService.Hit hit, boolean empty) {
+                super.updateItem(hit, empty);
+                if (empty || hit == null) {
+                    setText(null);
+                } else {
+                    setText(hit.title() + "\n" + hit.detail());
+                }
+            }
+        });
+        
+        // Double-click opens the item the same way its management view does
+        list.setOnMouseClicked(event -> {
+            if (event.getButton() == MouseButton.PRIMARY && event.getClickCount() == 2) {
+                GlobalSearchService.Hit hit = list.getSelectionModel().getSelectedItem();
+                if (hit != null) {
+                    openHit(hit);
+                }
+            }
+        });
+        
+        TitledPane pane = new TitledPane(group.getLabel() + " (" + hits.size() + ")", list);
+        pane.setCollapsible(true);
+        return pane;
+    }
+    
+    private void openHit(GlobalSearchService.Hit hit) {
+        switch (hit.group()) {
+            case MEMBERS -> new MemberLoansDialog(dbManager, (Member) hit.item()).showAndWait();
+            case MEDIA -> new MediaDialog(dbManager, (Media) hit.item()).showAndWait();
+            case LOANS -> new LoanDetailsDialog(dbManager, (Loan) hit.item()).showAndWait();
+            case FINES -> new FineDetailsDialog(dbManager, (Fine) hit.item()).showAndWait();
+        }
+        // The item may have been edited in the dialog
+        runSearch();
+    }
+}
@@ -1,7 +1,10 @@
 package com.library.ui;
 
+import com.library.model.Fine;
 import com.library.model.Loan;
 import com.library.service.DatabaseManager;
+import com.library.service.FinePolicyEngine;
+import com.library.util.LibraryClock;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
@@ -9,6 +12,7 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Optional;
 
 public class LoanDetailsDialog extends Dialog<Void> {
@@ -177,15 +181,15 @@ public class LoanDetailsDialog extends Dialog<Void> {
         grid.setVgap(8);
         
         if (loan.isOverdue()) {
-            double fine = loan.calculateFine();
+            double fine = FinePolicyEngine.getInstance().calculateFine(loan);
             addDetailRow(grid, 0, "Overdue Status:", "OVERDUE (" + loan.getDaysOverdue() + " days)");
             addDetailRow(grid, 1, "Fine Amount:", String.format("€%.2f", fine));
-            addDetailRow(grid, 2, "Fine Rate:", "€0.50 per day (max €10.00)");
+            addDetailRow(grid, 2, "Fine Rate:", FinePolicyEngine.getInstance().policyFor(loan.getMedia()).describe());
         } else if ("Returned".equals(loan.getStatus())) {
             addDetailRow(grid, 0, "Status:", "Returned on time");
         } else {
             long daysRemaining = java.time.temporal.ChronoUnit.DAYS.between(
-                java.time.LocalDate.now(), loan.getDueDate());
+                LibraryClock.today(), loan.getDueDate());
             addDetailRow(grid, 0, "Days Remaining:", String.valueOf(daysRemaining));
         }
         
@@ -239,7 +243,10 @@ public class LoanDetailsDialog extends Dialog<Void> {
         Optional<ButtonType> result = confirmAlert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
             loan.renew();
-            dbManager.updateLoan(loan);
+            if (!dbManager.updateLoan(loan)) {
+                showAlert("Save Failed", "The renewal could not be saved. It was probably changed at another workstation and will be reloaded shortly; please try again.");
+                return false;
+            }
             showAlert("Success", "Loan renewed successfully! New due date: " + loan.getDueDate());
             return true;
         }
@@ -254,23 +261,22 @@ public class LoanDetailsDialog extends Dialog<Void> {
         
         String contentText = "Mark this item as returned?";
         if (loan.isOverdue()) {
-            double fine = loan.calculateFine();
-            contentText += String.format("\n\nNote: This item is %d days overdue. A fine of €%.2f will be applied.", 
-                loan.getDaysOverdue(), fine);
+            // Only what the return will actually charge: the fine run may have fined the loan already
+            List<Fine> fines = dbManager.finesOnReturn(List.of(loan));
+            contentText += fines.isEmpty()
+                ? String.format("\n\nNote: This item is %d days overdue. No further fine is due.", loan.getDaysOverdue())
+                : String.format("\n\nNote: This item is %d days overdue. A fine of €%.2f will be applied.",
+                    loan.getDaysOverdue(), fines.get(0).getAmount());
         }
         confirmAlert.setContentText(contentText);
         
         Optional<ButtonType> result = confirmAlert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            // Generate fine if overdue
-            if (loan.isOverdue()) {
-                double fineAmount = loan.calculateFine();
-                com.library.model.Fine fine = new com.library.model.Fine(
-                    0, loan.getMember(), loan, fineAmount, "Overdue return");
-                dbManager.addFine(fine);
+            // Fine, return, copies and member count in one transaction
+            if (dbManager.returnLoan(loan).returned().isEmpty()) {
+            showAlert("Return Failed", "The item could not be returned. It may have been changed at another workstation; please try again.");
+            return false;
             }
-            
-            dbManager.returnLoan(loan);
             showAlert("Success", "Item returned successfully!");
             return true;
         }
@@ -4,9 +4,14 @@ import com.library.model.Loan;
 import com.library.model.Media;
 import com.library.model.Member;
 import com.library.service.DatabaseManager;
+import com.library.service.EligibilityEngine;
+import com.library.service.MemberStats;
+import com.library.util.LibraryClock;
+import com.library.util.Money;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.VBox;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -14,6 +19,9 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class LoanDialog extends Dialog<Loan> {
+    private static final int MEMBER_SUGGESTIONS = 50;
+    
+    private TextField memberSearchField;
     private ComboBox<Member> memberCombo;
     private ComboBox<Media> mediaCombo;
     private DatePicker loanDatePicker;
@@ -43,7 +51,7 @@ public class LoanDialog extends Dialog<Loan> {
         if (loan != null) {
             populateFields();
         } else {
-            loanDatePicker.setValue(LocalDate.now());
+            loanDatePicker.setValue(LibraryClock.today());
         }
         
         setResultConverter(dialogButton -> {
@@ -62,17 +70,21 @@ public class LoanDialog extends Dialog<Loan> {
         
         // Member selection
         grid.add(new Label("Member:"), 0, 0);
+        memberSearchField = new TextField();
+        memberSearchField.setPromptText("Type name, email or ID...");
+        memberSearchField.setPrefWidth(300);
         memberCombo = new ComboBox<>();
         memberCombo.setPromptText("Select member");
         memberCombo.setPrefWidth(300);
         
-        // Filter to show only active members who can borrow
-        List<Member> eligibleMembers = dbManager.getAllMembers().stream()
-            .filter(Member::canBorrow)
-            .collect(Collectors.toList());
-        memberCombo.getItems().addAll(eligibleMembers);
+        // Type-ahead over eligible members, filled only once the list is opened or a search is typed
+        memberCombo.setOnShowing(event -> {
+            if (memberCombo.getItems().isEmpty()) {
+                memberCombo.getItems().setAll(eligibleMembers(memberSearchField.getText()));
+            }
+        });
         
-        grid.add(memberCombo, 1, 0);
+        grid.add(new VBox(5, memberSearchField, memberCombo), 1, 0);
         
         // Member info label
         memberInfoLabel = new Label();
@@ -134,6 +146,15 @@ public class LoanDialog extends Dialog<Loan> {
     }
     
     private void setupEventHandlers() {
+        // Narrow the member list as the name, email or ID is typed
+        memberSearchField.textProperty().addListener((observable, oldValue, newValue) -> {
+            List<Member> suggestions = eligibleMembers(newValue);
+            memberCombo.getItems().setAll(suggestions);
+            if (suggestions.size() == 1) {
+                memberCombo.setValue(suggestions.get(0));
+            }
+        });
+        
         // Update member info when selection changes
         memberCombo.valueProperty().addListener((observable, oldValue, newValue) -> {
             updateMemberInfo(newValue);
@@ -151,12 +172,17 @@ public class LoanDialog extends Dialog<Loan> {
         });
     }
     
+    private List<Member> eligibleMembers(String search) {
+        return dbManager.typeAheadMembers(search != null ? search : "", MEMBER_SUGGESTIONS, dbManager::canBorrow);
+    }
+    
     private void updateMemberInfo(Member member) {
         if (member != null) {
+            MemberStats stats = dbManager.getMemberStats(member);
             memberInfoLabel.setText(String.format(
-                "Current loans: %d/%d | Status: %s | Email: %s", 
-                member.getCurrentLoans(), member.getMaxLoans(), 
-                member.getStatus(), member.getEmail()));
+                "Current loans: %d/%d | Overdue: %d | Fines: %s | Status: %s | Email: %s", 
+                stats.activeLoans(), member.getMaxLoans(), stats.overdueLoans(),
+                Money.format(stats.outstandingCents()), member.getStatus(), member.getEmail()));
         } else {
             memberInfoLabel.setText("");
         }
@@ -187,25 +213,24 @@ public class LoanDialog extends Dialog<Loan> {
         
         if (memberCombo.getValue() == null) {
             errors.append("- Member must be selected\n");
-        } else {
-            Member member = memberCombo.getValue();
-            if (!member.canBorrow()) {
-                errors.append("- Selected member cannot borrow (inactive or at loan limit)\n");
-            }
         }
         
         if (mediaCombo.getValue() == null) {
             errors.append("- Media must be selected\n");
-        } else {
-            Media media = mediaCombo.getValue();
-            if (!media.isAvailable()) {
-                errors.append("- Selected media is not available\n");
+        }
+        
+        // Status, loan limit, overdue items, fines and availability; an existing loan already holds its copy
+        if (loan == null && memberCombo.getValue() != null && mediaCombo.getValue() != null) {
+            EligibilityEngine eligibility = dbManager.getEligibility();
+            EligibilityEngine.Reason reason = eligibility.check(memberCombo.getValue(), mediaCombo.getValue());
+            if (reason != EligibilityEngine.Reason.OK) {
+                errors.append("- ").append(eligibility.describe(reason)).append("\n");
             }
         }
         
         if (loanDatePicker.getValue() == null) {
             errors.append("- Loan date is required\n");
-        } else if (loanDatePicker.getValue().isAfter(LocalDate.now())) {
+        } else if (loanDatePicker.getValue().isAfter(LibraryClock.today())) {
             errors.append("- Loan date cannot be in the future\n");
         }
         
@@ -232,6 +257,7 @@ public class LoanDialog extends Dialog<Loan> {
         updateMediaInfo(loan.getMedia());
         
         // For existing loans, disable member and media selection
+        memberSearchField.setDisable(true);
         memberCombo.setDisable(true);
         mediaCombo.setDisable(true);
     }
@@ -248,8 +274,13 @@ public class LoanDialog extends Dialog<Loan> {
         
         if (loan.getId() == 0) {
             dbManager.addLoan(loan);
-        } else {
-            dbManager.updateLoan(loan);
+        } else if (!dbManager.updateLoan(loan)) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Save Failed");
+            alert.setHeaderText("The loan could not be saved");
+            alert.setContentText("It was probably changed at another workstation and will be reloaded shortly; please try again.");
+            alert.showAndWait();
+            return null;
         }
         
         return loan;
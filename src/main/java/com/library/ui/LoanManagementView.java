@@ -1,9 +1,11 @@
 package com.library.ui;
 
+import com.library.model.Fine;
 import com.library.model.Loan;
 import com.library.service.DatabaseManager;
-import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
+import com.library.service.FinePolicyEngine;
+import com.library.util.TextNormalizer;
+import com.library.util.Collation;
 import javafx.collections.transformation.SortedList;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
@@ -13,12 +15,14 @@ import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 public class LoanManagementView extends VBox {
     private DatabaseManager dbManager;
     private TableView<Loan> loanTable;
-    private FilteredList<Loan> filteredLoans;
+    private DebouncedFilter<Loan> loanFilter;
     private TextField searchField;
     private ComboBox<String> statusFilter;
     private ComboBox<String> overdueFilter;
@@ -149,25 +153,15 @@ public class LoanManagementView extends VBox {
         idCol.setPrefWidth(80);
         
         // Member Column
-        TableColumn<Loan, String> memberCol = new TableColumn<>("Member");
+        TableColumn<Loan, Collation.SortKey> memberCol = new TableColumn<>("Member");
         memberCol.setCellValueFactory(cellData -> 
-            new javafx.beans.binding.StringBinding() {
-                @Override
-                protected String computeValue() {
-                    return cellData.getValue().getMemberName();
-                }
-            });
+            new javafx.beans.property.ReadOnlyObjectWrapper<>(cellData.getValue().getMemberSortKey()));
         memberCol.setPrefWidth(150);
         
         // Media Column
-        TableColumn<Loan, String> mediaCol = new TableColumn<>("Media");
+        TableColumn<Loan, Collation.SortKey> mediaCol = new TableColumn<>("Media");
         mediaCol.setCellValueFactory(cellData -> 
-            new javafx.beans.binding.StringBinding() {
-                @Override
-                protected String computeValue() {
-                    return cellData.getValue().getMediaTitle();
-                }
-            });
+            new javafx.beans.property.ReadOnlyObjectWrapper<>(cellData.getValue().getMediaSortKey()));
         mediaCol.setPrefWidth(200);
         
         // Loan Date Column
@@ -211,7 +205,7 @@ public class LoanManagementView extends VBox {
         TableColumn<Loan, String> fineCol = new TableColumn<>("Fine Amount");
         fineCol.setCellValueFactory(cellData -> {
             Loan loan = cellData.getValue();
-            double fine = loan.calculateFine();
+            double fine = FinePolicyEngine.getInstance().calculateFine(loan);
             if (fine > 0) {
                 return new javafx.beans.property.SimpleStringProperty(String.format("€%.2f", fine));
             } else {
@@ -254,42 +248,43 @@ public class LoanManagementView extends VBox {
     }
     
     private void loadLoans() {
-        ObservableList<Loan> loans = dbManager.getAllLoans();
-        filteredLoans = new FilteredList<>(loans);
-        
-        // Setup filters
-        searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            updateFilters();
-        });
-        
-        statusFilter.valueProperty().addListener((observable, oldValue, newValue) -> {
-            updateFilters();
-        });
-        
-        overdueFilter.valueProperty().addListener((observable, oldValue, newValue) -> {
-            updateFilters();
-        });
-        
-        SortedList<Loan> sortedLoans = new SortedList<>(filteredLoans);
-        sortedLoans.comparatorProperty().bind(loanTable.comparatorProperty());
-        
-        loanTable.setItems(sortedLoans);
+        // The filter pipeline and its listeners are set up once; later calls re-apply the filters
+        if (loanFilter == null) {
+            loanFilter = new DebouncedFilter<>(dbManager.getAllLoans(), this::buildFilterPredicate);
+            
+            // Setup filters
+            searchField.textProperty().addListener((observable, oldValue, newValue) -> {
+                loanFilter.refilterLater();
+            });
+            
+            statusFilter.valueProperty().addListener((observable, oldValue, newValue) -> {
+                loanFilter.refilterNow();
+            });
+            
+            overdueFilter.valueProperty().addListener((observable, oldValue, newValue) -> {
+                loanFilter.refilterNow();
+            });
+            
+            SortedList<Loan> sortedLoans = new SortedList<>(loanFilter.getResults());
+            sortedLoans.comparatorProperty().bind(loanTable.comparatorProperty());
+            
+            loanTable.setItems(sortedLoans);
+        }
+        loanFilter.refilterNow();
     }
     
-    private void updateFilters() {
-        filteredLoans.setPredicate(loan -> {
-            // Search filter
-            String searchText = searchField.getText();
-            boolean matchesSearch = true;
-            if (searchText != null && !searchText.trim().isEmpty()) {
-                String lowerCaseFilter = searchText.toLowerCase();
-                matchesSearch = loan.getMemberName().toLowerCase().contains(lowerCaseFilter) ||
-                              loan.getMediaTitle().toLowerCase().contains(lowerCaseFilter) ||
-                              String.valueOf(loan.getId()).contains(lowerCaseFilter);
-            }
+    // Runs on the FX thread; the returned predicate runs in the background, so it only uses captured values
+    private Predicate<Loan> buildFilterPredicate() {
+        // Search filter: normalized once, then matched against each loan's cached search key
+        String searchText = searchField.getText();
+        String searchKey = searchText != null ? TextNormalizer.normalize(searchText.trim()) : "";
+        String statusFilterValue = statusFilter.getValue();
+        String overdueFilterValue = overdueFilter.getValue();
+        
+        return loan -> {
+            boolean matchesSearch = searchKey.isEmpty() || loan.getSearchKey().contains(searchKey);
             
             // Status filter
-            String statusFilterValue = statusFilter.getValue();
             boolean matchesStatus = true;
             if (statusFilterValue != null && !"All".equals(statusFilterValue)) {
                 if ("Overdue".equals(statusFilterValue)) {
@@ -300,7 +295,6 @@ public class LoanManagementView extends VBox {
             }
             
             // Overdue filter
-            String overdueFilterValue = overdueFilter.getValue();
             boolean matchesOverdue = true;
             if (overdueFilterValue != null && !"All".equals(overdueFilterValue)) {
                 if ("Overdue Only".equals(overdueFilterValue)) {
@@ -311,7 +305,7 @@ public class LoanManagementView extends VBox {
             }
             
             return matchesSearch && matchesStatus && matchesOverdue;
-        });
+        };
     }
     
     private void showCreateLoanDialog() {
@@ -349,23 +343,23 @@ public class LoanManagementView extends VBox {
             
             String contentText = "Mark this item as returned?";
             if (selectedLoan.isOverdue()) {
-                double fine = selectedLoan.calculateFine();
-                contentText += String.format("\n\nNote: This item is %d days overdue. A fine of €%.2f will be applied.", 
-                    selectedLoan.getDaysOverdue(), fine);
+                // Only what the return will actually charge: the fine run may have fined the loan already
+                List<Fine> fines = dbManager.finesOnReturn(List.of(selectedLoan));
+                contentText += fines.isEmpty()
+                    ? String.format("\n\nNote: This item is %d days overdue. No further fine is due.", selectedLoan.getDaysOverdue())
+                    : String.format("\n\nNote: This item is %d days overdue. A fine of €%.2f will be applied.",
+                        selectedLoan.getDaysOverdue(), fines.get(0).getAmount());
             }
             confirmAlert.setContentText(contentText);
             
             Optional<ButtonType> result = confirmAlert.showAndWait();
             if (result.isPresent() && result.get() == ButtonType.OK) {
-                // Generate fine if overdue
-                if (selectedLoan.isOverdue()) {
-                    double fineAmount = selectedLoan.calculateFine();
-                    com.library.model.Fine fine = new com.library.model.Fine(
-                        0, selectedLoan.getMember(), selectedLoan, fineAmount, "Overdue return");
-                    dbManager.addFine(fine);
+                // Fine, return, copies and member count in one transaction
+                if (dbManager.returnLoan(selectedLoan).returned().isEmpty()) {
+                    loadLoans();
+                    showAlert("Return Failed", "The item could not be returned. It may have been changed at another workstation; the list has been reloaded.");
+                    return;
                 }
-                
-                dbManager.returnLoan(selectedLoan);
                 loadLoans();
                 showAlert("Success", "Item returned successfully!");
             }
@@ -390,7 +384,11 @@ public class LoanManagementView extends VBox {
             Optional<ButtonType> result = confirmAlert.showAndWait();
             if (result.isPresent() && result.get() == ButtonType.OK) {
                 selectedLoan.renew();
-                dbManager.updateLoan(selectedLoan);
+                if (!dbManager.updateLoan(selectedLoan)) {
+                    loadLoans();
+                    showAlert("Save Failed", "The renewal could not be saved. It was probably changed at another workstation and will be reloaded shortly; please try again.");
+                    return;
+                }
                 loadLoans();
                 showAlert("Success", "Loan renewed successfully! New due date: " + selectedLoan.getDueDate());
             }
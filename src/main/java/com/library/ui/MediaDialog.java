@@ -4,6 +4,8 @@ import com.library.model.Author;
 import com.library.model.Category;
 import com.library.model.Media;
 import com.library.service.DatabaseManager;
+import com.library.util.Isbn;
+import com.library.util.LibraryClock;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
@@ -73,7 +75,7 @@ public class MediaDialog extends Dialog<Media> {
         
         // Publish Year
         grid.add(new Label("Publish Year:"), 0, 2);
-        publishYearSpinner = new Spinner<>(1800, java.time.LocalDate.now().getYear(), 2000);
+        publishYearSpinner = new Spinner<>(1800, LibraryClock.today().getYear(), 2000);
         publishYearSpinner.setEditable(true);
         publishYearSpinner.setPrefWidth(150);
         grid.add(publishYearSpinner, 1, 2);
@@ -156,6 +158,13 @@ public class MediaDialog extends Dialog<Media> {
         
         if (isbnField.getText().trim().isEmpty()) {
             errors.append("- ISBN is required\n");
+        } else if (!Isbn.isValid(isbnField.getText())) {
+            errors.append("- ISBN is not a valid ISBN-10 or ISBN-13 (check digit)\n");
+        } else {
+            Media existing = dbManager.findMediaByIsbn(isbnField.getText());
+            if (existing != null && (media == null || existing.getId() != media.getId())) {
+                errors.append("- ISBN is already used by \"" + existing.getTitle() + "\"\n");
+            }
         }
         
         if (publisherField.getText().trim().isEmpty()) {
@@ -228,8 +237,13 @@ public class MediaDialog extends Dialog<Media> {
         
         if (media.getId() == 0) {
             dbManager.addMedia(media);
-        } else {
-            dbManager.updateMedia(media);
+        } else if (!dbManager.updateMedia(media)) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Save Failed");
+            alert.setHeaderText("The media could not be saved");
+            alert.setContentText("It was probably changed at another workstation and will be reloaded shortly; please try again.");
+            alert.showAndWait();
+            return null;
         }
         
         return media;
@@ -2,9 +2,8 @@ package com.library.ui;
 
 import com.library.model.Media;
 import com.library.service.DatabaseManager;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
+import com.library.service.FacetIndex;
+import com.library.util.Collation;
 import javafx.collections.transformation.SortedList;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
@@ -12,16 +11,28 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
+import javafx.util.Callback;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.Set;
 
 public class MediaManagementView extends VBox {
     private DatabaseManager dbManager;
     private TableView<Media> mediaTable;
-    private FilteredList<Media> filteredMedia;
+    private DebouncedFilter<Media> mediaFilter;
     private TextField searchField;
     private ComboBox<String> typeFilter;
+    private ComboBox<String> categoryFilter;
+    private ComboBox<String> languageFilter;
     private ComboBox<String> availabilityFilter;
+    private Label resultCountLabel;
+    // Counts per facet value from the last filter run, shown next to the filter options
+    private Map<FacetIndex.Facet, Map<String, Integer>> facetCounts = new EnumMap<>(FacetIndex.Facet.class);
     
     public MediaManagementView(DatabaseManager dbManager) {
         this.dbManager = dbManager;
@@ -61,27 +72,63 @@ public class MediaManagementView extends VBox {
         searchField.setPrefWidth(300);
         
         Label typeLabel = new Label("Type:");
-        typeFilter = new ComboBox<>();
+        typeFilter = createFacetFilter(FacetIndex.Facet.TYPE);
         typeFilter.getItems().addAll("All", "Book", "DVD", "CD", "Magazine", "Journal");
-        typeFilter.setValue("All");
+        
+        Label categoryLabel = new Label("Category:");
+        categoryFilter = createFacetFilter(FacetIndex.Facet.CATEGORY);
+        
+        Label languageLabel = new Label("Language:");
+        languageFilter = createFacetFilter(FacetIndex.Facet.LANGUAGE);
         
         Label availabilityLabel = new Label("Availability:");
-        availabilityFilter = new ComboBox<>();
-        availabilityFilter.getItems().addAll("All", "Available", "Unavailable");
-        availabilityFilter.setValue("All");
+        availabilityFilter = createFacetFilter(FacetIndex.Facet.AVAILABILITY);
+        availabilityFilter.getItems().addAll("All", FacetIndex.AVAILABLE, FacetIndex.UNAVAILABLE);
         
         Button clearBtn = new Button("Clear");
         clearBtn.setOnAction(e -> {
             searchField.clear();
             typeFilter.setValue("All");
+            categoryFilter.setValue("All");
+            languageFilter.setValue("All");
             availabilityFilter.setValue("All");
         });
         
+        resultCountLabel = new Label();
+        
         searchBar.getChildren().addAll(searchLabel, searchField, typeLabel, typeFilter, 
-                                     availabilityLabel, availabilityFilter, clearBtn);
+                                     categoryLabel, categoryFilter, languageLabel, languageFilter,
+                                     availabilityLabel, availabilityFilter, clearBtn, resultCountLabel);
         return searchBar;
     }
     
+    private ComboBox<String> createFacetFilter(FacetIndex.Facet facet) {
+        ComboBox<String> combo = new ComboBox<>();
+        combo.setValue("All");
+        Callback<ListView<String>, ListCell<String>> cellFactory = list -> new ListCell<>() {
+            @Override
+            protected void updateItem(String item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                } else if ("All".equals(item)) {
+                    setText(item);
+                } else {
+                    // How many media this value would match together with the other filters
+                    int count = facetCounts.getOrDefault(facet, Map.of()).getOrDefault(item, 0);
+                    setText(item + " (" + count + ")");
+                }
+            }
+        };
+        combo.setCellFactory(cellFactory);
+        // Cells are reused between popups, so recreate them to pick up the latest counts
+        combo.setOnShowing(e -> {
+            combo.setCellFactory(null);
+            combo.setCellFactory(cellFactory);
+        });
+        return combo;
+    }
+    
     private HBox createActionButtons() {
         HBox buttonBox = new HBox(10);
         buttonBox.getStyleClass().add("button-bar");
@@ -123,19 +170,15 @@ public class MediaManagementView extends VBox {
         idCol.setPrefWidth(60);
         
         // Title Column
-        TableColumn<Media, String> titleCol = new TableColumn<>("Title");
-        titleCol.setCellValueFactory(new PropertyValueFactory<>("title"));
+        TableColumn<Media, Collation.SortKey> titleCol = new TableColumn<>("Title");
+        titleCol.setCellValueFactory(cellData -> 
+            new javafx.beans.property.ReadOnlyObjectWrapper<>(cellData.getValue().getTitleSortKey()));
         titleCol.setPrefWidth(200);
         
         // Author Column
-        TableColumn<Media, String> authorCol = new TableColumn<>("Author");
+        TableColumn<Media, Collation.SortKey> authorCol = new TableColumn<>("Author");
         authorCol.setCellValueFactory(cellData -> 
-            new javafx.beans.binding.StringBinding() {
-                @Override
-                protected String computeValue() {
-                    return cellData.getValue().getAuthorName();
-                }
-            });
+            new javafx.beans.property.ReadOnlyObjectWrapper<>(cellData.getValue().getAuthorSortKey()));
         authorCol.setPrefWidth(150);
         
         // Type Column
@@ -211,61 +254,67 @@ public class MediaManagementView extends VBox {
     }
     
     private void loadMedia() {
-        ObservableList<Media> mediaList = dbManager.getAllMedia();
-        filteredMedia = new FilteredList<>(mediaList);
-        
-        // Setup search filter
-        searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            updateFilters();
-        });
-        
-        // Setup type filter
-        typeFilter.valueProperty().addListener((observable, oldValue, newValue) -> {
-            updateFilters();
-        });
-        
-        // Setup availability filter
-        availabilityFilter.valueProperty().addListener((observable, oldValue, newValue) -> {
-            updateFilters();
-        });
-        
-        SortedList<Media> sortedMedia = new SortedList<>(filteredMedia);
-        sortedMedia.comparatorProperty().bind(mediaTable.comparatorProperty());
-        
-        mediaTable.setItems(sortedMedia);
-    }
-    
-    private void updateFilters() {
-        filteredMedia.setPredicate(media -> {
-            // Search filter
-            String searchText = searchField.getText();
-            boolean matchesSearch = true;
-            if (searchText != null && !searchText.trim().isEmpty()) {
-                String lowerCaseFilter = searchText.toLowerCase();
-                matchesSearch = media.getTitle().toLowerCase().contains(lowerCaseFilter) ||
-                              media.getAuthorName().toLowerCase().contains(lowerCaseFilter) ||
-                              media.getIsbn().toLowerCase().contains(lowerCaseFilter) ||
-                              String.valueOf(media.getId()).contains(lowerCaseFilter);
-            }
+        // The filter pipeline and its listeners are set up once; later calls re-apply the filters
+        if (mediaFilter == null) {
+            mediaFilter = new DebouncedFilter<>(dbManager.getAllMedia(), this::buildFilterPredicate);
             
-            // Type filter
-            String typeFilterValue = typeFilter.getValue();
-            boolean matchesType = typeFilterValue == null || "All".equals(typeFilterValue) || 
-                                typeFilterValue.equals(media.getType());
+            // Setup search filter
+            searchField.textProperty().addListener((observable, oldValue, newValue) -> {
+                mediaFilter.refilterLater();
+            });
             
-            // Availability filter
-            String availabilityFilterValue = availabilityFilter.getValue();
-            boolean matchesAvailability = true;
-            if (availabilityFilterValue != null && !"All".equals(availabilityFilterValue)) {
-                if ("Available".equals(availabilityFilterValue)) {
-                    matchesAvailability = media.isAvailable();
-                } else if ("Unavailable".equals(availabilityFilterValue)) {
-                    matchesAvailability = !media.isAvailable();
-                }
+            // Setup type, category, language and availability filters
+            for (ComboBox<String> filter : List.of(typeFilter, categoryFilter, languageFilter, availabilityFilter)) {
+                filter.valueProperty().addListener((observable, oldValue, newValue) -> {
+                    mediaFilter.refilterNow();
+                });
             }
             
-            return matchesSearch && matchesType && matchesAvailability;
-        });
+            SortedList<Media> sortedMedia = new SortedList<>(mediaFilter.getResults());
+            sortedMedia.comparatorProperty().bind(mediaTable.comparatorProperty());
+            
+            mediaTable.setItems(sortedMedia);
+        }
+        
+        // Offer the categories and languages present in the catalog
+        Map<FacetIndex.Facet, Map<String, Integer>> allCounts = dbManager.queryMediaFacets(null, Map.of()).counts();
+        refreshFacetOptions(categoryFilter, allCounts.get(FacetIndex.Facet.CATEGORY).keySet());
+        refreshFacetOptions(languageFilter, allCounts.get(FacetIndex.Facet.LANGUAGE).keySet());
+        mediaFilter.refilterNow();
+    }
+    
+    private void refreshFacetOptions(ComboBox<String> combo, Set<String> values) {
+        String selected = combo.getValue();
+        List<String> options = new ArrayList<>();
+        options.add("All");
+        options.addAll(values);
+        if (!options.equals(combo.getItems())) {
+            combo.getItems().setAll(options);
+            combo.setValue(options.contains(selected) ? selected : "All");
+        }
+    }
+    
+    // Runs on the FX thread; the returned predicate runs in the background, so it only uses captured values
+    private Predicate<Media> buildFilterPredicate() {
+        // Search text and facet selections are resolved once through the indexes instead of per row
+        Map<FacetIndex.Facet, String> selections = new EnumMap<>(FacetIndex.Facet.class);
+        addSelection(selections, FacetIndex.Facet.TYPE, typeFilter);
+        addSelection(selections, FacetIndex.Facet.CATEGORY, categoryFilter);
+        addSelection(selections, FacetIndex.Facet.LANGUAGE, languageFilter);
+        addSelection(selections, FacetIndex.Facet.AVAILABILITY, availabilityFilter);
+        
+        FacetIndex.Result result = dbManager.queryMediaFacets(searchField.getText(), selections);
+        facetCounts = result.counts();
+        Set<Integer> matches = result.mediaIds();
+        resultCountLabel.setText(matches.size() + " of " + dbManager.getAllMedia().size() + " media");
+        return media -> matches.contains(media.getId());
+    }
+    
+    private void addSelection(Map<FacetIndex.Facet, String> selections, FacetIndex.Facet facet, ComboBox<String> filter) {
+        String value = filter.getValue();
+        if (value != null && !"All".equals(value)) {
+            selections.put(facet, value);
+        }
     }
     
     private void showAddMediaDialog() {
@@ -317,7 +366,8 @@ public class MediaManagementView extends VBox {
         if (selectedMedia != null) {
             Media copy = new Media();
             copy.setTitle(selectedMedia.getTitle() + " (Copy)");
-            copy.setIsbn(selectedMedia.getIsbn() + "-COPY");
+            // Every edition has its own ISBN; the librarian enters the new one
+            copy.setIsbn("");
             copy.setPublishYear(selectedMedia.getPublishYear());
             copy.setPublisher(selectedMedia.getPublisher());
             copy.setType(selectedMedia.getType());
@@ -330,6 +380,9 @@ public class MediaManagementView extends VBox {
             copy.setLanguage(selectedMedia.getLanguage());
             
             MediaDialog dialog = new MediaDialog(dbManager, copy);
+            dialog.setTitle("Copy Media");
+            dialog.setHeaderText("Enter the ISBN of the new edition.\n"
+                + "For more copies of the same edition, edit \"" + selectedMedia.getTitle() + "\" and increase Total Copies instead.");
             Optional<Media> result = dialog.showAndWait();
             if (result.isPresent()) {
                 loadMedia();
@@ -2,6 +2,7 @@ package com.library.ui;
 
 import com.library.model.Member;
 import com.library.service.DatabaseManager;
+import com.library.util.LibraryClock;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
@@ -146,7 +147,7 @@ public class MemberDialog extends Dialog<Member> {
         
         if (birthDatePicker.getValue() == null) {
             errors.append("- Birth date is required\n");
-        } else if (birthDatePicker.getValue().isAfter(LocalDate.now())) {
+        } else if (birthDatePicker.getValue().isAfter(LibraryClock.today())) {
             errors.append("- Birth date cannot be in the future\n");
         }
         
@@ -189,8 +190,13 @@ public class MemberDialog extends Dialog<Member> {
         
         if (member.getId() == 0) {
             dbManager.addMember(member);
-        } else {
-            dbManager.updateMember(member);
+        } else if (!dbManager.updateMember(member)) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Save Failed");
+            alert.setHeaderText("The member could not be saved");
+            alert.setContentText("It was probably changed at another workstation and will be reloaded shortly; please try again.");
+            alert.showAndWait();
+            return null;
         }
         
         return member;
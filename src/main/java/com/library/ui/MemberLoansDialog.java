@@ -1,8 +1,12 @@
 package com.library.ui;
 
+import com.library.model.Fine;
 import com.library.model.Loan;
 import com.library.model.Member;
 import com.library.service.DatabaseManager;
+import com.library.service.MemberStats;
+import com.library.util.Collation;
+import com.library.util.Money;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -18,6 +22,10 @@ public class MemberLoansDialog extends Dialog<Void> {
     private DatabaseManager dbManager;
     private Member member;
     private TableView<Loan> loansTable;
+    private Label loansLabel;
+    private Label overdueLabel;
+    private Label balanceLabel;
+    private Label historyLabel;
     
     public MemberLoansDialog(DatabaseManager dbManager, Member member) {
         this.dbManager = dbManager;
@@ -64,12 +72,24 @@ public class MemberLoansDialog extends Dialog<Void> {
         Label nameLabel = new Label("Name: " + member.getFullName());
         Label emailLabel = new Label("Email: " + member.getEmail());
         Label statusLabel = new Label("Status: " + member.getStatus());
-        Label loansLabel = new Label("Current Loans: " + member.getCurrentLoans() + "/" + member.getMaxLoans());
+        loansLabel = new Label();
+        overdueLabel = new Label();
+        balanceLabel = new Label();
+        historyLabel = new Label();
         
-        infoBox.getChildren().addAll(title, nameLabel, emailLabel, statusLabel, loansLabel);
+        infoBox.getChildren().addAll(title, nameLabel, emailLabel, statusLabel, loansLabel, overdueLabel, balanceLabel, historyLabel);
         return infoBox;
     }
     
+    private void updateMemberStats() {
+        MemberStats stats = dbManager.getMemberStats(member);
+        loansLabel.setText("Current Loans: " + stats.activeLoans() + "/" + member.getMaxLoans());
+        overdueLabel.setText("Overdue Loans: " + stats.overdueLoans());
+        balanceLabel.setText("Outstanding Fines: " + Money.format(stats.outstandingCents()));
+        historyLabel.setText("Lifetime Loans: " + stats.lifetimeLoans() + "   Last Activity: "
+            + (stats.lastActivity() != null ? stats.lastActivity() : "-"));
+    }
+    
     private HBox createActionButtons() {
         HBox buttonBox = new HBox(10);
         buttonBox.getStyleClass().add("button-bar");
@@ -107,14 +127,9 @@ public class MemberLoansDialog extends Dialog<Void> {
         idCol.setPrefWidth(80);
         
         // Media Title Column
-        TableColumn<Loan, String> titleCol = new TableColumn<>("Media Title");
+        TableColumn<Loan, Collation.SortKey> titleCol = new TableColumn<>("Media Title");
         titleCol.setCellValueFactory(cellData -> 
-            new javafx.beans.binding.StringBinding() {
-                @Override
-                protected String computeValue() {
-                    return cellData.getValue().getMediaTitle();
-                }
-            });
+            new javafx.beans.property.ReadOnlyObjectWrapper<>(cellData.getValue().getMediaSortKey()));
         titleCol.setPrefWidth(200);
         
         // Loan Date Column
@@ -190,6 +205,7 @@ public class MemberLoansDialog extends Dialog<Void> {
         List<Loan> memberLoans = dbManager.getMemberLoans(member);
         loansTable.getItems().clear();
         loansTable.getItems().addAll(memberLoans);
+        updateMemberStats();
     }
     
     private void renewLoan() {
@@ -210,7 +226,11 @@ public class MemberLoansDialog extends Dialog<Void> {
                 Optional<ButtonType> result = confirmAlert.showAndWait();
                 if (result.isPresent() && result.get() == ButtonType.OK) {
                     selectedLoan.renew();
-                    dbManager.updateLoan(selectedLoan);
+                    if (!dbManager.updateLoan(selectedLoan)) {
+                        loadLoans();
+                        showAlert("Save Failed", "The renewal could not be saved. It was probably changed at another workstation and will be reloaded shortly; please try again.");
+                        return;
+                    }
                     loadLoans();
                     showAlert("Success", "Loan renewed successfully! New due date: " + selectedLoan.getDueDate());
                 }
@@ -235,23 +255,23 @@ public class MemberLoansDialog extends Dialog<Void> {
             
             String contentText = "Mark this item as returned?";
             if (selectedLoan.isOverdue()) {
-                double fine = selectedLoan.calculateFine();
-                contentText += String.format("\n\nNote: This item is %d days overdue. A fine of €%.2f will be applied.", 
-                    selectedLoan.getDaysOverdue(), fine);
+                // Only what the return will actually charge: the fine run may have fined the loan already
+                List<Fine> fines = dbManager.finesOnReturn(List.of(selectedLoan));
+                contentText += fines.isEmpty()
+                    ? String.format("\n\nNote: This item is %d days overdue. No further fine is due.", selectedLoan.getDaysOverdue())
+                    : String.format("\n\nNote: This item is %d days overdue. A fine of €%.2f will be applied.",
+                        selectedLoan.getDaysOverdue(), fines.get(0).getAmount());
             }
             confirmAlert.setContentText(contentText);
             
             Optional<ButtonType> result = confirmAlert.showAndWait();
             if (result.isPresent() && result.get() == ButtonType.OK) {
-                // Generate fine if overdue
-                if (selectedLoan.isOverdue()) {
-                    double fineAmount = selectedLoan.calculateFine();
-                    com.library.model.Fine fine = new com.library.model.Fine(
-                        0, selectedLoan.getMember(), selectedLoan, fineAmount, "Overdue return");
-                    dbManager.addFine(fine);
+                // Fine, return, copies and member count in one transaction
+                if (dbManager.returnLoan(selectedLoan).returned().isEmpty()) {
+                    loadLoans();
+                    showAlert("Return Failed", "The item could not be returned. It may have been changed at another workstation; the list has been reloaded.");
+                    return;
                 }
-                
-                dbManager.returnLoan(selectedLoan);
                 loadLoans();
                 showAlert("Success", "Item returned successfully!");
             }
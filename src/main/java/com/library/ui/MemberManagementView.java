@@ -2,9 +2,7 @@ package com.library.ui;
 
 import com.library.model.Member;
 import com.library.service.DatabaseManager;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
+import com.library.util.Collation;
 import javafx.collections.transformation.SortedList;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
@@ -15,11 +13,13 @@ import javafx.scene.layout.VBox;
 
 import java.time.LocalDate;
 import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.Set;
 
 public class MemberManagementView extends VBox {
     private DatabaseManager dbManager;
     private TableView<Member> memberTable;
-    private FilteredList<Member> filteredMembers;
+    private DebouncedFilter<Member> memberFilter;
     private TextField searchField;
     private ComboBox<String> statusFilter;
     
@@ -116,14 +116,9 @@ public class MemberManagementView extends VBox {
         idCol.setPrefWidth(60);
         
         // Name Column
-        TableColumn<Member, String> nameCol = new TableColumn<>("Name");
+        TableColumn<Member, Collation.SortKey> nameCol = new TableColumn<>("Name");
         nameCol.setCellValueFactory(cellData -> 
-            new javafx.beans.binding.StringBinding() {
-                @Override
-                protected String computeValue() {
-                    return cellData.getValue().getFullName();
-                }
-            });
+            new javafx.beans.property.ReadOnlyObjectWrapper<>(cellData.getValue().getNameSortKey()));
         nameCol.setPrefWidth(200);
         
         // Email Column
@@ -172,54 +167,43 @@ public class MemberManagementView extends VBox {
         return table;
     }
     
-    private void loadMembers() {
-        ObservableList<Member> members = dbManager.getAllMembers();
-        filteredMembers = new FilteredList<>(members);
-        
-        // Setup search filter
-        searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            filteredMembers.setPredicate(member -> {
-                if (newValue == null || newValue.isEmpty()) {
-                    return matchesStatusFilter(member);
-                }
-                
-                String lowerCaseFilter = newValue.toLowerCase();
-                
-                boolean matchesSearch = member.getFullName().toLowerCase().contains(lowerCaseFilter) ||
-                                      member.getEmail().toLowerCase().contains(lowerCaseFilter) ||
-                                      String.valueOf(member.getId()).contains(lowerCaseFilter);
-                
-                return matchesSearch && matchesStatusFilter(member);
-            });
-        });
-        
-        // Setup status filter
-        statusFilter.valueProperty().addListener((observable, oldValue, newValue) -> {
-            filteredMembers.setPredicate(member -> {
-                String searchText = searchField.getText();
-                boolean matchesSearch = true;
-                
-                if (searchText != null && !searchText.isEmpty()) {
-                    String lowerCaseFilter = searchText.toLowerCase();
-                    matchesSearch = member.getFullName().toLowerCase().contains(lowerCaseFilter) ||
-                                   member.getEmail().toLowerCase().contains(lowerCaseFilter) ||
-                                   String.valueOf(member.getId()).contains(lowerCaseFilter);
-                }
-                
-                return matchesSearch && matchesStatusFilter(member);
-            });
-        });
-        
-        SortedList<Member> sortedMembers = new SortedList<>(filteredMembers);
-        sortedMembers.comparatorProperty().bind(memberTable.comparatorProperty());
+    // Runs on the FX thread; the returned predicate runs in the background, so it only uses captured values
+    private Predicate<Member> buildFilterPredicate() {
+        // Search filter: resolved once through the prefix index instead of scanning every member
+        String searchText = searchField.getText();
+        Set<Integer> searchMatches = searchText != null && !searchText.trim().isEmpty()
+            ? dbManager.searchMemberIds(searchText) : null;
+        String statusFilterValue = statusFilter.getValue();
         
-        memberTable.setItems(sortedMembers);
+        return member -> {
+            boolean matchesSearch = searchMatches == null || searchMatches.contains(member.getId());
+            boolean matchesStatus = statusFilterValue == null || "All".equals(statusFilterValue) || 
+                                    statusFilterValue.equals(member.getStatus());
+            return matchesSearch && matchesStatus;
+        };
     }
     
-    private boolean matchesStatusFilter(Member member) {
-        String statusFilterValue = statusFilter.getValue();
-        return statusFilterValue == null || "All".equals(statusFilterValue) || 
-               statusFilterValue.equals(member.getStatus());
+    private void loadMembers() {
+        // The filter pipeline and its listeners are set up once; later calls re-apply the filters
+        if (memberFilter == null) {
+            memberFilter = new DebouncedFilter<>(dbManager.getAllMembers(), this::buildFilterPredicate);
+            
+            // Setup search filter
+            searchField.textProperty().addListener((observable, oldValue, newValue) -> {
+                memberFilter.refilterLater();
+            });
+            
+            // Setup status filter
+            statusFilter.valueProperty().addListener((observable, oldValue, newValue) -> {
+                memberFilter.refilterNow();
+            });
+            
+            SortedList<Member> sortedMembers = new SortedList<>(memberFilter.getResults());
+            sortedMembers.comparatorProperty().bind(memberTable.comparatorProperty());
+            
+            memberTable.setItems(sortedMembers);
+        }
+        memberFilter.refilterNow();
     }
     
     private void showAddMemberDialog() {
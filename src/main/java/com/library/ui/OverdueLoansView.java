@@ -1,7 +1,13 @@
 package com.library.ui;
 
+import com.library.model.Fine;
 import com.library.model.Loan;
+import com.library.model.Member;
 import com.library.service.DatabaseManager;
+import com.library.service.FinePolicyEngine;
+import com.library.service.NoticeTemplates;
+import com.library.service.ReturnBatch;
+import com.library.util.Collation;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -12,8 +18,12 @@ import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public class OverdueLoansView extends VBox {
     private DatabaseManager dbManager;
@@ -96,18 +106,28 @@ public class OverdueLoansView extends VBox {
         contactBtn.setOnAction(e -> contactMember());
         contactBtn.disableProperty().bind(overdueTable.getSelectionModel().selectedItemProperty().isNull());
         
-        Button returnBtn = new Button("📥 Return Item");
+        // Return, fine, suspend and notice work on every selected row (Ctrl/Shift-click to select several)
+        Button returnBtn = new Button("📥 Return Selected");
         returnBtn.getStyleClass().add("action-button");
-        returnBtn.setOnAction(e -> returnOverdueItem());
+        returnBtn.setOnAction(e -> returnSelectedItems());
         returnBtn.disableProperty().bind(overdueTable.getSelectionModel().selectedItemProperty().isNull());
         
+        Button noticeBtn = new Button("✉️ Send Notice");
+        noticeBtn.getStyleClass().add("action-button");
+        noticeBtn.setOnAction(e -> sendNotices());
+        
+        Button fineSelectedBtn = new Button("💰 Fine Selected");
+        fineSelectedBtn.getStyleClass().add("action-button");
+        fineSelectedBtn.setOnAction(e -> fineSelectedLoans());
+        fineSelectedBtn.disableProperty().bind(overdueTable.getSelectionModel().selectedItemProperty().isNull());
+        
         Button generateFinesBtn = new Button("💰 Generate Fines");
         generateFinesBtn.getStyleClass().add("action-button");
         generateFinesBtn.setOnAction(e -> generateAllFines());
         
-        Button suspendMemberBtn = new Button("🚫 Suspend Member");
+        Button suspendMemberBtn = new Button("🚫 Suspend Members");
         suspendMemberBtn.getStyleClass().add("action-button");
-        suspendMemberBtn.setOnAction(e -> suspendMember());
+        suspendMemberBtn.setOnAction(e -> suspendSelectedMembers());
         suspendMemberBtn.disableProperty().bind(overdueTable.getSelectionModel().selectedItemProperty().isNull());
         
         Button detailsBtn = new Button("👁️ View Details");
@@ -119,7 +139,7 @@ public class OverdueLoansView extends VBox {
         refreshBtn.getStyleClass().add("action-button");
         refreshBtn.setOnAction(e -> loadOverdueLoans());
         
-        buttonBox.getChildren().addAll(contactBtn, returnBtn, generateFinesBtn, 
+        buttonBox.getChildren().addAll(contactBtn, noticeBtn, returnBtn, fineSelectedBtn, generateFinesBtn, 
                                      suspendMemberBtn, detailsBtn, refreshBtn);
         return buttonBox;
     }
@@ -127,6 +147,7 @@ public class OverdueLoansView extends VBox {
     private TableView<Loan> createOverdueTable() {
         TableView<Loan> table = new TableView<>();
         table.getStyleClass().add("data-table");
+        table.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         
         // Loan ID Column
         TableColumn<Loan, Integer> idCol = new TableColumn<>("Loan ID");
@@ -134,14 +155,9 @@ public class OverdueLoansView extends VBox {
         idCol.setPrefWidth(80);
         
         // Member Column
-        TableColumn<Loan, String> memberCol = new TableColumn<>("Member");
+        TableColumn<Loan, Collation.SortKey> memberCol = new TableColumn<>("Member");
         memberCol.setCellValueFactory(cellData -> 
-            new javafx.beans.binding.StringBinding() {
-                @Override
-                protected String computeValue() {
-                    return cellData.getValue().getMemberName();
-                }
-            });
+            new javafx.beans.property.ReadOnlyObjectWrapper<>(cellData.getValue().getMemberSortKey()));
         memberCol.setPrefWidth(150);
         
         // Contact Info Column
@@ -157,14 +173,9 @@ public class OverdueLoansView extends VBox {
         contactCol.setPrefWidth(200);
         
         // Media Column
-        TableColumn<Loan, String> mediaCol = new TableColumn<>("Media");
+        TableColumn<Loan, Collation.SortKey> mediaCol = new TableColumn<>("Media");
         mediaCol.setCellValueFactory(cellData -> 
-            new javafx.beans.binding.StringBinding() {
-                @Override
-                protected String computeValue() {
-                    return cellData.getValue().getMediaTitle();
-                }
-            });
+            new javafx.beans.property.ReadOnlyObjectWrapper<>(cellData.getValue().getMediaSortKey()));
         mediaCol.setPrefWidth(200);
         
         // Due Date Column
@@ -183,7 +194,7 @@ public class OverdueLoansView extends VBox {
         // Fine Amount Column
         TableColumn<Loan, String> fineCol = new TableColumn<>("Fine Amount");
         fineCol.setCellValueFactory(cellData -> {
-            double fine = cellData.getValue().calculateFine();
+            double fine = FinePolicyEngine.getInstance().calculateFine(cellData.getValue());
             return new javafx.beans.property.SimpleStringProperty(String.format("€%.2f", fine));
         });
         fineCol.setPrefWidth(100);
@@ -261,7 +272,7 @@ public class OverdueLoansView extends VBox {
     private void updateStatistics(List<Loan> overdueLoans) {
         int totalOverdue = overdueLoans.size();
         double totalFines = overdueLoans.stream()
-            .mapToDouble(Loan::calculateFine)
+            .mapToDouble(FinePolicyEngine.getInstance()::calculateFine)
             .sum();
         
         double avgDaysOverdue = overdueLoans.stream()
@@ -285,33 +296,82 @@ public class OverdueLoansView extends VBox {
         }
     }
     
-    private void returnOverdueItem() {
-        Loan selectedLoan = overdueTable.getSelectionModel().getSelectedItem();
-        if (selectedLoan != null) {
-            Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
-            confirmAlert.setTitle("Return Overdue Item");
-            confirmAlert.setHeaderText("Return " + selectedLoan.getMediaTitle() + "?");
-            
-            double fine = selectedLoan.calculateFine();
-            confirmAlert.setContentText(String.format(
-                "This item is %d days overdue.\n\nA fine of €%.2f will be applied.\n\nProceed with return?", 
-                selectedLoan.getDaysOverdue(), fine));
-            
-            Optional<ButtonType> result = confirmAlert.showAndWait();
-            if (result.isPresent() && result.get() == ButtonType.OK) {
-                // Generate fine
-                com.library.model.Fine fineRecord = new com.library.model.Fine(
-                    0, selectedLoan.getMember(), selectedLoan, fine, "Overdue return");
-                dbManager.addFine(fineRecord);
-                
-                // Return loan
-                dbManager.returnLoan(selectedLoan);
+    // Queues one notice per selected loan, or per overdue loan when nothing is selected;
+    // the notification dispatcher sends them in the background
+    private void sendNotices() {
+        List<Loan> selected = selectedLoans();
+        List<String> templates = NoticeTemplates.getInstance().getNames();
+        if (templates.isEmpty()) {
+            showAlert("No Templates", "There are no notice templates to send.");
+            return;
+        }
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(templates.get(0), templates);
+        dialog.setTitle("Send Notice");
+        dialog.setHeaderText(selected.isEmpty()
+            ? "Email a notice about every overdue item"
+            : "Email a notice about the " + selected.size() + " selected items");
+        dialog.setContentText("Template:");
+        
+        Optional<String> template = dialog.showAndWait();
+        if (template.isPresent()) {
+            int queued = selected.isEmpty()
+                ? dbManager.enqueueOverdueNotices(template.get())
+                : dbManager.enqueueOverdueNotices(template.get(), selected);
+            showAlert("Notifications Queued", String.format(
+                "%d notices have been queued and will be sent shortly.\n\n" +
+                "Members without an email address and items that already have this notice waiting were skipped.", queued));
+        }
+    }
+    
+    private void returnSelectedItems() {
+        List<Loan> selected = selectedLoans();
+        if (selected.isEmpty()) {
+            return;
+        }
+        // Loans that already have an outstanding fine are not charged again
+        double fines = dbManager.finesOnReturn(selected).stream().mapToDouble(Fine::getAmount).sum();
+        
+        Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmAlert.setTitle("Return Overdue Items");
+        confirmAlert.setHeaderText(selected.size() == 1
+            ? "Return " + selected.get(0).getMediaTitle() + "?"
+            : "Return " + selected.size() + " items?");
+        confirmAlert.setContentText(String.format(
+            "Fines totalling €%.2f will be applied.\n\nProceed with return?", fines));
+        
+        Optional<ButtonType> result = confirmAlert.showAndWait();
+        if (result.isPresent() && result.get() == ButtonType.OK) {
+            // One transaction for the whole selection: fines, returns, copies and member counts
+            ReturnBatch batch = dbManager.returnLoans(selected);
+            List<Loan> returned = batch.returned();
+            if (returned.isEmpty()) {
                 loadOverdueLoans();
-                showAlert("Success", String.format("Item returned successfully!\nFine of €%.2f has been applied.", fine));
+                showAlert("Return Failed", "The items could not be returned. The list has been reloaded; please try again.");
+                return;
             }
+            overdueTable.getItems().removeAll(new HashSet<>(returned));
+            updateStatistics(overdueTable.getItems());
+            double charged = batch.fines().stream().mapToDouble(Fine::getAmount).sum();
+            showAlert("Success", String.format("%d items returned successfully!\nFines of €%.2f have been applied.",
+                returned.size(), charged));
         }
     }
     
+    // Issues the policy fine for the selected loans; loans that already have an outstanding fine are skipped
+    private void fineSelectedLoans() {
+        List<Loan> selected = selectedLoans();
+        if (selected.isEmpty()) {
+            return;
+        }
+        List<Fine> fines = dbManager.fineOverdueLoans(selected);
+        double total = fines.stream().mapToDouble(Fine::getAmount).sum();
+        overdueTable.refresh();
+        showAlert("Fines Issued", String.format(
+            "%d fines totalling €%.2f have been issued.\n\n" +
+            "Items that already have an outstanding fine or are still within the grace period were skipped.",
+            fines.size(), total));
+    }
+    
     private void generateAllFines() {
         Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
         confirmAlert.setTitle("Generate All Fines");
@@ -326,25 +386,35 @@ public class OverdueLoansView extends VBox {
         }
     }
     
-    private void suspendMember() {
-        Loan selectedLoan = overdueTable.getSelectionModel().getSelectedItem();
-        if (selectedLoan != null) {
-            var member = selectedLoan.getMember();
-            
-            Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
-            confirmAlert.setTitle("Suspend Member");
-            confirmAlert.setHeaderText("Suspend " + member.getFullName() + "?");
-            confirmAlert.setContentText("This will prevent the member from borrowing new items. " +
-                "The member can be reactivated later. Continue?");
-            
-            Optional<ButtonType> result = confirmAlert.showAndWait();
-            if (result.isPresent() && result.get() == ButtonType.OK) {
-                member.setStatus("Suspended");
-                dbManager.updateMember(member);
-                loadOverdueLoans();
-                showAlert("Success", member.getFullName() + " has been suspended.");
-            }
+    private void suspendSelectedMembers() {
+        Set<Member> members = new LinkedHashSet<>();
+        for (Loan loan : selectedLoans()) {
+            members.add(loan.getMember());
+        }
+        if (members.isEmpty()) {
+            return;
         }
+        
+        Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmAlert.setTitle("Suspend Members");
+        confirmAlert.setHeaderText(members.size() == 1
+            ? "Suspend " + members.iterator().next().getFullName() + "?"
+            : "Suspend " + members.size() + " members?");
+        confirmAlert.setContentText("This will prevent the members from borrowing new items. " +
+            "They can be reactivated later. Continue?");
+        
+        Optional<ButtonType> result = confirmAlert.showAndWait();
+        if (result.isPresent() && result.get() == ButtonType.OK) {
+            List<Member> suspended = dbManager.suspendMembers(members);
+            overdueTable.refresh();
+            showAlert("Success", suspended.size() == 1
+                ? suspended.get(0).getFullName() + " has been suspended."
+                : suspended.size() + " members have been suspended.");
+        }
+    }
+    
+    private List<Loan> selectedLoans() {
+        return new ArrayList<>(overdueTable.getSelectionModel().getSelectedItems());
     }
     
     private void showLoanDetails() {
@@ -1,6 +1,9 @@
 package com.library.ui;
 
 import com.library.service.DatabaseManager;
+import com.library.service.SearchResultCache;
+import com.library.util.LibraryClock;
+import com.library.util.Money;
 import javafx.geometry.Insets;
 import javafx.scene.chart.*;
 import javafx.scene.control.Label;
@@ -83,14 +86,26 @@ public class StatisticsView extends VBox {
             "Financial Statistics",
             new String[]{"Outstanding Fines", "Total Fines", "Avg Fine Amount"},
             new String[]{
-                String.format("€%.2f", dbManager.getTotalOutstandingFines()),
+                Money.format(dbManager.getTotalOutstandingFineCents()),
                 String.valueOf(dbManager.getAllFines().size()),
                 String.format("€%.2f", dbManager.getAllFines().isEmpty() ? 0 : 
                     dbManager.getAllFines().stream().mapToDouble(f -> f.getAmount()).average().orElse(0))
             }
         );
         
-        cardsContainer.getChildren().addAll(memberCard, mediaCard, loanCard, financialCard);
+        // Search Cache Card
+        SearchResultCache.Stats cacheStats = dbManager.getSearchCacheStats();
+        VBox searchCacheCard = createStatsCard(
+            "Search Cache",
+            new String[]{"Hit Rate", "Hits / Misses", "Evictions / Invalidations"},
+            new String[]{
+                String.format("%.0f%%", cacheStats.hitRate() * 100),
+                cacheStats.hits() + " / " + cacheStats.misses(),
+                cacheStats.evictions() + " / " + cacheStats.invalidations()
+            }
+        );
+        
+        cardsContainer.getChildren().addAll(memberCard, mediaCard, loanCard, financialCard, searchCacheCard);
         return cardsContainer;
     }
     
@@ -206,7 +221,7 @@ public class StatisticsView extends VBox {
         loanStatusChart.setTitle("Loan Status Distribution");
         
         long activeLoans = dbManager.getActiveLoans().size();
-        long overdueLoans = dbManager.getOverdueLoans().size();
+        long overdueLoans = dbManager.getTotalOverdueLoans();
         long returnedLoans = dbManager.getAllLoans().stream()
             .filter(l -> "Returned".equals(l.getStatus()))
             .count();
@@ -226,7 +241,7 @@ public class StatisticsView extends VBox {
         
         // Generate sample trend data
         for (int i = 11; i >= 0; i--) {
-            LocalDate date = LocalDate.now().minusMonths(i);
+            LocalDate date = LibraryClock.today().minusMonths(i);
             String monthLabel = date.getMonth().toString().substring(0, 3) + " " + date.getYear();
             int loanCount = (int) (Math.random() * 20) + 5; // Sample data
             loanSeries.getData().add(new XYChart.Data<>(monthLabel, loanCount));
@@ -0,0 +1,50 @@
+package com.library.util;
+
+import java.text.Collator;
+import java.util.Locale;
+
+/**
+ * German sort order for names and titles ("Äpfel" next to "Apfel", not after "Z").
+ * Comparing with a Collator is slow, so the models build a {@link SortKey} once
+ * per value and tables compare the precomputed keys.
+ */
+public final class Collation {
+    private static final Collator COLLATOR = createCollator();
+
+    public static final SortKey UNKNOWN = sortKey("Unknown");
+
+    // Shown as its text, ordered by its collation key
+    public record SortKey(String text, String key) implements Comparable<SortKey> {
+        @Override
+        public int compareTo(SortKey other) {
+            return key.compareTo(other.key);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private Collation() {}
+
+    public static SortKey sortKey(String text) {
+        String value = text != null ? text : "";
+        // RuleBasedCollator is synchronized internally, so keys can be built from any thread
+        byte[] bytes = COLLATOR.getCollationKey(value).toByteArray();
+        // The key is a sequence of 16-bit weights. Kept as a String, weights below 256 (all of
+        // Latin script) are stored one byte each and compared as fast as the plain text.
+        char[] weights = new char[bytes.length / 2];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (char) (((bytes[2 * i] & 0xff) << 8) | (bytes[2 * i + 1] & 0xff));
+        }
+        return new SortKey(value, new String(weights));
+    }
+
+    private static Collator createCollator() {
+        Collator collator = Collator.getInstance(Locale.GERMAN);
+        // Composed and decomposed umlauts (imports from other systems) sort the same
+        collator.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+        return collator;
+    }
+}
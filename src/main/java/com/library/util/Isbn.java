@@ -0,0 +1,105 @@
+package com.library.util;
+
+/**
+ * ISBN normalization for scanner input and duplicate checks. Hyphens and
+ * spaces are stripped, checksums verified, and ISBN-10 is converted to the
+ * canonical ISBN-13 form.
+ */
+public final class Isbn {
+    private Isbn() {}
+
+    // Digits (and a trailing X) only, upper case
+    public static String compact(String raw) {
+        if (raw == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(13);
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sb.append(c);
+            } else if (c == 'X' || c == 'x') {
+                sb.append('X');
+            } else if (c != '-' && c != ' ') {
+                return "";
+            }
+        }
+        return sb.toString();
+    }
+
+    public static boolean isValid(String raw) {
+        String isbn = compact(raw);
+        return isValidIsbn10(isbn) || isValidIsbn13(isbn);
+    }
+
+    // Canonical ISBN-13 for a valid ISBN-10 or ISBN-13, null otherwise
+    public static String toIsbn13(String raw) {
+        String isbn = compact(raw);
+        if (isValidIsbn13(isbn)) {
+            return isbn;
+        }
+        if (isValidIsbn10(isbn)) {
+            String body = "978" + isbn.substring(0, 9);
+            return body + isbn13CheckDigit(body);
+        }
+        return null;
+    }
+
+    // ISBN-10 for a valid ISBN-10 or a 978-prefixed ISBN-13, null otherwise
+    public static String toIsbn10(String raw) {
+        String isbn = compact(raw);
+        if (isValidIsbn10(isbn)) {
+            return isbn;
+        }
+        if (isValidIsbn13(isbn) && isbn.startsWith("978")) {
+            String body = isbn.substring(3, 12);
+            return body + isbn10CheckDigit(body);
+        }
+        return null;
+    }
+
+    /**
+     * Key for exact lookups: the ISBN-13 when the input is a valid ISBN, the
+     * compacted input otherwise (so legacy records with bad checksums still match
+     * themselves), or null when there is nothing to index.
+     */
+    public static String canonical(String raw) {
+        String isbn13 = toIsbn13(raw);
+        if (isbn13 != null) {
+            return isbn13;
+        }
+        String isbn = compact(raw);
+        return isbn.isEmpty() ? null : isbn;
+    }
+
+    private static boolean isValidIsbn10(String isbn) {
+        if (isbn.length() != 10 || isbn.substring(0, 9).indexOf('X') >= 0) {
+            return false;
+        }
+        return isbn10CheckDigit(isbn.substring(0, 9)) == isbn.charAt(9);
+    }
+
+    private static boolean isValidIsbn13(String isbn) {
+        if (isbn.length() != 13 || isbn.indexOf('X') >= 0) {
+            return false;
+        }
+        return isbn13CheckDigit(isbn.substring(0, 12)) == isbn.charAt(12);
+    }
+
+    private static char isbn10CheckDigit(String body) {
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            sum += (10 - i) * (body.charAt(i) - '0');
+        }
+        int check = (11 - sum % 11) % 11;
+        return check == 10 ? 'X' : (char) ('0' + check);
+    }
+
+    private static char isbn13CheckDigit(String body) {
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (i % 2 == 0 ? 1 : 3) * (body.charAt(i) - '0');
+        }
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+}
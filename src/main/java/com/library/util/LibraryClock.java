@@ -0,0 +1,94 @@
+package com.library.util;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.function.Supplier;
+
+/**
+ * The library's business date, used instead of LocalDate.now() everywhere.
+ * The date is cached until the next midnight, and can be fixed to one day
+ * (-Dlibrary.date=2025-10-01) to replay or benchmark date logic.
+ */
+public final class LibraryClock {
+    // Date plus the instant it stops being valid, swapped as one object so readers never see a torn pair
+    private record CachedDate(Clock clock, LocalDate date, long validUntilMillis) {}
+
+    private static final ThreadLocal<LocalDate> SNAPSHOT = new ThreadLocal<>();
+    private static volatile Clock clock = Clock.systemDefaultZone();
+    private static volatile LocalDate fixedDate = parseFixedDate(System.getProperty("library.date"));
+    private static volatile CachedDate cached;
+
+    private LibraryClock() {}
+
+    public static LocalDate today() {
+        LocalDate snapshot = SNAPSHOT.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        LocalDate fixed = fixedDate;
+        if (fixed != null) {
+            return fixed;
+        }
+        Clock current = clock;
+        CachedDate date = cached;
+        if (date == null || date.clock() != current || current.millis() >= date.validUntilMillis()) {
+            date = tick(current);
+            cached = date;
+        }
+        return date.date();
+    }
+
+    // Runs a bulk evaluation (fine run, statistics, batch job) against one date, even if it crosses midnight
+    public static <T> T withSnapshot(Supplier<T> action) {
+        if (SNAPSHOT.get() != null) {
+            return action.get();
+        }
+        SNAPSHOT.set(today());
+        try {
+            return action.get();
+        } finally {
+            SNAPSHOT.remove();
+        }
+    }
+
+    public static void withSnapshot(Runnable action) {
+        withSnapshot(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // Pins the business date for everyone; null goes back to the real clock
+    public static void setFixedDate(LocalDate date) {
+        fixedDate = date;
+    }
+
+    public static boolean isFixed() {
+        return fixedDate != null;
+    }
+
+    // Replaces the underlying clock, e.g. Clock.fixed(...) or a clock in another time zone
+    public static void setClock(Clock newClock) {
+        clock = newClock;
+        cached = null;
+    }
+
+    private static CachedDate tick(Clock current) {
+        LocalDate date = LocalDate.now(current);
+        long nextMidnight = date.plusDays(1).atStartOfDay(current.getZone()).toInstant().toEpochMilli();
+        return new CachedDate(current, date, nextMidnight);
+    }
+
+    private static LocalDate parseFixedDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            System.err.println("Ignoring invalid library.date '" + value + "', using the system date");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.library.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amounts in whole cents. Fines are stored as DECIMAL(10,2), so converting at
+ * the edges keeps sums exact instead of accumulating double rounding errors.
+ */
+public final class Money {
+    private Money() {}
+
+    public static long toCents(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public static String format(long cents) {
+        return "€" + fromCents(cents).toPlainString();
+    }
+
+    // Same text as format(), appended without intermediate objects (bulk notice rendering)
+    public static void appendTo(StringBuilder out, long cents) {
+        out.append('€');
+        if (cents < 0) {
+            out.append('-');
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        out.append(cents / 100).append('.');
+        if (fraction < 10) {
+            out.append('0');
+        }
+        out.append(fraction);
+    }
+}
@@ -0,0 +1,27 @@
+package com.library.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A thread per task on virtual threads when running on Java 21+, and a bounded
+ * platform pool otherwise (the build targets 17, so the factory is looked up
+ * reflectively).
+ */
+public final class VirtualThreads {
+    private VirtualThreads() {}
+
+    public static ExecutorService newPerTaskExecutor(int fallbackThreads) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(fallbackThreads, runnable -> {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}